@@ -0,0 +1,63 @@
+#!/usr/bin/env python3
+"""Compare two JMH JSON results, e.g. build/results/jmh/<version>.json of two versions.
+
+Usage: python3 scripts/jmh_compare.py <base.json> <new.json>
+Prints score, p99 (SampleTime only) and gc.alloc.rate.norm per benchmark, params and mode.
+For thrpt higher is better, for sample lower is better.
+"""
+import json
+import sys
+
+
+def load(path):
+    with open(path) as f:
+        results = {}
+        for run in json.load(f):
+            params = ",".join(f"{k}={v}" for k, v in sorted(run.get("params", {}).items()))
+            name = run["benchmark"].rsplit(".", 2)[-2:]
+            key = (".".join(name), params, run["mode"])
+            primary = run["primaryMetric"]
+            # JMH before 1.37 prefixed profiler metrics with a middle dot
+            secondary = {k.lstrip("·"): v for k, v in run.get("secondaryMetrics", {}).items()}
+            results[key] = {
+                "score": primary["score"],
+                "unit": primary["scoreUnit"],
+                "p99": primary.get("scorePercentiles", {}).get("99.0"),
+                "alloc": secondary.get("gc.alloc.rate.norm", {}).get("score"),
+            }
+        return results
+
+
+def change(base, new):
+    if base is None or new is None or base == 0:
+        return ""
+    return f"{(new - base) / base * 100:+.1f}%"
+
+
+def fmt(value):
+    return "" if value is None else f"{value:.3f}"
+
+
+def main():
+    if len(sys.argv) != 3:
+        sys.exit(__doc__)
+    base, new = load(sys.argv[1]), load(sys.argv[2])
+
+    header = ("benchmark", "params", "mode", "unit", "base", "new", "change",
+              "p99 base", "p99 new", "B/op base", "B/op new")
+    rows = [header]
+    for key in sorted(base.keys() | new.keys()):
+        b, n = base.get(key, {}), new.get(key, {})
+        p99 = key[2] == "sample"
+        rows.append((*key, (n or b)["unit"],
+                     fmt(b.get("score")), fmt(n.get("score")), change(b.get("score"), n.get("score")),
+                     fmt(b.get("p99")) if p99 else "", fmt(n.get("p99")) if p99 else "",
+                     fmt(b.get("alloc")), fmt(n.get("alloc"))))
+
+    widths = [max(len(row[i]) for row in rows) for i in range(len(header))]
+    for row in rows:
+        print("  ".join(cell.ljust(width) for cell, width in zip(row, widths)))
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,56 @@
+#!/usr/bin/env python3
+"""Slow SMTP stand-in for load tests. Accepts every message and delays each reply.
+
+Usage: python3 scripts/slow_smtp.py [port] [delay-seconds]
+Then run the server with spring.mail.host=localhost, spring.mail.port=<port> and
+spring.mail.properties.mail.smtp.starttls.enable=false.
+"""
+import asyncio
+import sys
+
+PORT = int(sys.argv[1]) if len(sys.argv) > 1 else 2525
+DELAY = float(sys.argv[2]) if len(sys.argv) > 2 else 2.0
+
+
+async def handle(reader, writer):
+    async def reply(line):
+        writer.write((line + "\r\n").encode())
+        await writer.drain()
+
+    await reply("220 slow-smtp ready")
+    in_data = False
+    while True:
+        line = await reader.readline()
+        if not line:
+            break
+        command = line.decode(errors="replace").rstrip("\r\n")
+        if in_data:
+            if command == ".":
+                in_data = False
+                await asyncio.sleep(DELAY)  # The slow part: relays usually spend their time here
+                await reply("250 queued")
+            continue
+        verb = command.split(" ", 1)[0].upper()
+        if verb in ("EHLO", "HELO"):
+            await reply("250 slow-smtp")
+        elif verb == "AUTH":
+            await reply("235 ok")
+        elif verb == "DATA":
+            in_data = True
+            await reply("354 go ahead")
+        elif verb == "QUIT":
+            await reply("221 bye")
+            break
+        else:
+            await reply("250 ok")
+    writer.close()
+
+
+async def main():
+    server = await asyncio.start_server(handle, "127.0.0.1", PORT)
+    print(f"slow-smtp on 127.0.0.1:{PORT}, {DELAY}s per message")
+    async with server:
+        await server.serve_forever()
+
+
+asyncio.run(main())
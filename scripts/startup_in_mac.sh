@@ -37,8 +37,6 @@ else
     sleep 5
 fi
 
-JAVA_OPTS="-Dspring.jpa.hibernate.ddl-auto=update"
-
 JAR_PATH=$DEPLOY_PATH/$JAR_NAME
 echo "> JAR_PATH $JAR_PATH" >> $DEPLOY_LOG_PATH
 echo "> JAVA_OPTS $JAVA_OPTS" >> $DEPLOY_LOG_PATH
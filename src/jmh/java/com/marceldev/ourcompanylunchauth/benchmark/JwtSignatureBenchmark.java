@@ -0,0 +1,66 @@
+package com.marceldev.ourcompanylunchauth.benchmark;
+
+import com.marceldev.ourcompanylunchauth.component.JwtMinter;
+import com.marceldev.ourcompanylunchauth.component.JwtVerifier;
+import com.marceldev.ourcompanylunchauth.model.JwtSigningKey;
+import io.jsonwebtoken.Claims;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sign and verify cost per algorithm. HS512 is the shared secret, ES256 the JWKS published keys.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtSignatureBenchmark {
+
+  private static final String SECRET = "irsntuuqftynustrsyutnqfrastuarkftuqtulnqfturaustnayrustuaarsewur";
+
+  @Param({"HS512", "ES256"})
+  private String algorithm;
+
+  private JwtMinter jwtMinter;
+
+  private JwtVerifier jwtVerifier;
+
+  private String token;
+
+  @Setup
+  public void setUp() {
+    if (JwtSigningKey.ALGORITHM.equals(algorithm)) {
+      JwtSigningKey key = JwtSigningKey.generate(
+          LocalDateTime.now(), LocalDateTime.now().plusDays(1));
+      jwtMinter = new JwtMinter(SECRET, 24, () -> key);
+      jwtVerifier = new JwtVerifier(SECRET, kid -> key.getPublicKey());
+    } else {
+      jwtMinter = new JwtMinter(SECRET, 24);
+      jwtVerifier = new JwtVerifier(SECRET, null);
+    }
+    token = jwtMinter.generateToken("hello@company.com", "VIEWER");
+  }
+
+  @Benchmark
+  public String sign() {
+    return jwtMinter.generateToken("hello@company.com", "VIEWER");
+  }
+
+  @Benchmark
+  public Claims verify() {
+    return jwtVerifier.verify(token);
+  }
+}
@@ -0,0 +1,54 @@
+package com.marceldev.ourcompanylunchauth.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * BCrypt per strength, single threaded. Sign up pays encode, sign in pays matches. Each strength
+ * step doubles the time, so this shows what password-hash.strength costs per core on this host.
+ * SampleTime gives the percentiles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class PasswordHashBenchmark {
+
+  private static final String PASSWORD = "secretpw12";
+
+  @Param({"10", "12"})
+  private int strength;
+
+  private BCryptPasswordEncoder passwordEncoder;
+
+  private String encPassword;
+
+  @Setup
+  public void setUp() {
+    passwordEncoder = new BCryptPasswordEncoder(strength);
+    encPassword = passwordEncoder.encode(PASSWORD);
+  }
+
+  @Benchmark
+  public String encode() {
+    return passwordEncoder.encode(PASSWORD);
+  }
+
+  @Benchmark
+  public boolean matches() {
+    return passwordEncoder.matches(PASSWORD, encPassword);
+  }
+}
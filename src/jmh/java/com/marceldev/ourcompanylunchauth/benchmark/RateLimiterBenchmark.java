@@ -0,0 +1,63 @@
+package com.marceldev.ourcompanylunchauth.benchmark;
+
+import com.marceldev.ourcompanylunchauth.component.RateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * RateLimiter.tryAcquire from 8 threads. sameKey has every thread CAS on one bucket, the worst
+ * case, like one client flooding. distinctKeys is many clients. gc.alloc.rate.norm should be about
+ * 0, the buckets already exist after warmup.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class Limiter {
+
+    // High enough that both results are taken, as under a flood
+    RateLimiter rateLimiter = new RateLimiter("benchmark", 100, Duration.ofNanos(1_000),
+        100_000, new SimpleMeterRegistry());
+  }
+
+  @State(Scope.Thread)
+  public static class Key {
+
+    private static final AtomicInteger NEXT = new AtomicInteger();
+
+    String key;
+
+    @Setup
+    public void setUp() {
+      key = "10.0.0." + NEXT.incrementAndGet();
+    }
+  }
+
+  @Benchmark
+  public long sameKey(Limiter limiter) {
+    return limiter.rateLimiter.tryAcquire("10.0.0.0");
+  }
+
+  @Benchmark
+  public long distinctKeys(Limiter limiter, Key key) {
+    return limiter.rateLimiter.tryAcquire(key.key);
+  }
+}
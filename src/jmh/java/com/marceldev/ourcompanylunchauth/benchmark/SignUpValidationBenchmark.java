@@ -0,0 +1,79 @@
+package com.marceldev.ourcompanylunchauth.benchmark;
+
+import com.marceldev.ourcompanylunchauth.dto.SignUpRequest;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * What @Validated costs on a sign up: the whole Hibernate Validator pass, and the password regex
+ * alone. The regex has lookaheads over the whole input, so a long password is the slow case.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignUpValidationBenchmark {
+
+  // Same as SignUpRequest.password
+  private static final Pattern PASSWORD =
+      Pattern.compile("^(?=.*[A-Za-z])(?=.*\\d)[A-Za-z\\d\\S]{8,30}$");
+
+  // valid: 10 characters. long: 1000 characters, rejected only after both lookaheads scan it
+  @Param({"valid", "long"})
+  private String password;
+
+  private String input;
+
+  private SignUpRequest request;
+
+  private ValidatorFactory validatorFactory;
+
+  private Validator validator;
+
+  @Setup
+  public void setUp() {
+    input = password.equals("valid") ? "secretpw12" : "a".repeat(999) + "1";
+    request = SignUpRequest.builder()
+        .email("hello@company.com")
+        .password(input)
+        .name("Marcel")
+        .code("123456")
+        .build();
+    validatorFactory = Validation.buildDefaultValidatorFactory();
+    validator = validatorFactory.getValidator();
+  }
+
+  @TearDown
+  public void tearDown() {
+    validatorFactory.close();
+  }
+
+  @Benchmark
+  public Set<ConstraintViolation<SignUpRequest>> validator() {
+    return validator.validate(request);
+  }
+
+  @Benchmark
+  public boolean passwordPattern() {
+    return PASSWORD.matcher(input).matches();
+  }
+}
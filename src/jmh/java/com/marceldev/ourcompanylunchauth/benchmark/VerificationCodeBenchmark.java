@@ -0,0 +1,59 @@
+package com.marceldev.ourcompanylunchauth.benchmark;
+
+import com.marceldev.ourcompanylunchauth.util.GenerateVerificationCodeUtil;
+import java.security.SecureRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * GenerateVerificationCodeUtil, which makes a Random and an IntStream per code, against a shared
+ * generator appending digits to a sized builder. SecureRandom is there for what an unguessable code
+ * would cost. 4 threads, as codes are made on request threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class VerificationCodeBenchmark {
+
+  private static final int LENGTH = 6;
+
+  private final SecureRandom secureRandom = new SecureRandom();
+
+  @Benchmark
+  public String util() {
+    return GenerateVerificationCodeUtil.generate(LENGTH);
+  }
+
+  @Benchmark
+  public String threadLocalRandom() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    StringBuilder code = new StringBuilder(LENGTH);
+    for (int i = 0; i < LENGTH; i++) {
+      code.append((char) ('0' + random.nextInt(10)));
+    }
+    return code.toString();
+  }
+
+  @Benchmark
+  public String secureRandom() {
+    StringBuilder code = new StringBuilder(LENGTH);
+    for (int i = 0; i < LENGTH; i++) {
+      code.append((char) ('0' + secureRandom.nextInt(10)));
+    }
+    return code.toString();
+  }
+}
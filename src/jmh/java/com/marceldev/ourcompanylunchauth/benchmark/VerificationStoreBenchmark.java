@@ -0,0 +1,123 @@
+package com.marceldev.ourcompanylunchauth.benchmark;
+
+import com.marceldev.ourcompanylunchauth.OurCompanyLunchAuthServerApplication;
+import com.marceldev.ourcompanylunchauth.model.VerificationCode;
+import com.marceldev.ourcompanylunchauth.store.InMemoryVerificationStore;
+import com.marceldev.ourcompanylunchauth.store.VerificationStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * The verification code calls of a sign up, per store: save when the code is sent, then find and
+ * delete when the user signs up. Each in its own transaction, like UserService.
+ * <p>
+ * db boots the application on an in-memory H2, so it measures JPA and the transactions, not the
+ * network round trips to MariaDB. Those only widen the gap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class VerificationStoreBenchmark {
+
+  private static final int EMAIL_COUNT = 10_000;
+
+  @Param({"db", "memory"})
+  private String type;
+
+  private ConfigurableApplicationContext context;
+
+  private VerificationStore verificationStore;
+
+  private TransactionTemplate transactionTemplate;
+
+  @Setup
+  public void setUp() {
+    if (type.equals("memory")) {
+      verificationStore = new InMemoryVerificationStore(new SimpleMeterRegistry(), 1000);
+      return;
+    }
+
+    context = new SpringApplicationBuilder(OurCompanyLunchAuthServerApplication.class)
+        .web(WebApplicationType.NONE)
+        .properties(
+            "spring.datasource.url=jdbc:h2:mem:verificationstorebenchmark;MODE=MariaDB;DATABASE_TO_LOWER=TRUE",
+            "spring.datasource.driver-class-name=org.h2.Driver",
+            "spring.jpa.show-sql=false",
+            "spring.mail.host=localhost",
+            "common.jwt.secret=irsntuuqftynustrsyutnqfrastuarkftuqtulnqfturaustnayrustuaarsewur",
+            "common.jwt.expired-in-hour=24",
+            "business-server-url=http://localhost:8085",
+            "business-server-signup-path=/members/signup",
+            "password-hash.calibration.enabled=false",
+            "verification-store.type=db",
+            "logging.level.root=WARN")
+        .run();
+    verificationStore = context.getBean(VerificationStore.class);
+    transactionTemplate = context.getBean(TransactionTemplate.class);
+  }
+
+  @TearDown
+  public void tearDown() {
+    if (context != null) {
+      context.close();
+    }
+    if (verificationStore instanceof InMemoryVerificationStore inMemoryVerificationStore) {
+      inMemoryVerificationStore.shutdown();
+    }
+  }
+
+  @Benchmark
+  public Optional<VerificationCode> signUpCycle() {
+    // Emails per thread. Two threads saving one email at once would hit uk_verification_email.
+    String email = "user" + Thread.currentThread().threadId() + "-"
+        + ThreadLocalRandom.current().nextInt(EMAIL_COUNT) + "@example.com";
+    VerificationCode verificationCode =
+        new VerificationCode(email, "123456", LocalDateTime.now().plusMinutes(3));
+
+    inTransaction(() -> verificationStore.save(verificationCode));
+    return inTransaction(() -> {
+      Optional<VerificationCode> found = verificationStore.find(email);
+      verificationStore.delete(email);
+      return found;
+    });
+  }
+
+  private void inTransaction(Runnable action) {
+    inTransaction(() -> {
+      action.run();
+      return null;
+    });
+  }
+
+  private <T> T inTransaction(Supplier<T> action) {
+    if (transactionTemplate == null) {
+      return action.get();
+    }
+    return transactionTemplate.execute(status -> action.get());
+  }
+}
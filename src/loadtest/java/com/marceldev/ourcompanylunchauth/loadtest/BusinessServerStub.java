@@ -0,0 +1,60 @@
+package com.marceldev.ourcompanylunchauth.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stands in for the business server. Answers every sign up with 200 after delayMillis.
+ */
+public class BusinessServerStub implements AutoCloseable {
+
+  public static final String SIGN_UP_PATH = "/members/signup";
+
+  private final long delayMillis;
+
+  private final HttpServer server;
+
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+  private final AtomicLong signUpCount = new AtomicLong();
+
+  public BusinessServerStub(long delayMillis) throws IOException {
+    this.delayMillis = delayMillis;
+    this.server =
+        HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 100);
+    server.setExecutor(executor);
+    server.createContext(SIGN_UP_PATH, this::handle);
+    server.start();
+  }
+
+  public String getUrl() {
+    return "http://127.0.0.1:" + server.getAddress().getPort();
+  }
+
+  public long getSignUpCount() {
+    return signUpCount.get();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      exchange.getRequestBody().readAllBytes();
+      Thread.sleep(delayMillis);
+      signUpCount.incrementAndGet();
+      exchange.sendResponseHeaders(200, -1);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
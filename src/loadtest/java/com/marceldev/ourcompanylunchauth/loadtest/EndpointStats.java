@@ -0,0 +1,78 @@
+package com.marceldev.ourcompanylunchauth.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and results of one endpoint. A latency is from when the request was due, not when it
+ * was sent, so a stalled server shows up in the percentiles instead of lowering the rate.
+ */
+public class EndpointStats {
+
+  private final String endpoint;
+
+  private final Queue<Long> latencyNanos = new ConcurrentLinkedQueue<>();
+
+  // Status code, or the exception for a request without a response
+  private final Map<String, LongAdder> errorCounts = new ConcurrentHashMap<>();
+
+  private final LongAdder skippedCount = new LongAdder();
+
+  public EndpointStats(String endpoint) {
+    this.endpoint = endpoint;
+  }
+
+  public void success(long nanos) {
+    latencyNanos.add(nanos);
+  }
+
+  public void error(long nanos, String reason) {
+    latencyNanos.add(nanos);
+    errorCounts.computeIfAbsent(reason, key -> new LongAdder()).increment();
+  }
+
+  /**
+   * Not sent, e.g. a sign up without a verification code received yet.
+   */
+  public void skipped() {
+    skippedCount.increment();
+  }
+
+  public Map<String, Object> report(long durationNanos) {
+    long[] sorted = latencyNanos.stream().mapToLong(Long::longValue).sorted().toArray();
+    long errors = errorCounts.values().stream().mapToLong(LongAdder::sum).sum();
+    long total = sorted.length;
+
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("endpoint", endpoint);
+    report.put("requests", total);
+    report.put("throughput", total * 1e9 / durationNanos);
+    report.put("errorRate", total == 0 ? 0.0 : (double) errors / total);
+    report.put("p50", percentileMillis(sorted, 50));
+    report.put("p95", percentileMillis(sorted, 95));
+    report.put("p99", percentileMillis(sorted, 99));
+    report.put("max", total == 0 ? 0.0 : toMillis(sorted[sorted.length - 1]));
+    report.put("skipped", skippedCount.sum());
+    Map<String, Long> errorsByReason = new LinkedHashMap<>();
+    errorCounts.forEach((reason, count) -> errorsByReason.put(reason, count.sum()));
+    report.put("errors", errorsByReason);
+    return report;
+  }
+
+  private static double percentileMillis(long[] sorted, double percentile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+    return toMillis(sorted[Math.max(0, Math.min(index, sorted.length - 1))]);
+  }
+
+  private static double toMillis(long nanos) {
+    return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+  }
+}
@@ -0,0 +1,278 @@
+package com.marceldev.ourcompanylunchauth.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marceldev.ourcompanylunchauth.OurCompanyLunchAuthServerApplication;
+import com.marceldev.ourcompanylunchauth.loadtest.SmtpSink.ReceivedCode;
+import com.marceldev.ourcompanylunchauth.model.UserImportFormat;
+import com.marceldev.ourcompanylunchauth.service.UserImportService;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Boots the server against a database, an SMTP sink and a business server stub, all local, then
+ * sends sign in, send code and sign up requests at a fixed rate and reports latency and errors per
+ * endpoint.
+ * <p>
+ * Open loop: requests are sent when due whether or not earlier ones came back, like users arriving.
+ * A closed loop would slow down with the server and hide the slowdown. Exits with 1 when an
+ * endpoint is over max-error-rate or max-p99-millis. See docs/load-test.md.
+ */
+public class LoadTest {
+
+  private static final String SECRET = "irsntuuqftynustrsyutnqfrastuarkftuqtulnqfturaustnayrustuaarsewur";
+
+  private static final List<String> ENDPOINTS = List.of("signin", "send-code", "signup");
+
+  private final LoadTestOptions options;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final AtomicLong newEmailSequence = new AtomicLong();
+
+  private HttpClient httpClient;
+
+  private String baseUrl;
+
+  private SmtpSink smtpSink;
+
+  public LoadTest(LoadTestOptions options) {
+    this.options = options;
+  }
+
+  public static void main(String[] args) throws Exception {
+    LoadTestOptions options = new LoadTestOptions(args);
+    boolean passed = new LoadTest(options).run();
+    System.exit(passed ? 0 : 1);
+  }
+
+  public boolean run() throws Exception {
+    try (SmtpSink smtp = new SmtpSink(options.getLong("smtp-latency-millis"));
+        BusinessServerStub businessServer =
+            new BusinessServerStub(options.getLong("business-server-latency-millis"));
+        ConfigurableApplicationContext context = startServer(smtp, businessServer);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      this.smtpSink = smtp;
+      this.baseUrl =
+          "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port");
+      this.httpClient = HttpClient.newBuilder()
+          .version(HttpClient.Version.HTTP_1_1)
+          .executor(executor)
+          .build();
+
+      seedUsers(context);
+
+      System.out.printf("Warming up for %ss%n", options.get("warmup-second"));
+      drive(TimeUnit.SECONDS.toNanos(options.getLong("warmup-second")));
+      System.out.printf("Measuring for %ss at %s requests/s%n", options.get("duration-second"),
+          options.get("rate"));
+      long durationNanos = TimeUnit.SECONDS.toNanos(options.getLong("duration-second"));
+      Map<String, EndpointStats> stats = drive(durationNanos);
+
+      List<Map<String, Object>> reports = new ArrayList<>();
+      for (String endpoint : ENDPOINTS) {
+        reports.add(stats.get(endpoint).report(durationNanos));
+      }
+      print(reports, smtp, businessServer);
+      write(reports);
+      return check(reports);
+    }
+  }
+
+  private ConfigurableApplicationContext startServer(SmtpSink smtp,
+      BusinessServerStub businessServer) {
+    return new SpringApplicationBuilder(OurCompanyLunchAuthServerApplication.class)
+        .properties(
+            "server.port=0",
+            "spring.datasource.url=" + options.get("db-url"),
+            "spring.datasource.username=" + options.get("db-username"),
+            "spring.datasource.password=" + options.get("db-password"),
+            "spring.jpa.show-sql=false",
+            "spring.mail.host=127.0.0.1",
+            "spring.mail.port=" + smtp.getPort(),
+            "spring.mail.properties.mail.smtp.starttls.enable=false",
+            "spring.threads.virtual.enabled=" + options.get("virtual-threads"),
+            "common.jwt.secret=" + SECRET,
+            "common.jwt.expired-in-hour=24",
+            "business-server-url=" + businessServer.getUrl(),
+            "business-server-signup-path=" + BusinessServerStub.SIGN_UP_PATH,
+            "rate-limit.enabled=" + options.get("rate-limit"),
+            "logging.level.root=WARN")
+        .run();
+  }
+
+  /**
+   * Users to sign in as: load{i}@example.com with password loadpass{i}.
+   */
+  private void seedUsers(ConfigurableApplicationContext context) throws IOException {
+    int users = options.getInt("users");
+    System.out.printf("Seeding %d users%n", users);
+    StringBuilder csv = new StringBuilder();
+    for (int i = 0; i < users; i++) {
+      csv.append("load").append(i).append("@example.com,Load,loadpass").append(i).append('\n');
+    }
+    context.getBean(UserImportService.class).importUsers(
+        new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)),
+        UserImportFormat.CSV, result -> {
+        });
+  }
+
+  private Map<String, EndpointStats> drive(long durationNanos) throws Exception {
+    Map<String, EndpointStats> stats = new LinkedHashMap<>();
+    ENDPOINTS.forEach(endpoint -> stats.put(endpoint, new EndpointStats(endpoint)));
+    List<String> weighted = weightedEndpoints();
+    long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.getInt("rate");
+    List<CompletableFuture<?>> inFlight = new ArrayList<>();
+
+    long start = System.nanoTime();
+    for (long i = 0; ; i++) {
+      long dueAt = start + i * intervalNanos;
+      if (dueAt - start >= durationNanos) {
+        break;
+      }
+      long waitNanos = dueAt - System.nanoTime();
+      if (waitNanos > 0) {
+        LockSupport.parkNanos(waitNanos);
+      }
+
+      String endpoint = weighted.get(ThreadLocalRandom.current().nextInt(weighted.size()));
+      EndpointStats endpointStats = stats.get(endpoint);
+      HttpRequest request = request(endpoint);
+      if (request == null) {
+        endpointStats.skipped();
+        continue;
+      }
+      inFlight.add(httpClient.sendAsync(request, BodyHandlers.discarding())
+          .whenComplete((response, e) -> {
+            long latencyNanos = System.nanoTime() - dueAt;
+            if (e != null) {
+              Throwable cause = e instanceof CompletionException && e.getCause() != null
+                  ? e.getCause() : e;
+              endpointStats.error(latencyNanos, cause.getClass().getSimpleName());
+            } else if (response.statusCode() >= 400) {
+              endpointStats.error(latencyNanos, String.valueOf(response.statusCode()));
+            } else {
+              endpointStats.success(latencyNanos);
+            }
+          }));
+    }
+
+    // Errors are already counted
+    CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new))
+        .handle((result, e) -> null)
+        .get(options.getLong("request-timeout-millis") * 2, TimeUnit.MILLISECONDS);
+    return stats;
+  }
+
+  private List<String> weightedEndpoints() {
+    List<String> weighted = new ArrayList<>();
+    options.getMix().forEach((endpoint, weight) -> {
+      if (!ENDPOINTS.contains(endpoint)) {
+        throw new IllegalArgumentException("Unknown endpoint in mix: " + endpoint);
+      }
+      for (int i = 0; i < weight; i++) {
+        weighted.add(endpoint);
+      }
+    });
+    return weighted;
+  }
+
+  private HttpRequest request(String endpoint) throws IOException {
+    return switch (endpoint) {
+      case "signin" -> {
+        int user = ThreadLocalRandom.current().nextInt(options.getInt("users"));
+        yield post("/users/signin", Map.of(
+            "email", "load" + user + "@example.com",
+            "password", "loadpass" + user));
+      }
+      case "send-code" -> post("/users/send-verification-code", Map.of(
+          "email", "new" + newEmailSequence.incrementAndGet() + "@example.com"));
+      case "signup" -> {
+        // Codes arrive through the email outbox and the SMTP sink, a while after send-code
+        ReceivedCode code = smtpSink.pollCode();
+        yield code == null ? null : post("/users/signup", Map.of(
+            "email", code.email(),
+            "password", "newpass123",
+            "name", "Load",
+            "code", code.code()));
+      }
+      default -> throw new IllegalArgumentException(endpoint);
+    };
+  }
+
+  private HttpRequest post(String path, Map<String, String> body) throws IOException {
+    return HttpRequest.newBuilder(URI.create(baseUrl + path))
+        .timeout(Duration.ofMillis(options.getLong("request-timeout-millis")))
+        .header("Content-Type", "application/json")
+        .POST(BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+        .build();
+  }
+
+  private void print(List<Map<String, Object>> reports, SmtpSink smtp,
+      BusinessServerStub businessServer) {
+    System.out.printf("%n%-10s %9s %10s %8s %9s %9s %9s %9s %8s  %s%n", "endpoint", "requests",
+        "req/s", "errors", "p50 ms", "p95 ms", "p99 ms", "max ms", "skipped", "errors by reason");
+    for (Map<String, Object> report : reports) {
+      System.out.printf("%-10s %9d %10.1f %7.2f%% %9.1f %9.1f %9.1f %9.1f %8d  %s%n",
+          report.get("endpoint"), report.get("requests"), report.get("throughput"),
+          (double) report.get("errorRate") * 100, report.get("p50"), report.get("p95"),
+          report.get("p99"), report.get("max"), report.get("skipped"), report.get("errors"));
+    }
+    System.out.printf("%nEmails received: %d, business server sign ups: %d%n",
+        smtp.getMessageCount(), businessServer.getSignUpCount());
+  }
+
+  private void write(List<Map<String, Object>> reports) throws IOException {
+    String output = options.get("output");
+    if (output.isEmpty()) {
+      return;
+    }
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("options", options.toString());
+    result.put("endpoints", reports);
+    File file = new File(output);
+    if (file.getParentFile() != null) {
+      file.getParentFile().mkdirs();
+    }
+    objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, result);
+    System.out.println("Report written to " + file.getAbsolutePath());
+  }
+
+  private boolean check(List<Map<String, Object>> reports) {
+    double maxErrorRate = options.getDouble("max-error-rate");
+    double maxP99Millis = options.getDouble("max-p99-millis");
+    boolean passed = true;
+    for (Map<String, Object> report : reports) {
+      if ((double) report.get("errorRate") > maxErrorRate) {
+        System.out.printf("FAIL %s: error rate over %s%n", report.get("endpoint"), maxErrorRate);
+        passed = false;
+      }
+      if (maxP99Millis > 0 && (double) report.get("p99") > maxP99Millis) {
+        System.out.printf("FAIL %s: p99 over %s ms%n", report.get("endpoint"), maxP99Millis);
+        passed = false;
+      }
+    }
+    return passed;
+  }
+}
@@ -0,0 +1,86 @@
+package com.marceldev.ourcompanylunchauth.loadtest;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * --key=value arguments, each with a default. See docs/load-test.md.
+ */
+public class LoadTestOptions {
+
+  private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+  static {
+    DEFAULTS.put("rate", "100"); // Requests per second, all endpoints together
+    DEFAULTS.put("duration-second", "60");
+    DEFAULTS.put("warmup-second", "15");
+    DEFAULTS.put("mix", "signin:70,send-code:20,signup:10");
+    DEFAULTS.put("users", "1000"); // Seeded before the run, for sign in
+    DEFAULTS.put("smtp-latency-millis", "500");
+    DEFAULTS.put("business-server-latency-millis", "100");
+    DEFAULTS.put("request-timeout-millis", "10000");
+    DEFAULTS.put("db-url", "jdbc:h2:mem:loadtest;MODE=MariaDB;DATABASE_TO_LOWER=TRUE");
+    DEFAULTS.put("db-username", "sa");
+    DEFAULTS.put("db-password", "");
+    DEFAULTS.put("rate-limit", "false"); // Every request comes from 127.0.0.1
+    DEFAULTS.put("virtual-threads", "false");
+    DEFAULTS.put("max-error-rate", "0.01"); // Fails the run over this, per endpoint
+    DEFAULTS.put("max-p99-millis", "0"); // Fails the run over this, per endpoint. 0 means no limit
+    DEFAULTS.put("output", ""); // Also write the report as JSON here
+  }
+
+  private final Map<String, String> values = new HashMap<>(DEFAULTS);
+
+  public LoadTestOptions(String[] args) {
+    for (String arg : args) {
+      int equals = arg.indexOf('=');
+      if (!arg.startsWith("--") || equals < 0) {
+        throw new IllegalArgumentException("Not --key=value: " + arg);
+      }
+      String key = arg.substring(2, equals);
+      if (!DEFAULTS.containsKey(key)) {
+        throw new IllegalArgumentException(
+            "Unknown option: " + key + ", known: " + DEFAULTS.keySet());
+      }
+      values.put(key, arg.substring(equals + 1));
+    }
+  }
+
+  public String get(String key) {
+    return values.get(key);
+  }
+
+  public int getInt(String key) {
+    return Integer.parseInt(values.get(key));
+  }
+
+  public long getLong(String key) {
+    return Long.parseLong(values.get(key));
+  }
+
+  public double getDouble(String key) {
+    return Double.parseDouble(values.get(key));
+  }
+
+  public boolean getBoolean(String key) {
+    return Boolean.parseBoolean(values.get(key));
+  }
+
+  /**
+   * signin:70,send-code:20,signup:10 as endpoint to weight
+   */
+  public Map<String, Integer> getMix() {
+    Map<String, Integer> mix = new LinkedHashMap<>();
+    for (String entry : values.get("mix").split(",")) {
+      String[] parts = entry.split(":");
+      mix.put(parts[0].strip(), Integer.parseInt(parts[1].strip()));
+    }
+    return mix;
+  }
+
+  @Override
+  public String toString() {
+    return values.toString();
+  }
+}
@@ -0,0 +1,138 @@
+package com.marceldev.ourcompanylunchauth.loadtest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Stands in for the SMTP relay. Accepts every message, replies to each after delayMillis like a
+ * slow relay, and keeps the verification codes it saw so sign ups can use them.
+ */
+public class SmtpSink implements AutoCloseable {
+
+  private static final Pattern CODE = Pattern.compile("Verification code is (\\d+)");
+
+  private final long delayMillis;
+
+  private final ServerSocket serverSocket;
+
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+  private final Queue<ReceivedCode> codes = new ConcurrentLinkedQueue<>();
+
+  private final AtomicLong messageCount = new AtomicLong();
+
+  public SmtpSink(long delayMillis) throws IOException {
+    this.delayMillis = delayMillis;
+    this.serverSocket = new ServerSocket(0, 100, InetAddress.getLoopbackAddress());
+    executor.execute(this::accept);
+  }
+
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  public long getMessageCount() {
+    return messageCount.get();
+  }
+
+  /**
+   * A code not used yet, or null.
+   */
+  public ReceivedCode pollCode() {
+    return codes.poll();
+  }
+
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+    executor.shutdownNow();
+  }
+
+  private void accept() {
+    while (!serverSocket.isClosed()) {
+      try {
+        Socket socket = serverSocket.accept();
+        executor.execute(() -> handle(socket));
+      } catch (IOException e) {
+        // Closed
+      }
+    }
+  }
+
+  private void handle(Socket socket) {
+    try (socket;
+        BufferedReader reader = new BufferedReader(
+            new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII))) {
+      OutputStream out = socket.getOutputStream();
+      reply(out, "220 smtp-sink ready");
+
+      String recipient = null;
+      StringBuilder data = null;
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (data != null) {
+          if (!line.equals(".")) {
+            data.append(line).append('\n');
+            continue;
+          }
+          Thread.sleep(delayMillis);
+          received(recipient, data);
+          data = null;
+          reply(out, "250 OK");
+          continue;
+        }
+
+        String command = line.length() < 4 ? line : line.substring(0, 4).toUpperCase();
+        switch (command) {
+          case "RCPT" -> {
+            recipient = line.substring(line.indexOf('<') + 1, line.lastIndexOf('>'));
+            reply(out, "250 OK");
+          }
+          case "DATA" -> {
+            data = new StringBuilder();
+            reply(out, "354 End data with <CR><LF>.<CR><LF>");
+          }
+          case "QUIT" -> {
+            reply(out, "221 Bye");
+            return;
+          }
+          default -> reply(out, "250 OK"); // EHLO, MAIL, RSET, NOOP
+        }
+      }
+    } catch (IOException e) {
+      // The client went away
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void received(String recipient, StringBuilder data) {
+    messageCount.incrementAndGet();
+    Matcher matcher = CODE.matcher(data);
+    if (recipient != null && matcher.find()) {
+      codes.add(new ReceivedCode(recipient, matcher.group(1)));
+    }
+  }
+
+  private static void reply(OutputStream out, String line) throws IOException {
+    out.write((line + "\r\n").getBytes(StandardCharsets.US_ASCII));
+    out.flush();
+  }
+
+  public record ReceivedCode(String email, String code) {
+
+  }
+}
@@ -2,8 +2,10 @@ package com.marceldev.ourcompanylunchauth;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class OurCompanyLunchAuthServerApplication {
 
   public static void main(String[] args) {
@@ -0,0 +1,53 @@
+package com.marceldev.ourcompanylunchauth.actuator;
+
+import com.marceldev.ourcompanylunchauth.component.JfrRecorder;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+/**
+ * GET /actuator/jfr for the status and the dumps. POST {"action": "start" | "dump" | "stop"} to
+ * control the recording. GET /actuator/jfr/{file} downloads a dump, for JDK Mission Control.
+ */
+@Component
+@Endpoint(id = "jfr")
+@RequiredArgsConstructor
+public class JfrRecordingEndpoint {
+
+  private final JfrRecorder jfrRecorder;
+
+  @ReadOperation
+  public Map<String, Object> status() {
+    return jfrRecorder.status();
+  }
+
+  @ReadOperation(produces = "application/octet-stream")
+  public WebEndpointResponse<Resource> download(@Selector String file) {
+    return jfrRecorder.findDump(file)
+        .map(dump -> new WebEndpointResponse<Resource>(new FileSystemResource(dump)))
+        .orElseGet(() -> new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND));
+  }
+
+  @WriteOperation
+  public Map<String, Object> control(String action) {
+    try {
+      return switch (action) {
+        case "start" -> jfrRecorder.start();
+        case "dump" -> jfrRecorder.dump();
+        case "stop" -> jfrRecorder.stop();
+        default -> throw new InvalidEndpointRequestException("Unknown action: " + action,
+            "Unknown action");
+      };
+    } catch (IllegalStateException e) {
+      throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package com.marceldev.ourcompanylunchauth.actuator;
+
+import com.marceldev.ourcompanylunchauth.component.RegisteredEmailFilter;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * GET /actuator/emailfilter for the status, POST to rebuild it from the users table.
+ */
+@Component
+@Endpoint(id = "emailfilter")
+@RequiredArgsConstructor
+public class RegisteredEmailFilterEndpoint {
+
+  private final RegisteredEmailFilter registeredEmailFilter;
+
+  @ReadOperation
+  public Map<String, Object> status() {
+    return registeredEmailFilter.status();
+  }
+
+  @WriteOperation
+  public Map<String, Object> rebuild() {
+    registeredEmailFilter.rebuild();
+    return registeredEmailFilter.status();
+  }
+}
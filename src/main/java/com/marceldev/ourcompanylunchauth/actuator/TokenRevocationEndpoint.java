@@ -0,0 +1,38 @@
+package com.marceldev.ourcompanylunchauth.actuator;
+
+import com.marceldev.ourcompanylunchauth.component.TokenRevocationRegistry;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * GET /actuator/tokenrevocation for the status. POST {"jti": ...} to revoke a token, or
+ * {"email": ...} to revoke every token and refresh token of the user.
+ */
+@Component
+@Endpoint(id = "tokenrevocation")
+@RequiredArgsConstructor
+public class TokenRevocationEndpoint {
+
+  private final TokenRevocationRegistry tokenRevocationRegistry;
+
+  @ReadOperation
+  public Map<String, Object> status() {
+    return tokenRevocationRegistry.status();
+  }
+
+  @WriteOperation
+  public Map<String, Object> revoke(@Nullable String jti, @Nullable String email) {
+    if (jti != null) {
+      tokenRevocationRegistry.revoke(jti);
+    }
+    if (email != null) {
+      tokenRevocationRegistry.revokeUser(email);
+    }
+    return tokenRevocationRegistry.status();
+  }
+}
@@ -0,0 +1,106 @@
+package com.marceldev.ourcompanylunchauth.component;
+
+import com.marceldev.ourcompanylunchauth.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limits sign in and verification code emails by client IP and by email, so one client can't make
+ * us send unlimited emails or spend the CPU on BCrypt.
+ * <p>
+ * In process, so each node has its own limits. With N nodes behind a load balancer a client gets up
+ * to N times the limit.
+ */
+@Component
+public class AuthRateLimiter {
+
+  private static final String X_FORWARDED_FOR = "X-Forwarded-For";
+
+  private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+  private final boolean enabled;
+
+  private final Set<String> trustedProxies;
+
+  private final RateLimiter signInIpLimiter;
+
+  private final RateLimiter signInEmailLimiter;
+
+  private final RateLimiter sendVerificationCodeIpLimiter;
+
+  private final RateLimiter sendVerificationCodeEmailLimiter;
+
+  public AuthRateLimiter(
+      MeterRegistry meterRegistry,
+      @Value("${rate-limit.enabled:true}") boolean enabled,
+      @Value("${rate-limit.maximum-keys:100000}") long maximumKeys,
+      @Value("${rate-limit.trusted-proxies:127.0.0.1,0:0:0:0:0:0:0:1}") String[] trustedProxies,
+      @Value("${rate-limit.sign-in.ip-capacity:30}") int signInIpCapacity,
+      @Value("${rate-limit.sign-in.ip-refill-interval-millis:2000}") long signInIpRefillMillis,
+      @Value("${rate-limit.sign-in.email-capacity:10}") int signInEmailCapacity,
+      @Value("${rate-limit.sign-in.email-refill-interval-millis:30000}") long signInEmailRefillMillis,
+      @Value("${rate-limit.send-verification-code.ip-capacity:10}") int sendCodeIpCapacity,
+      @Value("${rate-limit.send-verification-code.ip-refill-interval-millis:60000}") long sendCodeIpRefillMillis,
+      @Value("${rate-limit.send-verification-code.email-capacity:3}") int sendCodeEmailCapacity,
+      @Value("${rate-limit.send-verification-code.email-refill-interval-millis:300000}") long sendCodeEmailRefillMillis
+  ) {
+    this.enabled = enabled;
+    this.trustedProxies = Set.of(trustedProxies);
+    this.signInIpLimiter = new RateLimiter("signin.ip", signInIpCapacity,
+        Duration.ofMillis(signInIpRefillMillis), maximumKeys, meterRegistry);
+    this.signInEmailLimiter = new RateLimiter("signin.email", signInEmailCapacity,
+        Duration.ofMillis(signInEmailRefillMillis), maximumKeys, meterRegistry);
+    this.sendVerificationCodeIpLimiter = new RateLimiter("send-verification-code.ip",
+        sendCodeIpCapacity, Duration.ofMillis(sendCodeIpRefillMillis), maximumKeys,
+        meterRegistry);
+    this.sendVerificationCodeEmailLimiter = new RateLimiter("send-verification-code.email",
+        sendCodeEmailCapacity, Duration.ofMillis(sendCodeEmailRefillMillis), maximumKeys,
+        meterRegistry);
+  }
+
+  public void checkSignIn(HttpServletRequest request, String email) {
+    check(signInIpLimiter, signInEmailLimiter, request, email);
+  }
+
+  public void checkSendVerificationCode(HttpServletRequest request, String email) {
+    check(sendVerificationCodeIpLimiter, sendVerificationCodeEmailLimiter, request, email);
+  }
+
+  private void check(RateLimiter ipLimiter, RateLimiter emailLimiter, HttpServletRequest request,
+      String email) {
+    if (!enabled) {
+      return;
+    }
+
+    long waitNanos = ipLimiter.tryAcquire(clientIp(request));
+    if (waitNanos == 0 && email != null) {
+      // toLowerCase returns the same string when there's nothing to change
+      waitNanos = emailLimiter.tryAcquire(email.toLowerCase(Locale.ROOT));
+    }
+    if (waitNanos > 0) {
+      throw new RateLimitExceededException((waitNanos + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND);
+    }
+  }
+
+  /**
+   * The address nginx saw, from the X-Forwarded-For it sets. Only when the request comes from a
+   * trusted proxy, as anyone else can send the header.
+   */
+  private String clientIp(HttpServletRequest request) {
+    String remoteAddr = request.getRemoteAddr();
+    String forwardedFor = request.getHeader(X_FORWARDED_FOR);
+    if (forwardedFor == null || !trustedProxies.contains(remoteAddr)) {
+      return remoteAddr;
+    }
+
+    // nginx appends the address it saw. Entries before it came from the client, and may be forged.
+    int comma = forwardedFor.lastIndexOf(',');
+    String clientIp = comma < 0 ? forwardedFor.strip() : forwardedFor.substring(comma + 1).strip();
+    return clientIp.isEmpty() ? remoteAddr : clientIp;
+  }
+}
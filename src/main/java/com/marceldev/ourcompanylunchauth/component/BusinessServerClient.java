@@ -1,9 +1,23 @@
 package com.marceldev.ourcompanylunchauth.component;
 
 import com.marceldev.ourcompanylunchauth.dto.BusinessServerSignUpRequest;
-import com.marceldev.ourcompanylunchauth.dto.SignUpRequest;
-import com.marceldev.ourcompanylunchcommon.TokenProvider;
-import lombok.RequiredArgsConstructor;
+import com.marceldev.ourcompanylunchauth.exception.BusinessServerUnavailableException;
+import com.marceldev.ourcompanylunchauth.jfr.BusinessServerCallEvent;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
@@ -11,41 +25,151 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+/**
+ * Calls to the business server, behind a bulkhead and a circuit breaker.
+ * <p>
+ * The bulkhead caps calls in flight, so a slow business server can't hold every request thread. The
+ * circuit breaker opens when too many calls fail, and calls fail right away until it half-opens
+ * again. A 4xx is the request's fault, and doesn't count as a failure.
+ */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class BusinessServerClient {
 
-  @Value("${business-server-url}")
-  private String businessServerUrl;
+  private static final String SIGN_UP = "signup";
 
-  @Value("${business-server-signup-path}")
-  private String businessServerSignUpPath;
+  private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
 
-  private final TokenProvider tokenProvider;
+  private final String businessServerUrl;
+
+  private final String businessServerSignUpPath;
+
+  private final JwtMinter jwtMinter;
 
   private final RestTemplate restTemplate;
 
-  public void signUp(SignUpRequest dto, String role) {
+  private final CircuitBreaker circuitBreaker;
+
+  private final Bulkhead bulkhead;
+
+  private final MeterRegistry meterRegistry;
+
+  private final int retryAfterSecond;
+
+  public BusinessServerClient(
+      JwtMinter jwtMinter,
+      RestTemplate restTemplate,
+      MeterRegistry meterRegistry,
+      @Value("${business-server-url}") String businessServerUrl,
+      @Value("${business-server-signup-path}") String businessServerSignUpPath,
+      @Value("${business-server.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+      @Value("${business-server.circuit-breaker.sliding-window-size:20}") int slidingWindowSize,
+      @Value("${business-server.circuit-breaker.minimum-number-of-calls:10}") int minimumNumberOfCalls,
+      @Value("${business-server.circuit-breaker.open-second:30}") int openSecond,
+      @Value("${business-server.bulkhead.max-concurrent-calls:20}") int maxConcurrentCalls,
+      @Value("${business-server.bulkhead.max-wait-millis:0}") long maxWaitMillis
+  ) {
+    this.jwtMinter = jwtMinter;
+    this.restTemplate = restTemplate;
+    this.meterRegistry = meterRegistry;
+    this.businessServerUrl = businessServerUrl;
+    this.businessServerSignUpPath = businessServerSignUpPath;
+    this.retryAfterSecond = openSecond;
+
+    CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.of(
+        CircuitBreakerConfig.custom()
+            .failureRateThreshold(failureRateThreshold)
+            .slidingWindowSize(slidingWindowSize)
+            .minimumNumberOfCalls(minimumNumberOfCalls)
+            .waitDurationInOpenState(Duration.ofSeconds(openSecond))
+            .ignoreExceptions(HttpClientErrorException.class)
+            .build());
+    BulkheadRegistry bulkheadRegistry = BulkheadRegistry.of(
+        BulkheadConfig.custom()
+            .maxConcurrentCalls(maxConcurrentCalls)
+            .maxWaitDuration(Duration.ofMillis(maxWaitMillis))
+            .build());
+    this.circuitBreaker = circuitBreakerRegistry.circuitBreaker("businessServer");
+    this.bulkhead = bulkheadRegistry.bulkhead("businessServer");
+
+    // resilience4j.circuitbreaker.state, .calls ... and resilience4j.bulkhead.available.concurrent.calls
+    TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry)
+        .bindTo(meterRegistry);
+    TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheadRegistry).bindTo(meterRegistry);
+  }
+
+  /**
+   * The business server makes the profile once per idempotency key, so a retry is safe.
+   */
+  public void signUp(String email, String name, String role, String idempotencyKey) {
     BusinessServerSignUpRequest request = BusinessServerSignUpRequest.builder()
-        .name(dto.getName())
+        .name(name)
         .build();
-    String token = tokenProvider.generateToken(dto.getEmail(), role);
+    String token = jwtMinter.generateToken(email, role);
     HttpHeaders headers = new HttpHeaders();
     headers.setBearerAuth(token);
+    headers.set(IDEMPOTENCY_KEY, idempotencyKey);
 
+    call(SIGN_UP, () -> restTemplate.exchange(
+        businessServerUrl + businessServerSignUpPath,
+        HttpMethod.POST,
+        new HttpEntity<>(request, headers),
+        Void.class
+    ));
+  }
+
+  private void call(String operation, Runnable request) {
+    // Outside the breaker, so a rejected call isn't a failure of the business server
+    Runnable guarded = Bulkhead.decorateRunnable(bulkhead,
+        CircuitBreaker.decorateRunnable(circuitBreaker, request));
+
+    BusinessServerCallEvent event = new BusinessServerCallEvent();
+    event.begin();
+    long start = System.nanoTime();
+    String outcome = "success";
     try {
-      restTemplate.exchange(
-          businessServerUrl + businessServerSignUpPath,
-          HttpMethod.POST,
-          new HttpEntity<>(request, headers),
-          Void.class
-      );
-    } catch (HttpClientErrorException e) {
-      log.error(e.toString());
+      guarded.run();
+    } catch (CallNotPermittedException | BulkheadFullException e) {
+      outcome = "rejected";
+      log.warn("Business server call rejected: {}, {}", operation, e.getMessage());
+      throw new BusinessServerUnavailableException(retryAfterSecond, e);
+    } catch (RuntimeException e) {
+      outcome = outcome(e);
+      log.error("Business server call failed: {}, {}", operation, e.toString());
       throw e;
+    } finally {
+      Timer.builder("auth.business.server.call")
+          .description("Business server call time, including rejected calls")
+          .tag("operation", operation)
+          .tag("outcome", outcome)
+          .publishPercentileHistogram()
+          .register(meterRegistry)
+          .record(Duration.ofNanos(System.nanoTime() - start));
+      event.operation = operation;
+      event.outcome = outcome;
+      event.commit();
+    }
+  }
+
+  // A fixed set, so the timer tags stay bounded
+  private static String outcome(RuntimeException e) {
+    if (e instanceof HttpClientErrorException) {
+      return "client-error";
+    }
+    if (e instanceof HttpServerErrorException) {
+      return "server-error";
+    }
+    if (e instanceof ResourceAccessException && isTimeout(e.getCause())) {
+      return "timeout";
     }
+    return "error";
+  }
+
+  private static boolean isTimeout(Throwable cause) {
+    return cause instanceof SocketTimeoutException || cause instanceof HttpTimeoutException;
   }
 }
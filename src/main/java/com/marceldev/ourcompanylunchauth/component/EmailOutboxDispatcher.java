@@ -0,0 +1,275 @@
+package com.marceldev.ourcompanylunchauth.component;
+
+import com.google.common.collect.Lists;
+import com.marceldev.ourcompanylunchauth.entity.EmailOutbox;
+import com.marceldev.ourcompanylunchauth.model.MailMessage;
+import com.marceldev.ourcompanylunchauth.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sends emails from the outbox, so a request never waits on SMTP.
+ * <p>
+ * Each poll claims a batch, splits it into a chunk per thread of a small pool, and sends each chunk
+ * over one SMTP session. Then it records the results. A failed send is retried with exponential
+ * backoff until maxAttempts, or until the email expires.
+ * <p>
+ * A poll waits on SMTP, for up to half the claim per batch. So it runs on a thread of its own: the
+ * scheduler only hands it over, and its single thread stays free for the other scheduled tasks.
+ */
+@Slf4j
+@Component
+public class EmailOutboxDispatcher {
+
+  private static final int MAX_ERROR_LENGTH = 500;
+
+  private final EmailOutboxRepository emailOutboxRepository;
+
+  private final EmailSender emailSender;
+
+  private final ExecutorService executor;
+
+  private final ExecutorService poller =
+      Executors.newSingleThreadExecutor(new CustomizableThreadFactory("email-outbox-poll-"));
+
+  private final AtomicBoolean polling = new AtomicBoolean();
+
+  private final int concurrency;
+
+  // Claims of this node. A claim left by a crashed node expires after claimDuration.
+  private final String owner = UUID.randomUUID().toString();
+
+  private final int batchSize;
+
+  private final int maxAttempts;
+
+  private final Duration initialBackoff;
+
+  private final Duration maxBackoff;
+
+  private final Duration claimDuration;
+
+  private final Counter sentCounter;
+
+  private final Counter retryCounter;
+
+  private final Counter failedCounter;
+
+  private final Counter expiredCounter;
+
+  private final Timer deliveryTimer;
+
+  private final AtomicLong pending = new AtomicLong();
+
+  private final AtomicLong lagSecond = new AtomicLong();
+
+  public EmailOutboxDispatcher(
+      EmailOutboxRepository emailOutboxRepository,
+      EmailSender emailSender,
+      MeterRegistry meterRegistry,
+      @Value("${email-outbox.concurrency:4}") int concurrency,
+      @Value("${email-outbox.batch-size:50}") int batchSize,
+      @Value("${email-outbox.max-attempts:5}") int maxAttempts,
+      @Value("${email-outbox.initial-backoff-millis:1000}") long initialBackoffMillis,
+      @Value("${email-outbox.max-backoff-millis:60000}") long maxBackoffMillis,
+      @Value("${email-outbox.claim-second:60}") long claimSecond
+  ) {
+    this.emailOutboxRepository = emailOutboxRepository;
+    this.emailSender = emailSender;
+    this.concurrency = concurrency;
+    this.executor = Executors.newFixedThreadPool(concurrency,
+        new CustomizableThreadFactory("email-outbox-"));
+    this.batchSize = batchSize;
+    this.maxAttempts = maxAttempts;
+    this.initialBackoff = Duration.ofMillis(initialBackoffMillis);
+    this.maxBackoff = Duration.ofMillis(maxBackoffMillis);
+    this.claimDuration = Duration.ofSeconds(claimSecond);
+
+    this.sentCounter = dispatchCounter(meterRegistry, "sent");
+    this.retryCounter = dispatchCounter(meterRegistry, "retry");
+    this.failedCounter = dispatchCounter(meterRegistry, "failed");
+    this.expiredCounter = dispatchCounter(meterRegistry, "expired");
+    this.deliveryTimer = Timer.builder("auth.email.outbox.delivery")
+        .description("Time from enqueue to sent")
+        .register(meterRegistry);
+    Gauge.builder("auth.email.outbox.pending", pending, AtomicLong::get)
+        .description("Emails not sent yet, including ones waiting for a retry")
+        .register(meterRegistry);
+    Gauge.builder("auth.email.outbox.lag", lagSecond, AtomicLong::get)
+        .description("Age of the oldest email not sent yet")
+        .baseUnit("seconds")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Starts a dispatch on the poll thread, unless the last one is still running.
+   */
+  @Scheduled(fixedDelayString = "${email-outbox.poll-interval-millis:500}")
+  public void poll() {
+    if (!polling.compareAndSet(false, true)) {
+      return;
+    }
+    poller.execute(() -> {
+      try {
+        dispatch();
+      } catch (RuntimeException e) {
+        log.error("Email outbox dispatch failed: {}", e.toString(), e);
+      } finally {
+        polling.set(false);
+      }
+    });
+  }
+
+  public void dispatch() {
+    int claimed;
+    do {
+      claimed = dispatchBatch(LocalDateTime.now());
+    } while (claimed == batchSize);
+  }
+
+  @Scheduled(fixedDelayString = "${email-outbox.metrics-interval-millis:5000}")
+  public void updateBacklogMetrics() {
+    LocalDateTime now = LocalDateTime.now();
+    pending.set(emailOutboxRepository.countByFailedAtIsNull());
+    lagSecond.set(emailOutboxRepository.findOldestPendingEnqueuedAt()
+        .map(oldest -> Duration.between(oldest, now).toSeconds())
+        .orElse(0L));
+  }
+
+  @Scheduled(cron = "${scheduler.clear-email-outbox.cron:0 50 3 * * *}")
+  public void clearFailedEmails() {
+    int rows = emailOutboxRepository.deleteAllFailedBefore(LocalDateTime.now().minusDays(7));
+    log.info("Email outbox clear: {} failed rows deleted", rows);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    poller.shutdown();
+    executor.shutdown();
+  }
+
+  private int dispatchBatch(LocalDateTime now) {
+    List<Long> ids = emailOutboxRepository.findDispatchableIds(now, PageRequest.of(0, batchSize));
+    if (ids.isEmpty()) {
+      return 0;
+    }
+    emailOutboxRepository.claim(ids, owner, now.plus(claimDuration), now);
+    List<EmailOutbox> emails = emailOutboxRepository.findByIdInAndClaimedBy(ids, owner);
+
+    List<EmailOutbox> sending = new ArrayList<>();
+    for (EmailOutbox email : emails) {
+      if (email.getExpirationAt() != null && now.isAfter(email.getExpirationAt())) {
+        emailOutboxRepository.markFailed(email.getId(), owner, now, "Expired before sent");
+        expiredCounter.increment();
+        continue;
+      }
+      sending.add(email);
+    }
+
+    // A chunk per thread, each sent over one SMTP session. Nothing starts after half the claim, so
+    // a send still running can't outlast it and be sent again by another node.
+    Instant deadline = Instant.now().plus(claimDuration.dividedBy(2));
+    int chunkSize = Math.max(1, (sending.size() + concurrency - 1) / concurrency);
+    List<List<EmailOutbox>> chunks = Lists.partition(sending, chunkSize);
+    List<Future<List<Exception>>> results = new ArrayList<>();
+    for (List<EmailOutbox> chunk : chunks) {
+      List<MailMessage> messages = chunk.stream()
+          .map(email -> new MailMessage(email.getRecipient(), email.getSubject(), email.getBody()))
+          .toList();
+      results.add(executor.submit(() -> emailSender.sendMails(messages, deadline)));
+    }
+
+    // Results are saved from this thread, so the pool only ever does SMTP.
+    for (int i = 0; i < chunks.size(); i++) {
+      List<EmailOutbox> chunk = chunks.get(i);
+      List<Exception> failures;
+      try {
+        failures = results.get(i).get();
+      } catch (ExecutionException e) {
+        Exception cause = e.getCause() instanceof Exception exception ? exception : e;
+        failures = Collections.nCopies(chunk.size(), cause);
+      } catch (InterruptedException e) {
+        // Claims expire, and another poll picks them up.
+        Thread.currentThread().interrupt();
+        return 0;
+      }
+
+      for (int j = 0; j < chunk.size(); j++) {
+        EmailOutbox email = chunk.get(j);
+        if (j >= failures.size()) {
+          handleFailure(email, new IllegalStateException("No send result"));
+          continue;
+        }
+        Exception failure = failures.get(j);
+        if (failure != null) {
+          handleFailure(email, failure);
+          continue;
+        }
+        emailOutboxRepository.deleteSent(email.getId(), owner);
+        sentCounter.increment();
+        deliveryTimer.record(Duration.between(email.getEnqueuedAt(), LocalDateTime.now()));
+      }
+    }
+    return ids.size();
+  }
+
+  private void handleFailure(EmailOutbox email, Throwable cause) {
+    LocalDateTime now = LocalDateTime.now();
+    String error = truncate(String.valueOf(cause));
+    int attempt = email.getAttemptCount() + 1;
+    LocalDateTime nextAttemptAt = now.plus(backoff(attempt));
+
+    boolean expiresFirst = email.getExpirationAt() != null
+        && nextAttemptAt.isAfter(email.getExpirationAt());
+    if (attempt >= maxAttempts || expiresFirst) {
+      emailOutboxRepository.markFailed(email.getId(), owner, now, error);
+      failedCounter.increment();
+      log.error("Email gave up after {} attempts: id={}, {}", attempt, email.getId(), error);
+      return;
+    }
+
+    emailOutboxRepository.scheduleRetry(email.getId(), owner, nextAttemptAt, error);
+    retryCounter.increment();
+    log.warn("Email send failed, retry at {}: id={}, {}", nextAttemptAt, email.getId(), error);
+  }
+
+  // initialBackoff * 2^(attempt - 1), capped, with jitter so retries from a relay outage spread out
+  private Duration backoff(int attempt) {
+    long millis = initialBackoff.toMillis() << Math.min(attempt - 1, 20);
+    long capped = Math.min(millis, maxBackoff.toMillis());
+    return Duration.ofMillis(capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1));
+  }
+
+  private static String truncate(String error) {
+    return error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+  }
+
+  private static Counter dispatchCounter(MeterRegistry meterRegistry, String result) {
+    return Counter.builder("auth.email.outbox.dispatch")
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+}
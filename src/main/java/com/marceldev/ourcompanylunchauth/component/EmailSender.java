@@ -1,29 +1,164 @@
 package com.marceldev.ourcompanylunchauth.component;
 
+import com.marceldev.ourcompanylunchauth.component.SmtpTransportPool.PooledTransport;
+import com.marceldev.ourcompanylunchauth.jfr.SmtpSendEvent;
+import com.marceldev.ourcompanylunchauth.model.MailMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
-import lombok.RequiredArgsConstructor;
-import org.springframework.mail.javamail.JavaMailSender;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
 import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.mail.javamail.MimeMessagePreparator;
 import org.springframework.stereotype.Component;
 
+/**
+ * Sends through pooled SMTP sessions. A batch goes over one session.
+ */
 @Component
-@RequiredArgsConstructor
 public class EmailSender {
 
-  private final JavaMailSender javaMailSender;
+  private final JavaMailSenderImpl javaMailSender;
+
+  private final SmtpTransportPool transportPool;
+
+  private final Timer sentTimer;
+
+  private final Timer timeoutTimer;
+
+  private final Timer errorTimer;
+
+  public EmailSender(
+      JavaMailSenderImpl javaMailSender,
+      MeterRegistry meterRegistry,
+      @Value("${email-smtp-pool.max-total:4}") int maxTotal,
+      @Value("${email-smtp-pool.max-idle-second:60}") long maxIdleSecond,
+      @Value("${email-smtp-pool.max-wait-millis:10000}") long maxWaitMillis,
+      @Value("${email-smtp-pool.max-messages-per-connection:100}") int maxMessagesPerConnection
+  ) {
+    this.javaMailSender = javaMailSender;
+    this.transportPool = new SmtpTransportPool(javaMailSender, meterRegistry, maxTotal,
+        Duration.ofSeconds(maxIdleSecond), Duration.ofMillis(maxWaitMillis),
+        maxMessagesPerConnection);
+    this.sentTimer = sendTimer(meterRegistry, "success");
+    this.timeoutTimer = sendTimer(meterRegistry, "timeout");
+    this.errorTimer = sendTimer(meterRegistry, "error");
+  }
 
   public void sendMail(String mail, String subject, String text) {
-    MimeMessagePreparator msg = new MimeMessagePreparator() {
-      @Override
-      public void prepare(MimeMessage mimeMessage) throws Exception {
-        MimeMessageHelper mimeMessageHelper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
-        mimeMessageHelper.setTo(mail);
-        mimeMessageHelper.setSubject(subject);
-        mimeMessageHelper.setText(text, true);
+    Exception failure = sendMails(List.of(new MailMessage(mail, subject, text)), Instant.MAX)
+        .get(0);
+    if (failure != null) {
+      throw failure instanceof MailSendException mailSendException
+          ? mailSendException
+          : new MailSendException("Failed to send mail", failure);
+    }
+  }
+
+  /**
+   * Send over one SMTP session. A failed message doesn't stop the rest. The session is replaced,
+   * as it may be broken.
+   * <p>
+   * If no session can be had, the relay is down, and the rest fail with the same exception instead
+   * of each waiting on the pool again. Messages not started by the deadline fail unsent.
+   *
+   * @return the failure of each message, in order. null for a sent one.
+   */
+  public List<Exception> sendMails(List<MailMessage> messages, Instant deadline) {
+    List<Exception> failures = new ArrayList<>(messages.size());
+    PooledTransport transport = null;
+    try {
+      for (MailMessage message : messages) {
+        if (Instant.now().isAfter(deadline)) {
+          failures.add(new MailSendException("Not sent before the deadline"));
+          continue;
+        }
+        if (transport == null) {
+          try {
+            transport = transportPool.borrow();
+          } catch (RuntimeException e) {
+            while (failures.size() < messages.size()) {
+              failures.add(e);
+            }
+            break;
+          }
+        }
+        try {
+          send(transport, message);
+          failures.add(null);
+        } catch (MessagingException | RuntimeException e) {
+          failures.add(e);
+          transportPool.invalidate(transport);
+          transport = null;
+        }
       }
-    };
+    } finally {
+      if (transport != null) {
+        transportPool.release(transport);
+      }
+    }
+    return failures;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    transportPool.close();
+  }
+
+  private void send(PooledTransport transport, MailMessage message) throws MessagingException {
+    MimeMessage mimeMessage = javaMailSender.createMimeMessage();
+    MimeMessageHelper mimeMessageHelper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
+    mimeMessageHelper.setTo(message.getTo());
+    mimeMessageHelper.setSubject(message.getSubject());
+    mimeMessageHelper.setText(message.getText(), true);
+    mimeMessage.setSentDate(new Date());
+    mimeMessage.saveChanges();
+
+    SmtpSendEvent event = new SmtpSendEvent();
+    event.begin();
+    long start = System.nanoTime();
+    Timer timer = errorTimer;
+    String outcome = "error";
+    try {
+      transport.getTransport().sendMessage(mimeMessage, mimeMessage.getAllRecipients());
+      timer = sentTimer;
+      outcome = "success";
+    } catch (MessagingException e) {
+      if (isTimeout(e)) {
+        timer = timeoutTimer;
+        outcome = "timeout";
+      }
+      throw e;
+    } finally {
+      timer.record(Duration.ofNanos(System.nanoTime() - start));
+      event.outcome = outcome;
+      event.commit();
+    }
+    transport.sent();
+  }
+
+  // Jakarta Mail wraps the socket's exception, sometimes more than once
+  private static boolean isTimeout(Throwable e) {
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof SocketTimeoutException) {
+        return true;
+      }
+    }
+    return false;
+  }
 
-    javaMailSender.send(msg);
+  private static Timer sendTimer(MeterRegistry meterRegistry, String outcome) {
+    return Timer.builder("auth.email.smtp.send")
+        .description("SMTP send time of one email, on an open session")
+        .tag("outcome", outcome)
+        .register(meterRegistry);
   }
-}
\ No newline at end of file
+}
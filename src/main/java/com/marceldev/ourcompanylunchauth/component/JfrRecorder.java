@@ -0,0 +1,241 @@
+package com.marceldev.ourcompanylunchauth.component;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * One JDK Flight Recorder recording, started and dumped from JfrRecordingEndpoint, so an incident
+ * can be captured without attaching an agent or restarting with -XX:StartFlightRecording.
+ * <p>
+ * The recording keeps maxAge of data, up to maxSize, on disk. A dump writes what it has to a file
+ * in dumpDirectory, and only files named by this class can be read back. Only the newest maxDumps
+ * are kept.
+ * <p>
+ * Events that record system properties, environment variables and command lines are turned off,
+ * as they carry passwords and keys given by -D or the environment.
+ */
+@Slf4j
+@Component
+public class JfrRecorder {
+
+  private static final String RECORDING_NAME = "auth";
+
+  private static final DateTimeFormatter DUMP_TIME_FORMAT =
+      DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+  private static final Pattern DUMP_FILE_NAME = Pattern.compile("auth-\\d{8}-\\d{6}-\\d{3}\\.jfr");
+
+  private static final List<String> SECRET_EVENTS = List.of(
+      "jdk.InitialSystemProperty",
+      "jdk.InitialEnvironmentVariable",
+      "jdk.JVMInformation", // JVM arguments
+      "jdk.SystemProcess" // Command lines of the other processes on the host
+  );
+
+  private final Path dumpDirectory;
+
+  private final String settings;
+
+  private final Duration maxAge;
+
+  private final long maxSizeBytes;
+
+  private final int maxDumps;
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private Recording recording;
+
+  // Names are unique by time, so a dump never overwrites the one before
+  private LocalDateTime lastDumpTime = LocalDateTime.MIN;
+
+  public JfrRecorder(
+      @Value("${jfr-recording.dump-directory:${java.io.tmpdir}}") String dumpDirectory,
+      @Value("${jfr-recording.settings:profile}") String settings,
+      @Value("${jfr-recording.max-age-minute:30}") long maxAgeMinute,
+      @Value("${jfr-recording.max-size-mb:250}") long maxSizeMb,
+      @Value("${jfr-recording.max-dumps:5}") int maxDumps
+  ) {
+    this.dumpDirectory = Path.of(dumpDirectory);
+    this.settings = settings;
+    this.maxAge = Duration.ofMinutes(maxAgeMinute);
+    this.maxSizeBytes = maxSizeMb * 1024 * 1024;
+    this.maxDumps = maxDumps;
+  }
+
+  public Map<String, Object> start() {
+    lock.lock();
+    try {
+      if (recording == null || recording.getState() == RecordingState.CLOSED) {
+        recording = new Recording(recordingSettings());
+        recording.setName(RECORDING_NAME);
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        recording.setMaxSize(maxSizeBytes);
+        recording.start();
+        log.info("JFR recording started: settings={}, maxAge={}", settings, maxAge);
+      }
+      return status();
+    } catch (IOException | ParseException e) {
+      throw new IllegalStateException("Failed to read JFR settings: " + settings, e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Dump what the recording has so far. It keeps running.
+   */
+  public Map<String, Object> dump() {
+    lock.lock();
+    try {
+      requireRunning();
+      Path dump = dumpTo();
+      Map<String, Object> status = status();
+      status.put("dump", dump.getFileName().toString());
+      return status;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Dump, then stop and close the recording.
+   */
+  public Map<String, Object> stop() {
+    lock.lock();
+    try {
+      requireRunning();
+      Path dump = dumpTo();
+      recording.close();
+      recording = null;
+      log.info("JFR recording stopped: {}", dump);
+      Map<String, Object> status = status();
+      status.put("dump", dump.getFileName().toString());
+      return status;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public Map<String, Object> status() {
+    lock.lock();
+    try {
+      Map<String, Object> status = new LinkedHashMap<>();
+      boolean running = recording != null && recording.getState() == RecordingState.RUNNING;
+      status.put("running", running);
+      if (running) {
+        status.put("startTime", recording.getStartTime().toString());
+        status.put("settings", settings);
+        status.put("maxAgeMinute", maxAge.toMinutes());
+      }
+      status.put("dumps", listDumps());
+      return status;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * A dump by file name. Empty for names this class doesn't make, so no other file can be read.
+   */
+  public Optional<Path> findDump(String fileName) {
+    if (!DUMP_FILE_NAME.matcher(fileName).matches()) {
+      return Optional.empty();
+    }
+    Path dump = dumpDirectory.resolve(fileName);
+    return Files.isRegularFile(dump) ? Optional.of(dump) : Optional.empty();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    lock.lock();
+    try {
+      if (recording != null) {
+        recording.close();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private Map<String, String> recordingSettings() throws IOException, ParseException {
+    Map<String, String> recordingSettings =
+        new HashMap<>(Configuration.getConfiguration(settings).getSettings());
+    for (String event : SECRET_EVENTS) {
+      recordingSettings.put(event + "#enabled", "false");
+    }
+    return recordingSettings;
+  }
+
+  private void requireRunning() {
+    if (recording == null || recording.getState() != RecordingState.RUNNING) {
+      throw new IllegalStateException("No JFR recording is running");
+    }
+  }
+
+  private Path dumpTo() {
+    LocalDateTime dumpTime = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+    if (!dumpTime.isAfter(lastDumpTime)) {
+      dumpTime = lastDumpTime.plus(1, ChronoUnit.MILLIS);
+    }
+    lastDumpTime = dumpTime;
+    Path dump = dumpDirectory.resolve("auth-" + dumpTime.format(DUMP_TIME_FORMAT) + ".jfr");
+    try {
+      Files.createDirectories(dumpDirectory);
+      recording.dump(dump);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to dump JFR recording to " + dump, e);
+    }
+    deleteOldDumps();
+    return dump;
+  }
+
+  // Names sort by time, so the oldest come first
+  private void deleteOldDumps() {
+    List<String> dumps = listDumps();
+    for (String old : dumps.subList(0, Math.max(0, dumps.size() - maxDumps))) {
+      try {
+        Files.deleteIfExists(dumpDirectory.resolve(old));
+      } catch (IOException e) {
+        log.warn("Failed to delete old JFR dump {}: {}", old, e.toString());
+      }
+    }
+  }
+
+  private List<String> listDumps() {
+    if (!Files.isDirectory(dumpDirectory)) {
+      return List.of();
+    }
+    try (Stream<Path> files = Files.list(dumpDirectory)) {
+      return files.map(file -> file.getFileName().toString())
+          .filter(name -> DUMP_FILE_NAME.matcher(name).matches())
+          .sorted()
+          .toList();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,398 @@
+package com.marceldev.ourcompanylunchauth.component;
+
+import com.marceldev.ourcompanylunchauth.jfr.TokenMintEvent;
+import com.marceldev.ourcompanylunchauth.model.JwtSigningKey;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.Signature;
+import java.time.Instant;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Mints the same HMAC JWT as TokenProvider.generateToken(), without jjwt's builder and JSON
+ * serializer. The header segment is encoded once, and Macs and buffers are reused from a small pool,
+ * so a token costs little more than the HMAC and the returned String.
+ * <p>
+ * The pool is shared, not per thread. A ThreadLocal would make a new Mac and buffers for every
+ * virtual thread, which mints once and ends. Minting doesn't block, so about one Scratch per core
+ * is in use at a time.
+ * <p>
+ * With signing keys given, tokens are signed with ES256 instead, and carry the key's kid.
+ * <p>
+ * Claims: {"sub":email,"role":role,"jti":random id,"iat":seconds,"exp":seconds}
+ */
+public class JwtMinter {
+
+  // ECDSA signature as R || S, the form JWS uses, instead of DER
+  private static final String ECDSA_ALGORITHM = "SHA256withECDSAinP1363Format";
+
+  private static final int ECDSA_SIGNATURE_LENGTH = 64;
+
+  private static final byte[] BASE64_URL = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_"
+      .getBytes(StandardCharsets.US_ASCII);
+
+  private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+  private static final byte[] SUB = "{\"sub\":".getBytes(StandardCharsets.US_ASCII);
+
+  private static final byte[] ROLE = ",\"role\":".getBytes(StandardCharsets.US_ASCII);
+
+  private static final byte[] JTI = ",\"jti\":\"".getBytes(StandardCharsets.US_ASCII);
+
+  private static final byte[] IAT = "\",\"iat\":".getBytes(StandardCharsets.US_ASCII);
+
+  // 128 bits. Unique is enough, as it identifies a token for revocation and isn't a secret.
+  private static final int JTI_BYTE_LENGTH = 16;
+
+  private static final byte[] EXP = ",\"exp\":".getBytes(StandardCharsets.US_ASCII);
+
+  // Longest a long can be in decimal
+  private static final int MAX_LONG_DIGITS = 20;
+
+  // "\u00XX" is the longest a char can be, after JSON escaping
+  private static final int MAX_BYTES_PER_CHAR = 6;
+
+  private final byte[] headerSegment;
+
+  private final SecretKeySpec key;
+
+  private final Mac prototypeMac;
+
+  private final long validSecond;
+
+  // Taken for one token and given back. Empty means all are in use, and a new one is made.
+  private final BlockingQueue<Scratch> scratches;
+
+  private final Supplier<JwtSigningKey> signingKeys;
+
+  // Of the tokens minted, for the meter and JFR
+  private final String mintAlgorithm;
+
+  private final Timer mintTimer;
+
+  /**
+   * HMAC with the shared secret.
+   */
+  public JwtMinter(String secret, long expiredInHour) {
+    this(secret, expiredInHour, null);
+  }
+
+  /**
+   * ES256 with the key from signingKeys, or HMAC when it's null.
+   */
+  public JwtMinter(String secret, long expiredInHour, Supplier<JwtSigningKey> signingKeys) {
+    // No registries, so the timer is a no-op
+    this(secret, expiredInHour, signingKeys, new CompositeMeterRegistry());
+  }
+
+  /**
+   * Also times each token as auth.token.mint{algorithm}.
+   */
+  public JwtMinter(String secret, long expiredInHour, Supplier<JwtSigningKey> signingKeys,
+      MeterRegistry meterRegistry) {
+    byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+    String algorithm = hmacAlgorithm(keyBytes.length);
+
+    this.headerSegment = headerSegment("{\"alg\":\"" + algorithm + "\"}");
+    this.key = new SecretKeySpec(keyBytes, "HmacSHA" + algorithm.substring(2));
+    this.prototypeMac = createMac(key);
+    this.validSecond = expiredInHour * 60 * 60;
+    this.scratches = new ArrayBlockingQueue<>(2 * Runtime.getRuntime().availableProcessors());
+    this.signingKeys = signingKeys;
+    this.mintAlgorithm = signingKeys == null ? algorithm : JwtSigningKey.ALGORITHM;
+    this.mintTimer = Timer.builder("auth.token.mint")
+        .description("Time to mint and sign a JWT")
+        .tag("algorithm", mintAlgorithm)
+        .register(meterRegistry);
+  }
+
+  public String generateToken(String email, String role) {
+    TokenMintEvent event = new TokenMintEvent();
+    event.begin();
+    long start = System.nanoTime();
+    String token = generateToken(email, role, Instant.now().getEpochSecond());
+    mintTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    event.algorithm = mintAlgorithm;
+    event.commit();
+    return token;
+  }
+
+  String generateToken(String email, String role, long issuedAtSecond) {
+    Scratch scratch = scratches.poll();
+    if (scratch == null) {
+      scratch = new Scratch(newMac());
+    }
+    String token = generateToken(email, role, issuedAtSecond, scratch);
+    // Dropped when the pool is full after a burst, or when signing failed halfway
+    scratches.offer(scratch);
+    return token;
+  }
+
+  private String generateToken(String email, String role, long issuedAtSecond, Scratch scratch) {
+    JwtSigningKey signingKey = signingKeys == null ? null : signingKeys.get();
+    byte[] header = signingKey == null ? headerSegment : signingKey.getHeaderSegment();
+
+    // Claims JSON
+    byte[] claims = scratch.claims(
+        SUB.length + ROLE.length + JTI.length + base64Length(JTI_BYTE_LENGTH) + IAT.length
+            + EXP.length + 1 + 2 * MAX_LONG_DIGITS
+            + MAX_BYTES_PER_CHAR * (email.length() + role.length() + 4));
+    int claimsLength = 0;
+    claimsLength = writeBytes(SUB, claims, claimsLength);
+    claimsLength = writeJsonString(email, claims, claimsLength);
+    claimsLength = writeBytes(ROLE, claims, claimsLength);
+    claimsLength = writeJsonString(role, claims, claimsLength);
+    claimsLength = writeBytes(JTI, claims, claimsLength);
+    claimsLength = writeBase64Url(scratch.randomJti(), JTI_BYTE_LENGTH, claims, claimsLength);
+    claimsLength = writeBytes(IAT, claims, claimsLength);
+    claimsLength = writeLong(issuedAtSecond, claims, claimsLength);
+    claimsLength = writeBytes(EXP, claims, claimsLength);
+    claimsLength = writeLong(issuedAtSecond + validSecond, claims, claimsLength);
+    claims[claimsLength++] = '}';
+
+    // header.payload.signature
+    byte[] token = scratch.token(header.length + base64Length(claimsLength) + 1
+        + base64Length(Math.max(scratch.signature.length, ECDSA_SIGNATURE_LENGTH)));
+    int tokenLength = writeBytes(header, token, 0);
+    tokenLength = writeBase64Url(claims, claimsLength, token, tokenLength);
+
+    byte[] signature = signingKey == null
+        ? signHmac(scratch, token, tokenLength)
+        : signEcdsa(scratch, signingKey, token, tokenLength);
+
+    token[tokenLength++] = '.';
+    tokenLength = writeBase64Url(signature, signature.length, token, tokenLength);
+
+    return new String(token, 0, tokenLength, StandardCharsets.ISO_8859_1);
+  }
+
+  private static byte[] signHmac(Scratch scratch, byte[] input, int length) {
+    Mac mac = scratch.mac;
+    mac.update(input, 0, length);
+    try {
+      mac.doFinal(scratch.signature, 0);
+    } catch (ShortBufferException e) {
+      throw new IllegalStateException(e);
+    }
+    return scratch.signature;
+  }
+
+  private static byte[] signEcdsa(Scratch scratch, JwtSigningKey signingKey, byte[] input,
+      int length) {
+    try {
+      Signature ecdsa = scratch.ecdsa();
+      ecdsa.initSign(signingKey.getPrivateKey());
+      ecdsa.update(input, 0, length);
+      return ecdsa.sign();
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  // Same choice jjwt makes for an HMAC key of this length
+  private static String hmacAlgorithm(int keyLength) {
+    if (keyLength >= 64) {
+      return "HS512";
+    }
+    if (keyLength >= 48) {
+      return "HS384";
+    }
+    if (keyLength >= 32) {
+      return "HS256";
+    }
+    throw new IllegalArgumentException("JWT secret should be at least 32 bytes.");
+  }
+
+  private static byte[] headerSegment(String header) {
+    byte[] json = header.getBytes(StandardCharsets.US_ASCII);
+    byte[] segment = new byte[base64Length(json.length) + 1];
+    int length = writeBase64Url(json, json.length, segment, 0);
+    segment[length] = '.';
+    return segment;
+  }
+
+  // Cloning skips the provider lookup and key setup of Mac.getInstance() and init().
+  private Mac newMac() {
+    try {
+      return (Mac) prototypeMac.clone();
+    } catch (CloneNotSupportedException e) {
+      return createMac(key);
+    }
+  }
+
+  private static Mac createMac(SecretKeySpec key) {
+    try {
+      Mac mac = Mac.getInstance(key.getAlgorithm());
+      mac.init(key);
+      return mac;
+    } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static int base64Length(int length) {
+    return (length * 4 + 2) / 3;
+  }
+
+  private static int writeBytes(byte[] src, byte[] dst, int pos) {
+    System.arraycopy(src, 0, dst, pos, src.length);
+    return pos + src.length;
+  }
+
+  private static int writeLong(long value, byte[] dst, int pos) {
+    if (value < 0) {
+      dst[pos++] = '-';
+      value = -value;
+    }
+    int start = pos;
+    do {
+      dst[pos++] = (byte) ('0' + value % 10);
+      value /= 10;
+    } while (value > 0);
+
+    // Digits were written from the lowest, so reverse them.
+    for (int i = start, j = pos - 1; i < j; i++, j--) {
+      byte tmp = dst[i];
+      dst[i] = dst[j];
+      dst[j] = tmp;
+    }
+    return pos;
+  }
+
+  /**
+   * Write a JSON string in UTF-8, with the quotes.
+   */
+  private static int writeJsonString(String value, byte[] dst, int pos) {
+    dst[pos++] = '"';
+    int length = value.length();
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        dst[pos++] = '\\';
+        dst[pos++] = (byte) c;
+      } else if (c < 0x20) {
+        dst[pos++] = '\\';
+        dst[pos++] = 'u';
+        dst[pos++] = '0';
+        dst[pos++] = '0';
+        dst[pos++] = HEX[c >> 4];
+        dst[pos++] = HEX[c & 0xF];
+      } else if (c < 0x80) {
+        dst[pos++] = (byte) c;
+      } else if (c < 0x800) {
+        dst[pos++] = (byte) (0xC0 | (c >> 6));
+        dst[pos++] = (byte) (0x80 | (c & 0x3F));
+      } else if (Character.isHighSurrogate(c) && i + 1 < length
+          && Character.isLowSurrogate(value.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, value.charAt(++i));
+        dst[pos++] = (byte) (0xF0 | (codePoint >> 18));
+        dst[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+        dst[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+        dst[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+      } else if (Character.isSurrogate(c)) {
+        dst[pos++] = '?'; // Same as String.getBytes() does for a broken surrogate pair
+      } else {
+        dst[pos++] = (byte) (0xE0 | (c >> 12));
+        dst[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        dst[pos++] = (byte) (0x80 | (c & 0x3F));
+      }
+    }
+    dst[pos++] = '"';
+    return pos;
+  }
+
+  /**
+   * Base64 URL encoding without padding, written at an offset. java.util.Base64 can only write at
+   * the start of an array.
+   */
+  private static int writeBase64Url(byte[] src, int length, byte[] dst, int pos) {
+    int i = 0;
+    for (; i + 3 <= length; i += 3) {
+      int bits = (src[i] & 0xFF) << 16 | (src[i + 1] & 0xFF) << 8 | (src[i + 2] & 0xFF);
+      dst[pos++] = BASE64_URL[(bits >>> 18) & 0x3F];
+      dst[pos++] = BASE64_URL[(bits >>> 12) & 0x3F];
+      dst[pos++] = BASE64_URL[(bits >>> 6) & 0x3F];
+      dst[pos++] = BASE64_URL[bits & 0x3F];
+    }
+
+    int remaining = length - i;
+    if (remaining == 1) {
+      int bits = (src[i] & 0xFF) << 16;
+      dst[pos++] = BASE64_URL[(bits >>> 18) & 0x3F];
+      dst[pos++] = BASE64_URL[(bits >>> 12) & 0x3F];
+    } else if (remaining == 2) {
+      int bits = (src[i] & 0xFF) << 16 | (src[i + 1] & 0xFF) << 8;
+      dst[pos++] = BASE64_URL[(bits >>> 18) & 0x3F];
+      dst[pos++] = BASE64_URL[(bits >>> 12) & 0x3F];
+      dst[pos++] = BASE64_URL[(bits >>> 6) & 0x3F];
+    }
+    return pos;
+  }
+
+  /**
+   * Mac and buffers for one token at a time. Buffers only grow.
+   */
+  private static class Scratch {
+
+    private final Mac mac;
+
+    private final byte[] signature;
+
+    private byte[] claims = new byte[256];
+
+    private byte[] token = new byte[512];
+
+    private final byte[] jti = new byte[JTI_BYTE_LENGTH];
+
+    private Signature ecdsa;
+
+    private Scratch(Mac mac) {
+      this.mac = mac;
+      this.signature = new byte[mac.getMacLength()];
+    }
+
+    private byte[] randomJti() {
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      long high = random.nextLong();
+      long low = random.nextLong();
+      for (int i = 0; i < 8; i++) {
+        jti[i] = (byte) (high >>> (56 - 8 * i));
+        jti[8 + i] = (byte) (low >>> (56 - 8 * i));
+      }
+      return jti;
+    }
+
+    private Signature ecdsa() throws NoSuchAlgorithmException {
+      if (ecdsa == null) {
+        ecdsa = Signature.getInstance(ECDSA_ALGORITHM);
+      }
+      return ecdsa;
+    }
+
+    private byte[] claims(int size) {
+      if (claims.length < size) {
+        claims = new byte[size];
+      }
+      return claims;
+    }
+
+    private byte[] token(int size) {
+      if (token.length < size) {
+        token = new byte[size];
+      }
+      return token;
+    }
+  }
+}
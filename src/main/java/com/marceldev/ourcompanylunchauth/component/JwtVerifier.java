@@ -0,0 +1,70 @@
+package com.marceldev.ourcompanylunchauth.component;
+
+import com.marceldev.ourcompanylunchauth.exception.InvalidTokenException;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Header;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.ProtectedHeader;
+import io.jsonwebtoken.security.Keys;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.PublicKey;
+import java.util.function.Function;
+import javax.crypto.SecretKey;
+
+/**
+ * Verifies tokens from JwtMinter. HMAC tokens are checked with the shared secret, ES256 tokens with
+ * the public key of their kid. Both are accepted by default, so switching the signing algorithm
+ * doesn't break tokens already issued. Once those have expired, HMAC can be turned off, and a
+ * token made with a leaked shared secret is no longer accepted.
+ */
+public class JwtVerifier {
+
+  private final JwtParser parser;
+
+  public JwtVerifier(String secret, Function<String, PublicKey> publicKeys) {
+    this(secret, publicKeys, true);
+  }
+
+  /**
+   * @param acceptHmac false rejects HMAC tokens, for ES256 only
+   */
+  public JwtVerifier(String secret, Function<String, PublicKey> publicKeys, boolean acceptHmac) {
+    SecretKey hmacKey = acceptHmac
+        ? Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8))
+        : null;
+    this.parser = Jwts.parser()
+        .keyLocator(header -> locateKey(header, hmacKey, publicKeys))
+        .build();
+  }
+
+  public Claims verify(String token) {
+    try {
+      return parser.parseSignedClaims(token).getPayload();
+    } catch (JwtException | IllegalArgumentException e) {
+      throw new InvalidTokenException(e);
+    }
+  }
+
+  private static Key locateKey(Header header, SecretKey hmacKey,
+      Function<String, PublicKey> publicKeys) {
+    String algorithm = header.getAlgorithm();
+    if (algorithm != null && algorithm.startsWith("HS")) {
+      if (hmacKey == null) {
+        throw new JwtException("HMAC tokens are not accepted");
+      }
+      return hmacKey;
+    }
+
+    String kid = header instanceof ProtectedHeader protectedHeader
+        ? protectedHeader.getKeyId()
+        : null;
+    PublicKey publicKey = kid == null || publicKeys == null ? null : publicKeys.apply(kid);
+    if (publicKey == null) {
+      throw new JwtException("Unknown signing key: " + kid);
+    }
+    return publicKey;
+  }
+}
@@ -0,0 +1,223 @@
+package com.marceldev.ourcompanylunchauth.component;
+
+import com.marceldev.ourcompanylunchauth.exception.CustomException;
+import com.marceldev.ourcompanylunchauth.exception.PasswordHashBusyException;
+import com.marceldev.ourcompanylunchauth.jfr.PasswordHashEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs password hashing on a dedicated pool, so CPU-bound hashing can't occupy every request thread.
+ * When the queue is full, the request is rejected right away instead of waiting.
+ */
+@Slf4j
+@Component
+public class PasswordHasher {
+
+  private final PasswordEncoder passwordEncoder;
+
+  private final MeterRegistry meterRegistry;
+
+  private final ThreadPoolExecutor executor;
+
+  private final int threads;
+
+  private final Timer waitTimer;
+
+  private final Counter rejectedCounter;
+
+  private final int retryAfterSecond;
+
+  public PasswordHasher(
+      PasswordEncoder passwordEncoder,
+      MeterRegistry meterRegistry,
+      @Value("${password-hash.pool-size:0}") int poolSize,
+      @Value("${password-hash.queue-capacity:100}") int queueCapacity,
+      @Value("${password-hash.retry-after-second:1}") int retryAfterSecond
+  ) {
+    this.threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+    this.passwordEncoder = passwordEncoder;
+    this.meterRegistry = meterRegistry;
+    this.retryAfterSecond = retryAfterSecond;
+    this.executor = new ThreadPoolExecutor(
+        threads,
+        threads,
+        0L,
+        TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        new CustomizableThreadFactory("password-hash-"),
+        new ThreadPoolExecutor.AbortPolicy()
+    );
+
+    // executor.queued, executor.active, executor.completed ... tagged with name=auth.password.hash
+    new ExecutorServiceMetrics(executor, "auth.password.hash", Tags.empty()).bindTo(meterRegistry);
+    this.waitTimer = Timer.builder("auth.password.hash.wait")
+        .description("Time a hashing task waited in the queue")
+        .register(meterRegistry);
+    this.rejectedCounter = Counter.builder("auth.password.hash.rejected")
+        .description("Hashing tasks rejected because the queue was full")
+        .register(meterRegistry);
+
+    log.info("Password hash pool: {} threads, queue capacity {}", threads, queueCapacity);
+  }
+
+  public String encode(String rawPassword) {
+    return timed("encode", () -> run(() -> passwordEncoder.encode(rawPassword)),
+        encPassword -> "success");
+  }
+
+  public boolean matches(String rawPassword, String encodedPassword) {
+    return timed("matches", () -> run(() -> passwordEncoder.matches(rawPassword, encodedPassword)),
+        matched -> matched ? "success" : "bad-password");
+  }
+
+  /**
+   * Encode many at once on every thread of the pool. At most one task per thread is queued at a
+   * time, so sign ins and sign ups still get a place in the queue.
+   */
+  public List<String> encodeAll(List<String> rawPasswords) {
+    Semaphore permits = new Semaphore(threads);
+    List<Future<String>> futures = new ArrayList<>(rawPasswords.size());
+    try {
+      for (String rawPassword : rawPasswords) {
+        permits.acquire();
+        try {
+          futures.add(executor.submit(() -> {
+            try {
+              return passwordEncoder.encode(rawPassword);
+            } finally {
+              permits.release();
+            }
+          }));
+        } catch (RejectedExecutionException e) {
+          permits.release();
+          rejectedCounter.increment();
+          throw new PasswordHashBusyException(retryAfterSecond);
+        }
+      }
+
+      List<String> encPasswords = new ArrayList<>(futures.size());
+      for (Future<String> future : futures) {
+        encPasswords.add(get(future));
+      }
+      return encPasswords;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CustomException("Password hashing interrupted.", e);
+    } finally {
+      // No-op for the ones done. Stops the rest when a hash failed or the queue was full.
+      futures.forEach(future -> future.cancel(true));
+    }
+  }
+
+  /**
+   * Whether the hash was made with an older algorithm or a lower strength than the current one.
+   */
+  public boolean upgradeEncoding(String encodedPassword) {
+    return passwordEncoder.upgradeEncoding(encodedPassword);
+  }
+
+  /**
+   * Encode without waiting for the result. Skipped when the pool is busy, because nothing depends
+   * on it.
+   */
+  public void encodeInBackground(String rawPassword, Consumer<String> callback) {
+    try {
+      executor.execute(() -> {
+        try {
+          callback.accept(passwordEncoder.encode(rawPassword));
+        } catch (RuntimeException e) {
+          log.warn("Background password encoding failed, {}", e.toString());
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      log.debug("Background password encoding skipped, pool is busy");
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  /**
+   * auth.password.hash{operation, outcome}: queue wait and hashing together, what a request waits.
+   */
+  private <T> T timed(String operation, Supplier<T> call, Function<T, String> outcomeOf) {
+    PasswordHashEvent event = new PasswordHashEvent();
+    event.begin();
+    long start = System.nanoTime();
+    String outcome = "error";
+    try {
+      T result = call.get();
+      outcome = outcomeOf.apply(result);
+      return result;
+    } catch (PasswordHashBusyException e) {
+      outcome = "busy";
+      throw e;
+    } finally {
+      Timer.builder("auth.password.hash")
+          .description("Password hash time, including the wait for the pool")
+          .tag("operation", operation)
+          .tag("outcome", outcome)
+          .register(meterRegistry)
+          .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      event.operation = operation;
+      event.outcome = outcome;
+      event.commit();
+    }
+  }
+
+  private <T> T run(Callable<T> task) {
+    long submittedAt = System.nanoTime();
+    Future<T> future;
+    try {
+      future = executor.submit(() -> {
+        waitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+        return task.call();
+      });
+    } catch (RejectedExecutionException e) {
+      rejectedCounter.increment();
+      throw new PasswordHashBusyException(retryAfterSecond);
+    }
+
+    return get(future);
+  }
+
+  private static <T> T get(Future<T> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new CustomException("Password hashing interrupted.", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new CustomException("Password hashing failed.", e.getCause());
+    }
+  }
+}
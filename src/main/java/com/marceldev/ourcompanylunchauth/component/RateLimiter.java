@@ -0,0 +1,80 @@
+package com.marceldev.ourcompanylunchauth.component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A token bucket per key, with capacity tokens refilled at one per refillInterval.
+ * <p>
+ * A bucket is one AtomicLong: the time it is full again, and each token pushes it refillInterval
+ * further (GCRA). Taking a token is a CAS on it, without a lock and without allocating once the
+ * bucket exists. Buckets are in a bounded cache, and a bucket idle long enough to be full again is
+ * evicted, as a new one is the same.
+ */
+public class RateLimiter {
+
+  private final long refillIntervalNanos;
+
+  // How far ahead of now the full time may go, the burst
+  private final long capacityNanos;
+
+  private final Cache<String, AtomicLong> buckets;
+
+  private final Function<String, AtomicLong> newBucket;
+
+  private final Counter allowedCounter;
+
+  private final Counter rejectedCounter;
+
+  public RateLimiter(String name, int capacity, Duration refillInterval, long maximumKeys,
+      MeterRegistry meterRegistry) {
+    this.refillIntervalNanos = refillInterval.toNanos();
+    this.capacityNanos = capacity * refillIntervalNanos;
+    this.buckets = Caffeine.newBuilder()
+        .maximumSize(maximumKeys)
+        .expireAfterAccess(Duration.ofNanos(capacityNanos))
+        .build();
+    // Created once. A lambda capturing the time would allocate on every call.
+    this.newBucket = key -> new AtomicLong(Long.MIN_VALUE);
+
+    this.allowedCounter = Counter.builder("auth.rate.limit")
+        .tag("limiter", name)
+        .tag("result", "allowed")
+        .register(meterRegistry);
+    this.rejectedCounter = Counter.builder("auth.rate.limit")
+        .tag("limiter", name)
+        .tag("result", "rejected")
+        .register(meterRegistry);
+  }
+
+  /**
+   * @return 0 when a token was taken, or else the nanoseconds until one is available
+   */
+  public long tryAcquire(String key) {
+    return tryAcquire(key, System.nanoTime());
+  }
+
+  public long tryAcquire(String key, long nowNanos) {
+    AtomicLong bucket = buckets.get(key, newBucket);
+    while (true) {
+      long fullAt = bucket.get();
+      // Long.MIN_VALUE for a new bucket, which is full
+      long base = fullAt == Long.MIN_VALUE || fullAt - nowNanos < 0 ? nowNanos : fullAt;
+      long nextFullAt = base + refillIntervalNanos;
+      long waitNanos = nextFullAt - nowNanos - capacityNanos;
+      if (waitNanos > 0) {
+        rejectedCounter.increment();
+        return waitNanos;
+      }
+      if (bucket.compareAndSet(fullAt, nextFullAt)) {
+        allowedCounter.increment();
+        return 0;
+      }
+    }
+  }
+}
@@ -0,0 +1,235 @@
+package com.marceldev.ourcompanylunchauth.component;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.marceldev.ourcompanylunchauth.model.UserEmailOnly;
+import com.marceldev.ourcompanylunchauth.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bloom filter of registered emails. "Absent" is certain, so a sign in with an unknown email doesn't
+ * need a DB round trip. "Present" may be a false positive, and the DB decides.
+ * <p>
+ * Users signed up on other nodes are picked up every sync interval. AUTO_INCREMENT ids can commit
+ * out of order: a user with a lower id may become visible after a higher one was synced. So each
+ * sync scans again the last sync-overlap-ids ids behind the high-water mark.
+ * <p>
+ * "Absent" is only as fresh as the last sync. When that is more than two sync intervals old, the
+ * sync is behind (a blocked scheduler, a failing DB read), and the answer is "present" instead, so
+ * a user signed up on another node still reaches the DB.
+ */
+@Slf4j
+@Component
+public class RegisteredEmailFilter {
+
+  private static final int PAGE_SIZE = 1000;
+
+  private static final long MIN_EXPECTED_INSERTIONS = 10_000;
+
+  // Room for sign ups until the next rebuild
+  private static final double GROWTH_FACTOR = 2.0;
+
+  private final UserRepository userRepository;
+
+  private final boolean enabled;
+
+  private final double falsePositiveRate;
+
+  private final long syncOverlapIds;
+
+  private final long maxSyncAgeMillis;
+
+  private final Counter absentCounter;
+
+  private final Counter presentCounter;
+
+  private final Counter falsePositiveCounter;
+
+  private final Counter staleCounter;
+
+  // Not synchronized. A virtual thread holding a monitor through the DB load would pin its carrier.
+  private final ReentrantLock buildLock = new ReentrantLock();
+
+  // null until the first build finishes. Everything is "present" until then.
+  private volatile BloomFilter<String> filter;
+
+  // Filter being rebuilt. Sign ups during a rebuild go to both.
+  private volatile BloomFilter<String> pendingFilter;
+
+  private volatile long lastUserId;
+
+  // When the filter last caught up with the users table, by a build or a sync
+  private volatile long syncedAtMillis;
+
+  public RegisteredEmailFilter(
+      UserRepository userRepository,
+      MeterRegistry meterRegistry,
+      @Value("${registered-email-filter.enabled:true}") boolean enabled,
+      @Value("${registered-email-filter.false-positive-rate:0.01}") double falsePositiveRate,
+      @Value("${registered-email-filter.sync-overlap-ids:1000}") long syncOverlapIds,
+      @Value("${registered-email-filter.sync-interval-millis:5000}") long syncIntervalMillis
+  ) {
+    this.userRepository = userRepository;
+    this.enabled = enabled;
+    this.falsePositiveRate = falsePositiveRate;
+    this.syncOverlapIds = syncOverlapIds;
+    this.maxSyncAgeMillis = 2 * syncIntervalMillis;
+    this.absentCounter = lookupCounter(meterRegistry, "absent");
+    this.presentCounter = lookupCounter(meterRegistry, "present");
+    this.falsePositiveCounter = lookupCounter(meterRegistry, "false-positive");
+    this.staleCounter = lookupCounter(meterRegistry, "stale");
+    Gauge.builder("auth.email.filter.size", this,
+            f -> f.filter == null ? 0 : f.filter.approximateElementCount())
+        .register(meterRegistry);
+    Gauge.builder("auth.email.filter.expected.fpp", this,
+            f -> f.filter == null ? 0 : f.filter.expectedFpp())
+        .register(meterRegistry);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void init() {
+    if (enabled) {
+      rebuild();
+    }
+  }
+
+  /**
+   * false means the email is definitely not registered, as of a sync at most two intervals ago.
+   */
+  public boolean mightContain(String email) {
+    BloomFilter<String> current = filter;
+    if (current == null || current.mightContain(normalize(email))) {
+      presentCounter.increment();
+      return true;
+    }
+    if (System.currentTimeMillis() - syncedAtMillis >= maxSyncAgeMillis) {
+      staleCounter.increment();
+      return true;
+    }
+    absentCounter.increment();
+    return false;
+  }
+
+  /**
+   * The filter said "present", but the DB didn't have it.
+   */
+  public void recordFalsePositive() {
+    falsePositiveCounter.increment();
+  }
+
+  public void put(String email) {
+    String normalized = normalize(email);
+    BloomFilter<String> current = filter;
+    if (current != null) {
+      current.put(normalized);
+    }
+    BloomFilter<String> pending = pendingFilter;
+    if (pending != null) {
+      pending.put(normalized);
+    }
+  }
+
+  /**
+   * Build a new filter sized from the users table, then swap it in.
+   */
+  public void rebuild() {
+    buildLock.lock();
+    try {
+      long start = System.currentTimeMillis();
+      long expectedInsertions = Math.max(MIN_EXPECTED_INSERTIONS,
+          (long) (userRepository.count() * GROWTH_FACTOR));
+      BloomFilter<String> next = BloomFilter.create(
+          Funnels.stringFunnel(StandardCharsets.UTF_8), expectedInsertions, falsePositiveRate);
+
+      pendingFilter = next;
+      long lastId = loadUsersAfter(0L, next);
+      filter = next;
+      pendingFilter = null;
+      lastUserId = lastId;
+      syncedAtMillis = start;
+
+      log.info("Registered email filter built: expectedInsertions={}, elapsed={}ms",
+          expectedInsertions, System.currentTimeMillis() - start);
+    } finally {
+      buildLock.unlock();
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${registered-email-filter.sync-interval-millis:5000}")
+  public void syncNewUsers() {
+    BloomFilter<String> current = filter;
+    if (current == null) {
+      return;
+    }
+
+    // Filled over its capacity, the false positive rate grows quickly.
+    if (current.expectedFpp() > falsePositiveRate * 2) {
+      rebuild();
+      return;
+    }
+
+    buildLock.lock();
+    try {
+      // Emails already in the filter are put again, which doesn't change it.
+      long start = System.currentTimeMillis();
+      long from = Math.max(0L, lastUserId - syncOverlapIds);
+      lastUserId = Math.max(lastUserId, loadUsersAfter(from, filter));
+      syncedAtMillis = start;
+    } finally {
+      buildLock.unlock();
+    }
+  }
+
+  public Map<String, Object> status() {
+    BloomFilter<String> current = filter;
+    Map<String, Object> status = new LinkedHashMap<>();
+    status.put("enabled", enabled);
+    status.put("ready", current != null);
+    status.put("approximateElementCount", current == null ? 0 : current.approximateElementCount());
+    status.put("expectedFpp", current == null ? 0 : current.expectedFpp());
+    status.put("lastUserId", lastUserId);
+    status.put("syncedAt",
+        syncedAtMillis == 0 ? null : Instant.ofEpochMilli(syncedAtMillis).toString());
+    return status;
+  }
+
+  private long loadUsersAfter(long userId, BloomFilter<String> target) {
+    long lastId = userId;
+    List<UserEmailOnly> users;
+    do {
+      users = userRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, PAGE_SIZE));
+      for (UserEmailOnly user : users) {
+        target.put(normalize(user.getEmail()));
+        lastId = user.getId();
+      }
+    } while (users.size() == PAGE_SIZE);
+    return lastId;
+  }
+
+  // MariaDB compares emails case-insensitively
+  private static String normalize(String email) {
+    return email.toLowerCase(Locale.ROOT);
+  }
+
+  private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+    return Counter.builder("auth.email.filter.lookup")
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,111 @@
+package com.marceldev.ourcompanylunchauth.component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Checks how far the replica is behind the primary, so ReadWriteRoutingDataSource sends read-only
+ * transactions to the primary while it is more than max-lag-second behind.
+ * <p>
+ * The lag is Seconds_Behind_Master of the lag query. The replica is not used when the lag is
+ * unknown too: it's down, or replication stopped and the column is NULL.
+ * <p>
+ * A check is good for three check intervals. When no check has come in since, because the
+ * scheduler is stuck or the query hangs, the last lag measured says nothing about now, and the
+ * replica is not used either.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "datasource-routing.enabled", havingValue = "true")
+public class ReplicaLagMonitor {
+
+  private static final String LAG_COLUMN = "Seconds_Behind_Master";
+
+  private static final long UNKNOWN = -1;
+
+  private final DataSource replicaDataSource;
+
+  private final String lagQuery;
+
+  private final long maxLagSecond;
+
+  private final long maxCheckAgeMillis;
+
+  private final AtomicLong lagSecond = new AtomicLong(UNKNOWN);
+
+  // Not until the first check
+  private volatile boolean replicaUsable;
+
+  private volatile long checkedAtMillis;
+
+  public ReplicaLagMonitor(
+      @Qualifier("replicaDataSource") DataSource replicaDataSource,
+      MeterRegistry meterRegistry,
+      @Value("${datasource-routing.replica.lag-query:SHOW SLAVE STATUS}") String lagQuery,
+      @Value("${datasource-routing.replica.max-lag-second:5}") long maxLagSecond,
+      @Value("${datasource-routing.replica.lag-check-interval-millis:1000}") long checkIntervalMillis
+  ) {
+    this.replicaDataSource = replicaDataSource;
+    this.lagQuery = lagQuery;
+    this.maxLagSecond = maxLagSecond;
+    this.maxCheckAgeMillis = 3 * checkIntervalMillis;
+
+    Gauge.builder("auth.datasource.replica.lag", lagSecond, AtomicLong::get)
+        .description("How far the replica is behind the primary. -1 when unknown")
+        .baseUnit("seconds")
+        .register(meterRegistry);
+    Gauge.builder("auth.datasource.replica.usable", this,
+            monitor -> monitor.isReplicaUsable() ? 1 : 0)
+        .description("1 when read-only transactions go to the replica")
+        .register(meterRegistry);
+  }
+
+  @Scheduled(fixedDelayString = "${datasource-routing.replica.lag-check-interval-millis:1000}")
+  public void check() {
+    long start = System.currentTimeMillis();
+    long lag = readLagSecond();
+    lagSecond.set(lag);
+    boolean usable = lag != UNKNOWN && lag <= maxLagSecond;
+    if (usable != replicaUsable) {
+      if (usable) {
+        log.info("Replica in use: lag={}s", lag);
+      } else {
+        log.warn("Replica not used, reads go to the primary: lag={}s, max={}s", lag, maxLagSecond);
+      }
+    }
+    replicaUsable = usable;
+    checkedAtMillis = start;
+  }
+
+  public boolean isReplicaUsable() {
+    return replicaUsable && System.currentTimeMillis() - checkedAtMillis < maxCheckAgeMillis;
+  }
+
+  private long readLagSecond() {
+    try (Connection connection = replicaDataSource.getConnection();
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery(lagQuery)) {
+      if (!resultSet.next()) {
+        // Not a replica
+        return UNKNOWN;
+      }
+      long lag = resultSet.getLong(LAG_COLUMN);
+      return resultSet.wasNull() ? UNKNOWN : lag;
+    } catch (SQLException e) {
+      log.debug("Replica lag check failed: {}", e.toString());
+      return UNKNOWN;
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package com.marceldev.ourcompanylunchauth.component;
+
+import com.marceldev.ourcompanylunchauth.util.RequestStages;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Times the stages services record in RequestStages, and sends them in a Server-Timing header. A
+ * request slower than slow-threshold-millis is also logged with its stages.
+ * <p>
+ * The header has to go out before the body. The response is wrapped to add it when the body is
+ * first written, by then the service is done. Off by default, as the header shows clients where
+ * the time goes.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "request-timing.enabled", havingValue = "true")
+public class RequestTimingFilter extends OncePerRequestFilter {
+
+  private static final String SERVER_TIMING = "Server-Timing";
+
+  private final long slowThresholdNanos;
+
+  public RequestTimingFilter(
+      @Value("${request-timing.slow-threshold-millis:500}") long slowThresholdMillis
+  ) {
+    this.slowThresholdNanos = Duration.ofMillis(slowThresholdMillis).toNanos();
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+    RequestStages stages = RequestStages.begin();
+    ServerTimingResponse timedResponse = new ServerTimingResponse(response, stages);
+    try {
+      filterChain.doFilter(request, timedResponse);
+      // No body, so the header isn't out yet
+      timedResponse.addServerTiming();
+    } finally {
+      stages.end();
+      long totalNanos = stages.elapsedNanos();
+      if (totalNanos >= slowThresholdNanos) {
+        log.info("Slow request: method={}, uri={}, status={}, totalMillis={}, stages=[{}]",
+            request.getMethod(), request.getRequestURI(), response.getStatus(),
+            totalNanos / 1_000_000, stages.toLogString());
+      }
+    }
+  }
+
+  private static class ServerTimingResponse extends HttpServletResponseWrapper {
+
+    private final RequestStages stages;
+
+    private boolean added;
+
+    ServerTimingResponse(HttpServletResponse response, RequestStages stages) {
+      super(response);
+      this.stages = stages;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+      addServerTiming();
+      return super.getOutputStream();
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+      addServerTiming();
+      return super.getWriter();
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+      addServerTiming();
+      super.flushBuffer();
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+      addServerTiming();
+      super.sendError(sc, msg);
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+      addServerTiming();
+      super.sendError(sc);
+    }
+
+    void addServerTiming() {
+      if (!added && !isCommitted()) {
+        added = true;
+        setHeader(SERVER_TIMING, stages.toServerTiming(stages.elapsedNanos()));
+      }
+    }
+  }
+}
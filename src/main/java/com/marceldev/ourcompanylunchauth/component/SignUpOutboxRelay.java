@@ -0,0 +1,260 @@
+package com.marceldev.ourcompanylunchauth.component;
+
+import com.marceldev.ourcompanylunchauth.entity.SignUpOutbox;
+import com.marceldev.ourcompanylunchauth.exception.BusinessServerUnavailableException;
+import com.marceldev.ourcompanylunchauth.model.SignUpStatus;
+import com.marceldev.ourcompanylunchauth.repository.SignUpOutboxRepository;
+import com.marceldev.ourcompanylunchauth.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+/**
+ * Makes profiles on the business server from the sign up outbox, so sign up never holds a DB
+ * connection while waiting on the business server.
+ * <p>
+ * Rows are claimed like EmailOutboxDispatcher does, and sent one at a time. BusinessServerClient
+ * already caps the calls in flight. A failure is retried with exponential backoff until
+ * maxAttempts. A 4xx is not retried, the same request would fail again. Either way the user's sign
+ * up status ends as COMPLETED or FAILED.
+ * <p>
+ * A call rejected by the open breaker or the full bulkhead was never made, so it isn't an attempt.
+ * The batch stops there, and the rest go back unclaimed until the breaker's retry-after.
+ * <p>
+ * A batch makes its calls one after another, each up to the read timeout. So it runs on a thread of
+ * its own, like EmailOutboxDispatcher: the scheduler only hands it over, and its single thread
+ * stays free for the other scheduled tasks.
+ */
+@Slf4j
+@Component
+public class SignUpOutboxRelay {
+
+  private static final int MAX_ERROR_LENGTH = 500;
+
+  private final SignUpOutboxRepository signUpOutboxRepository;
+
+  private final UserRepository userRepository;
+
+  private final BusinessServerClient businessServerClient;
+
+  // Claims of this node. A claim left by a crashed node expires after claimDuration.
+  private final String owner = UUID.randomUUID().toString();
+
+  private final int batchSize;
+
+  private final int maxAttempts;
+
+  private final Duration initialBackoff;
+
+  private final Duration maxBackoff;
+
+  private final Duration claimDuration;
+
+  private final Counter deliveredCounter;
+
+  private final Counter retryCounter;
+
+  private final Counter failedCounter;
+
+  private final Timer deliveryTimer;
+
+  private final AtomicLong pending = new AtomicLong();
+
+  private final AtomicLong lagSecond = new AtomicLong();
+
+  private final ExecutorService poller =
+      Executors.newSingleThreadExecutor(new CustomizableThreadFactory("sign-up-outbox-poll-"));
+
+  private final AtomicBoolean polling = new AtomicBoolean();
+
+  public SignUpOutboxRelay(
+      SignUpOutboxRepository signUpOutboxRepository,
+      UserRepository userRepository,
+      BusinessServerClient businessServerClient,
+      MeterRegistry meterRegistry,
+      @Value("${sign-up-outbox.batch-size:20}") int batchSize,
+      @Value("${sign-up-outbox.max-attempts:10}") int maxAttempts,
+      @Value("${sign-up-outbox.initial-backoff-millis:2000}") long initialBackoffMillis,
+      @Value("${sign-up-outbox.max-backoff-millis:300000}") long maxBackoffMillis,
+      @Value("${sign-up-outbox.claim-second:300}") long claimSecond
+  ) {
+    this.signUpOutboxRepository = signUpOutboxRepository;
+    this.userRepository = userRepository;
+    this.businessServerClient = businessServerClient;
+    this.batchSize = batchSize;
+    this.maxAttempts = maxAttempts;
+    this.initialBackoff = Duration.ofMillis(initialBackoffMillis);
+    this.maxBackoff = Duration.ofMillis(maxBackoffMillis);
+    this.claimDuration = Duration.ofSeconds(claimSecond);
+
+    this.deliveredCounter = relayCounter(meterRegistry, "delivered");
+    this.retryCounter = relayCounter(meterRegistry, "retry");
+    this.failedCounter = relayCounter(meterRegistry, "failed");
+    this.deliveryTimer = Timer.builder("auth.signup.outbox.delivery")
+        .description("Time from sign up to the profile made on the business server")
+        .register(meterRegistry);
+    Gauge.builder("auth.signup.outbox.pending", pending, AtomicLong::get)
+        .description("Profiles not made yet, including ones waiting for a retry")
+        .register(meterRegistry);
+    Gauge.builder("auth.signup.outbox.lag", lagSecond, AtomicLong::get)
+        .description("Age of the oldest profile not made yet")
+        .baseUnit("seconds")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Starts a relay on the poll thread, unless the last one is still running.
+   */
+  @Scheduled(fixedDelayString = "${sign-up-outbox.poll-interval-millis:1000}")
+  public void poll() {
+    if (!polling.compareAndSet(false, true)) {
+      return;
+    }
+    poller.execute(() -> {
+      try {
+        relay();
+      } catch (RuntimeException e) {
+        log.error("Sign up outbox relay failed: {}", e.toString(), e);
+      } finally {
+        polling.set(false);
+      }
+    });
+  }
+
+  public void relay() {
+    int claimed;
+    do {
+      claimed = relayBatch(LocalDateTime.now());
+    } while (claimed == batchSize);
+  }
+
+  @Scheduled(fixedDelayString = "${sign-up-outbox.metrics-interval-millis:5000}")
+  public void updateBacklogMetrics() {
+    LocalDateTime now = LocalDateTime.now();
+    pending.set(signUpOutboxRepository.countByFailedAtIsNull());
+    lagSecond.set(signUpOutboxRepository.findOldestPendingEnqueuedAt()
+        .map(oldest -> Duration.between(oldest, now).toSeconds())
+        .orElse(0L));
+  }
+
+  @Scheduled(cron = "${scheduler.clear-sign-up-outbox.cron:0 55 3 * * *}")
+  public void clearFailedSignUps() {
+    int rows = signUpOutboxRepository.deleteAllFailedBefore(LocalDateTime.now().minusDays(30));
+    log.info("Sign up outbox clear: {} failed rows deleted", rows);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    poller.shutdown();
+  }
+
+  private int relayBatch(LocalDateTime now) {
+    List<Long> ids = signUpOutboxRepository.findDispatchableIds(now, PageRequest.of(0, batchSize));
+    if (ids.isEmpty()) {
+      return 0;
+    }
+    signUpOutboxRepository.claim(ids, owner, now.plus(claimDuration), now);
+
+    List<SignUpOutbox> signUps = signUpOutboxRepository.findByIdInAndClaimedBy(ids, owner);
+    for (int i = 0; i < signUps.size(); i++) {
+      try {
+        deliver(signUps.get(i));
+      } catch (BusinessServerUnavailableException e) {
+        List<Long> rest = signUps.subList(i, signUps.size()).stream()
+            .map(SignUpOutbox::getId)
+            .toList();
+        LocalDateTime nextAttemptAt = LocalDateTime.now().plusSeconds(e.getRetryAfterSecond());
+        signUpOutboxRepository.release(rest, owner, nextAttemptAt);
+        log.warn("Sign up relay paused until {}, business server unavailable: {} rows",
+            nextAttemptAt, rest.size());
+        return 0;
+      }
+    }
+    return ids.size();
+  }
+
+  /**
+   * @throws BusinessServerUnavailableException when the call was rejected without being made
+   */
+  private void deliver(SignUpOutbox signUp) {
+    try {
+      businessServerClient.signUp(signUp.getEmail(), signUp.getName(),
+          signUp.getRole().toString(), signUp.getIdempotencyKey());
+    } catch (BusinessServerUnavailableException e) {
+      throw e;
+    } catch (HttpClientErrorException e) {
+      // Conflict: made by an earlier attempt whose response was lost
+      if (e.getStatusCode() != HttpStatus.CONFLICT) {
+        giveUp(signUp, signUp.getAttemptCount() + 1, e);
+        return;
+      }
+    } catch (RuntimeException e) {
+      handleFailure(signUp, e);
+      return;
+    }
+
+    // Status first. A crash in between sends it again, which the idempotency key makes harmless.
+    userRepository.updateSignUpStatus(signUp.getEmail(), SignUpStatus.COMPLETED);
+    signUpOutboxRepository.deleteDelivered(signUp.getId(), owner);
+    deliveredCounter.increment();
+    deliveryTimer.record(Duration.between(signUp.getEnqueuedAt(), LocalDateTime.now()));
+  }
+
+  private void handleFailure(SignUpOutbox signUp, Throwable cause) {
+    int attempt = signUp.getAttemptCount() + 1;
+    if (attempt >= maxAttempts) {
+      giveUp(signUp, attempt, cause);
+      return;
+    }
+
+    String error = truncate(String.valueOf(cause));
+    LocalDateTime nextAttemptAt = LocalDateTime.now().plus(backoff(attempt));
+    signUpOutboxRepository.scheduleRetry(signUp.getId(), owner, nextAttemptAt, error);
+    retryCounter.increment();
+    log.warn("Sign up relay failed, retry at {}: id={}, {}", nextAttemptAt, signUp.getId(), error);
+  }
+
+  private void giveUp(SignUpOutbox signUp, int attempt, Throwable cause) {
+    String error = truncate(String.valueOf(cause));
+    userRepository.updateSignUpStatus(signUp.getEmail(), SignUpStatus.FAILED);
+    signUpOutboxRepository.markFailed(signUp.getId(), owner, LocalDateTime.now(), error);
+    failedCounter.increment();
+    log.error("Sign up relay gave up after {} attempts: id={}, {}", attempt, signUp.getId(), error);
+  }
+
+  // initialBackoff * 2^(attempt - 1), capped, with jitter so retries after an outage spread out
+  private Duration backoff(int attempt) {
+    long millis = initialBackoff.toMillis() << Math.min(attempt - 1, 20);
+    long capped = Math.min(millis, maxBackoff.toMillis());
+    return Duration.ofMillis(capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1));
+  }
+
+  private static String truncate(String error) {
+    return error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+  }
+
+  private static Counter relayCounter(MeterRegistry meterRegistry, String result) {
+    return Counter.builder("auth.signup.outbox.relay")
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,209 @@
+package com.marceldev.ourcompanylunchauth.component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marceldev.ourcompanylunchauth.entity.SigningKey;
+import com.marceldev.ourcompanylunchauth.model.JwtSigningKey;
+import com.marceldev.ourcompanylunchauth.repository.SigningKeyRepository;
+import com.marceldev.ourcompanylunchauth.util.SigningKeyCipher;
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * ES256 signing keys, shared by every node through the signing_key table.
+ * <p>
+ * A new key is published {@code publish-ahead-minute} before it starts signing, so verifiers caching
+ * the JWKS already have it. An old key stays published until the last token it signed expires.
+ * <p>
+ * Each key has a generation, one more than the key before, which is unique in the table. Nodes
+ * rotating at the same time all try to save the same generation, so only one key is saved, and the
+ * others read it on the next load.
+ * <p>
+ * Private keys are encrypted with jwt-signing.private-key-encryption-key, see SigningKeyCipher.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "jwt-signing.algorithm", havingValue = JwtSigningKey.ALGORITHM)
+public class SigningKeyStore {
+
+  private final SigningKeyRepository signingKeyRepository;
+
+  private final ObjectMapper objectMapper;
+
+  @Value("${common.jwt.expired-in-hour}")
+  private long tokenExpiredInHour;
+
+  @Value("${jwt-signing.rotation-interval-hour:168}")
+  private long rotationIntervalHour;
+
+  @Value("${jwt-signing.publish-ahead-minute:60}")
+  private long publishAheadMinute;
+
+  @Value("${jwt-signing.private-key-encryption-key:}")
+  private String privateKeyEncryptionKey;
+
+  private SigningKeyCipher cipher;
+
+  // Generation of keys.get(0)
+  private volatile long newestGeneration;
+
+  // Newest first
+  private volatile List<JwtSigningKey> keys = List.of();
+
+  private volatile Jwks jwks;
+
+  @PostConstruct
+  public void init() {
+    if (privateKeyEncryptionKey.isBlank()) {
+      throw new IllegalStateException(
+          "jwt-signing.private-key-encryption-key is required with " + JwtSigningKey.ALGORITHM);
+    }
+    cipher = new SigningKeyCipher(privateKeyEncryptionKey);
+
+    load();
+    if (keys.isEmpty()) {
+      // Nothing to overlap with yet, so it signs right away. After expired keys, if any.
+      long generation = signingKeyRepository.findTopByOrderByGenerationDesc()
+          .map(key -> key.getGeneration() + 1)
+          .orElse(0L);
+      LocalDateTime now = LocalDateTime.now();
+      save(JwtSigningKey.generate(now, expirationFrom(now)), generation);
+      load();
+    }
+  }
+
+  /**
+   * Newest key whose active time has come.
+   */
+  public JwtSigningKey activeKey() {
+    LocalDateTime now = LocalDateTime.now();
+    for (JwtSigningKey key : keys) {
+      if (!key.getActiveFrom().isAfter(now)) {
+        return key;
+      }
+    }
+    throw new IllegalStateException("No active JWT signing key.");
+  }
+
+  public PublicKey findPublicKey(String kid) {
+    for (JwtSigningKey key : keys) {
+      if (key.getKid().equals(kid)) {
+        return key.getPublicKey();
+      }
+    }
+    return null;
+  }
+
+  public Jwks jwks() {
+    return jwks;
+  }
+
+  /**
+   * Rotate when due, then reload keys. Keys made by other nodes are picked up here too.
+   */
+  @Scheduled(fixedDelayString = "${jwt-signing.refresh-interval-millis:60000}")
+  public void refresh() {
+    rotateIfDue(LocalDateTime.now());
+    load();
+  }
+
+  void rotateIfDue(LocalDateTime now) {
+    List<JwtSigningKey> current = keys;
+    if (current.isEmpty()) {
+      return;
+    }
+
+    LocalDateTime nextActiveFrom = current.get(0).getActiveFrom().plusHours(rotationIntervalHour);
+    if (now.isBefore(nextActiveFrom.minusMinutes(publishAheadMinute))) {
+      return;
+    }
+
+    if (save(JwtSigningKey.generate(nextActiveFrom, expirationFrom(nextActiveFrom)),
+        newestGeneration + 1)) {
+      log.info("JWT signing key rotation: next key active from {}", nextActiveFrom);
+    }
+  }
+
+  // Signs until the next rotation, then verifies until the last token expires.
+  private LocalDateTime expirationFrom(LocalDateTime activeFrom) {
+    return activeFrom
+        .plusHours(rotationIntervalHour)
+        .plusHours(tokenExpiredInHour)
+        .plusMinutes(publishAheadMinute);
+  }
+
+  /**
+   * false when another node saved this generation first.
+   */
+  private boolean save(JwtSigningKey key, long generation) {
+    SigningKey entity = SigningKey.builder()
+        .kid(key.getKid())
+        .algorithm(JwtSigningKey.ALGORITHM)
+        .generation(generation)
+        .privateKey(cipher.encrypt(key.getKid(), key.encodedPrivateKey()))
+        .publicKey(key.encodedPublicKey())
+        .activeFrom(key.getActiveFrom())
+        .expirationAt(key.getExpirationAt())
+        .build();
+    try {
+      signingKeyRepository.save(entity);
+      return true;
+    } catch (DataIntegrityViolationException e) {
+      log.info("JWT signing key generation {} was saved by another node", generation);
+      return false;
+    }
+  }
+
+  void load() {
+    List<SigningKey> entities = signingKeyRepository
+        .findByExpirationAtAfterOrderByActiveFromDesc(LocalDateTime.now());
+    List<JwtSigningKey> loaded = entities.stream()
+        .map(k -> JwtSigningKey.of(k.getKid(), cipher.decrypt(k.getKid(), k.getPrivateKey()),
+            k.getPublicKey(), k.getActiveFrom(), k.getExpirationAt()))
+        .toList();
+
+    newestGeneration = entities.isEmpty() ? 0 : entities.get(0).getGeneration();
+    keys = loaded;
+    jwks = Jwks.of(objectMapper, loaded);
+  }
+
+  /**
+   * JWKS document, and its ETag.
+   */
+  @Getter
+  @RequiredArgsConstructor
+  public static class Jwks {
+
+    private final String json;
+
+    private final String etag;
+
+    private static Jwks of(ObjectMapper objectMapper, List<JwtSigningKey> keys) {
+      try {
+        String json = objectMapper.writeValueAsString(
+            Map.of("keys", keys.stream().map(JwtSigningKey::toJwk).toList()));
+        byte[] digest = MessageDigest.getInstance("SHA-256")
+            .digest(json.getBytes(StandardCharsets.UTF_8));
+        return new Jwks(json, HexFormat.of().formatHex(digest, 0, 16));
+      } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,166 @@
+package com.marceldev.ourcompanylunchauth.component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import java.time.Duration;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.pool2.BasePooledObjectFactory;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+/**
+ * Connected and authenticated SMTP sessions, kept open between sends. Saves the TCP connect,
+ * STARTTLS handshake and AUTH of every email.
+ * <p>
+ * Idle sessions are checked with NOOP and closed after maxIdle. A session is also closed after
+ * maxMessagesPerConnection, as relays limit messages per connection.
+ */
+@Slf4j
+public class SmtpTransportPool {
+
+  private final GenericObjectPool<PooledTransport> pool;
+
+  private final Timer borrowTimer;
+
+  public SmtpTransportPool(JavaMailSenderImpl javaMailSender, MeterRegistry meterRegistry,
+      int maxTotal, Duration maxIdle, Duration maxWait, int maxMessagesPerConnection) {
+    GenericObjectPoolConfig<PooledTransport> config = new GenericObjectPoolConfig<>();
+    config.setMaxTotal(maxTotal);
+    config.setMaxIdle(maxTotal);
+    config.setMinIdle(0);
+    config.setMaxWait(maxWait);
+    config.setTestOnBorrow(true);
+    config.setTestWhileIdle(true);
+    config.setMinEvictableIdleDuration(maxIdle);
+    config.setTimeBetweenEvictionRuns(maxIdle.dividedBy(2));
+    config.setJmxEnabled(false);
+    this.pool = new GenericObjectPool<>(
+        new TransportFactory(javaMailSender, maxMessagesPerConnection), config);
+
+    this.borrowTimer = Timer.builder("auth.email.smtp.pool.borrow")
+        .description("Wait for an SMTP session, including connecting a new one")
+        .register(meterRegistry);
+    Gauge.builder("auth.email.smtp.pool.active", pool, GenericObjectPool::getNumActive)
+        .register(meterRegistry);
+    Gauge.builder("auth.email.smtp.pool.idle", pool, GenericObjectPool::getNumIdle)
+        .register(meterRegistry);
+    Gauge.builder("auth.email.smtp.pool.waiting", pool, GenericObjectPool::getNumWaiters)
+        .register(meterRegistry);
+    Gauge.builder("auth.email.smtp.pool.max", pool, GenericObjectPool::getMaxTotal)
+        .register(meterRegistry);
+    FunctionCounter.builder("auth.email.smtp.pool.created", pool,
+            GenericObjectPool::getCreatedCount)
+        .description("SMTP sessions connected")
+        .register(meterRegistry);
+    FunctionCounter.builder("auth.email.smtp.pool.destroyed", pool,
+            GenericObjectPool::getDestroyedCount)
+        .register(meterRegistry);
+  }
+
+  public PooledTransport borrow() {
+    long start = System.nanoTime();
+    try {
+      return pool.borrowObject();
+    } catch (Exception e) {
+      throw new MailSendException("Could not get an SMTP session", e);
+    } finally {
+      borrowTimer.record(Duration.ofNanos(System.nanoTime() - start));
+    }
+  }
+
+  public void release(PooledTransport transport) {
+    if (transport.isExhausted()) {
+      invalidate(transport);
+      return;
+    }
+    pool.returnObject(transport);
+  }
+
+  /**
+   * For a session that failed. It may be broken, so it is closed instead of reused.
+   */
+  public void invalidate(PooledTransport transport) {
+    try {
+      pool.invalidateObject(transport);
+    } catch (Exception e) {
+      log.warn("SMTP session close failed: {}", e.toString());
+    }
+  }
+
+  public void close() {
+    pool.close();
+  }
+
+  @Getter
+  public static class PooledTransport {
+
+    private final Transport transport;
+
+    private final int maxMessages;
+
+    private int sentCount;
+
+    private PooledTransport(Transport transport, int maxMessages) {
+      this.transport = transport;
+      this.maxMessages = maxMessages;
+    }
+
+    public void sent() {
+      sentCount++;
+    }
+
+    private boolean isExhausted() {
+      return sentCount >= maxMessages;
+    }
+  }
+
+  private static class TransportFactory extends BasePooledObjectFactory<PooledTransport> {
+
+    private final JavaMailSenderImpl javaMailSender;
+
+    private final int maxMessagesPerConnection;
+
+    private TransportFactory(JavaMailSenderImpl javaMailSender, int maxMessagesPerConnection) {
+      this.javaMailSender = javaMailSender;
+      this.maxMessagesPerConnection = maxMessagesPerConnection;
+    }
+
+    @Override
+    public PooledTransport create() throws MessagingException {
+      Session session = javaMailSender.getSession();
+      String protocol = javaMailSender.getProtocol() == null
+          ? "smtp" : javaMailSender.getProtocol();
+      Transport transport = session.getTransport(protocol);
+      transport.connect(javaMailSender.getHost(), javaMailSender.getPort(),
+          javaMailSender.getUsername(), javaMailSender.getPassword());
+      return new PooledTransport(transport, maxMessagesPerConnection);
+    }
+
+    @Override
+    public PooledObject<PooledTransport> wrap(PooledTransport transport) {
+      return new DefaultPooledObject<>(transport);
+    }
+
+    // SMTPTransport.isConnected() sends a NOOP, so a session the relay dropped fails here.
+    @Override
+    public boolean validateObject(PooledObject<PooledTransport> pooledObject) {
+      return pooledObject.getObject().getTransport().isConnected();
+    }
+
+    @Override
+    public void destroyObject(PooledObject<PooledTransport> pooledObject)
+        throws MessagingException {
+      pooledObject.getObject().getTransport().close();
+    }
+  }
+}
@@ -0,0 +1,333 @@
+package com.marceldev.ourcompanylunchauth.component;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.marceldev.ourcompanylunchauth.entity.RevokedToken;
+import com.marceldev.ourcompanylunchauth.entity.UserTokenRevocation;
+import com.marceldev.ourcompanylunchauth.repository.RefreshTokenRepository;
+import com.marceldev.ourcompanylunchauth.repository.RevokedTokenRepository;
+import com.marceldev.ourcompanylunchauth.repository.UserTokenRevocationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Revoked tokens, kept in memory so a request can be checked without a DB round trip.
+ * <p>
+ * A token is revoked by its jti, or with every token of a user issued before a "not before" time.
+ * Revoking a user revokes the user's refresh tokens too, or one refresh would mint a valid token.
+ * Both are saved to the DB first, and put in memory once that commits, so a rolled back
+ * revocation doesn't revoke anything on this node. Revocations from other nodes are picked up
+ * every sync interval. Entries are dropped once the tokens they cover would have expired anyway.
+ * <p>
+ * Almost every token is not revoked, so jtis go through a Bloom filter first. Only a "might
+ * contain" goes on to the exact set.
+ */
+@Slf4j
+@Component
+public class TokenRevocationRegistry {
+
+  private static final int PAGE_SIZE = 1000;
+
+  private static final long MIN_EXPECTED_INSERTIONS = 10_000;
+
+  private static final double FALSE_POSITIVE_RATE = 0.001;
+
+  private final RevokedTokenRepository revokedTokenRepository;
+
+  private final UserTokenRevocationRepository userTokenRevocationRepository;
+
+  private final RefreshTokenRepository refreshTokenRepository;
+
+  private final long tokenLifetimeSecond;
+
+  private final Counter revokedCounter;
+
+  private final Counter bloomRejectCounter;
+
+  private final Counter falsePositiveCounter;
+
+  // Not synchronized. A virtual thread holding a monitor through the DB load would pin its carrier.
+  private final ReentrantLock loadLock = new ReentrantLock();
+
+  private volatile Snapshot snapshot = Snapshot.empty(MIN_EXPECTED_INSERTIONS);
+
+  private volatile long lastRevokedTokenId;
+
+  private volatile long lastUserTokenRevocationId;
+
+  public TokenRevocationRegistry(
+      RevokedTokenRepository revokedTokenRepository,
+      UserTokenRevocationRepository userTokenRevocationRepository,
+      RefreshTokenRepository refreshTokenRepository,
+      MeterRegistry meterRegistry,
+      @Value("${common.jwt.expired-in-hour}") long expiredInHour
+  ) {
+    this.revokedTokenRepository = revokedTokenRepository;
+    this.userTokenRevocationRepository = userTokenRevocationRepository;
+    this.refreshTokenRepository = refreshTokenRepository;
+    this.tokenLifetimeSecond = expiredInHour * 60 * 60;
+    this.revokedCounter = lookupCounter(meterRegistry, "revoked");
+    this.bloomRejectCounter = lookupCounter(meterRegistry, "bloom-reject");
+    this.falsePositiveCounter = lookupCounter(meterRegistry, "false-positive");
+    Gauge.builder("auth.token.revocation.tokens", this, r -> r.snapshot.jtis.size())
+        .register(meterRegistry);
+    Gauge.builder("auth.token.revocation.users", this, r -> r.snapshot.notBefores.size())
+        .register(meterRegistry);
+  }
+
+  @PostConstruct
+  public void init() {
+    reload();
+  }
+
+  /**
+   * @param jti      jti claim, may be null for tokens minted before it was added
+   * @param email    sub claim
+   * @param issuedAt iat claim in epoch seconds
+   */
+  public boolean isRevoked(String jti, String email, long issuedAt) {
+    Snapshot current = snapshot;
+    long now = nowSecond();
+
+    Long notBefore = email == null ? null : current.notBefores.get(normalize(email));
+    if (notBefore != null && issuedAt < notBefore) {
+      revokedCounter.increment();
+      return true;
+    }
+
+    if (jti == null) {
+      return false;
+    }
+    if (!current.bloomFilter.mightContain(jti)) {
+      bloomRejectCounter.increment();
+      return false;
+    }
+    Long expiration = current.jtis.get(jti);
+    if (expiration == null || expiration < now) {
+      falsePositiveCounter.increment();
+      return false;
+    }
+    revokedCounter.increment();
+    return true;
+  }
+
+  /**
+   * Revoke a single token.
+   */
+  @Transactional
+  public void revoke(String jti) {
+    LocalDateTime now = LocalDateTime.now();
+    RevokedToken revokedToken = RevokedToken.builder()
+        .jti(jti)
+        .expirationAt(now.plusSeconds(tokenLifetimeSecond))
+        .build();
+    revokedTokenRepository.save(revokedToken);
+    long expiration = toSecond(revokedToken.getExpirationAt());
+    afterCommit(() -> snapshot.putJti(jti, expiration));
+    log.info("Token revoked: jti={}", jti);
+  }
+
+  /**
+   * Revoke every token and refresh token of the user issued until now. Tokens issued from the next
+   * second on are valid, so the user can sign in again right away.
+   */
+  @Transactional
+  public void revokeUser(String email) {
+    LocalDateTime now = LocalDateTime.now();
+    refreshTokenRepository.revokeAllByEmail(email, now);
+    UserTokenRevocation revocation = UserTokenRevocation.builder()
+        .email(email)
+        .notBefore(now)
+        .expirationAt(now.plusSeconds(tokenLifetimeSecond))
+        .build();
+    userTokenRevocationRepository.save(revocation);
+    long notBefore = notBeforeSecond(revocation.getNotBefore());
+    afterCommit(() -> snapshot.putNotBefore(normalize(email), notBefore));
+    log.info("All tokens of the user revoked: {}", email);
+  }
+
+  /**
+   * Load revocations from other nodes, saved after the last sync.
+   */
+  @Scheduled(fixedDelayString = "${token-revocation.sync-interval-millis:2000}")
+  public void sync() {
+    loadLock.lock();
+    try {
+      load(snapshot);
+    } finally {
+      loadLock.unlock();
+    }
+  }
+
+  /**
+   * Rebuild from the DB, without expired entries. The Bloom filter can't remove entries, so this is
+   * how it stays small.
+   */
+  @Scheduled(fixedDelayString = "${token-revocation.reload-interval-millis:60000}",
+      initialDelayString = "${token-revocation.reload-interval-millis:60000}")
+  public void reload() {
+    loadLock.lock();
+    try {
+      long expectedInsertions = Math.max(MIN_EXPECTED_INSERTIONS,
+          revokedTokenRepository.count() * 2);
+      Snapshot next = Snapshot.empty(expectedInsertions);
+      long previousRevokedTokenId = lastRevokedTokenId;
+      long previousUserTokenRevocationId = lastUserTokenRevocationId;
+      lastRevokedTokenId = 0;
+      lastUserTokenRevocationId = 0;
+      try {
+        load(next);
+      } catch (RuntimeException e) {
+        // Keep syncing the current snapshot from where it was
+        lastRevokedTokenId = previousRevokedTokenId;
+        lastUserTokenRevocationId = previousUserTokenRevocationId;
+        throw e;
+      }
+
+      // Revoked on this node while loading. Already in the DB, so the next sync has them anyway.
+      Snapshot previous = snapshot;
+      long now = nowSecond();
+      previous.jtis.forEach((jti, expiration) -> {
+        if (expiration >= now) {
+          next.putJti(jti, expiration);
+        }
+      });
+      previous.notBefores.forEach((email, notBefore) -> {
+        if (notBefore + tokenLifetimeSecond >= now) {
+          next.putNotBefore(email, notBefore);
+        }
+      });
+      snapshot = next;
+    } finally {
+      loadLock.unlock();
+    }
+  }
+
+  @Transactional
+  @Scheduled(cron = "${scheduler.clear-revoked-token.cron:0 40 3 * * *}")
+  public void clearExpiredRevocations() {
+    LocalDateTime now = LocalDateTime.now();
+    int tokenRows = revokedTokenRepository.deleteAllExpiredRevokedToken(now);
+    int userRows = userTokenRevocationRepository.deleteAllExpiredUserTokenRevocation(now);
+    log.info("Revoked token clear: {} tokens, {} users deleted", tokenRows, userRows);
+  }
+
+  public Map<String, Object> status() {
+    Snapshot current = snapshot;
+    Map<String, Object> status = new LinkedHashMap<>();
+    status.put("revokedTokens", current.jtis.size());
+    status.put("revokedUsers", current.notBefores.size());
+    status.put("bloomExpectedFpp", current.bloomFilter.expectedFpp());
+    status.put("lastRevokedTokenId", lastRevokedTokenId);
+    status.put("lastUserTokenRevocationId", lastUserTokenRevocationId);
+    return status;
+  }
+
+  private void load(Snapshot target) {
+    LocalDateTime now = LocalDateTime.now();
+    PageRequest page = PageRequest.of(0, PAGE_SIZE);
+
+    List<RevokedToken> tokens;
+    do {
+      tokens = revokedTokenRepository.findByIdGreaterThanAndExpirationAtAfterOrderByIdAsc(
+          lastRevokedTokenId, now, page);
+      for (RevokedToken token : tokens) {
+        target.putJti(token.getJti(), toSecond(token.getExpirationAt()));
+        lastRevokedTokenId = token.getId();
+      }
+    } while (tokens.size() == PAGE_SIZE);
+
+    List<UserTokenRevocation> revocations;
+    do {
+      revocations = userTokenRevocationRepository.findByIdGreaterThanAndExpirationAtAfterOrderByIdAsc(
+          lastUserTokenRevocationId, now, page);
+      for (UserTokenRevocation revocation : revocations) {
+        target.putNotBefore(normalize(revocation.getEmail()),
+            notBeforeSecond(revocation.getNotBefore()));
+        lastUserTokenRevocationId = revocation.getId();
+      }
+    } while (revocations.size() == PAGE_SIZE);
+  }
+
+  // Read the snapshot on commit, not now. A reload may swap it in between.
+  private static void afterCommit(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        action.run();
+      }
+    });
+  }
+
+  // iat has no fraction. A token issued in the same second as the revocation is revoked too.
+  private static long notBeforeSecond(LocalDateTime notBefore) {
+    return toSecond(notBefore) + 1;
+  }
+
+  private static long toSecond(LocalDateTime localDateTime) {
+    return localDateTime.atZone(ZoneId.systemDefault()).toEpochSecond();
+  }
+
+  private static long nowSecond() {
+    return System.currentTimeMillis() / 1000;
+  }
+
+  // MariaDB compares emails case-insensitively
+  private static String normalize(String email) {
+    return email.toLowerCase(Locale.ROOT);
+  }
+
+  private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+    return Counter.builder("auth.token.revocation.lookup")
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+
+  private record Snapshot(
+      BloomFilter<String> bloomFilter,
+      Map<String, Long> jtis,
+      Map<String, Long> notBefores
+  ) {
+
+    private static Snapshot empty(long expectedInsertions) {
+      return new Snapshot(
+          BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), expectedInsertions,
+              FALSE_POSITIVE_RATE),
+          new ConcurrentHashMap<>(),
+          new ConcurrentHashMap<>());
+    }
+
+    // Exact set first, so a Bloom filter hit always finds the entry
+    private void putJti(String jti, long expiration) {
+      jtis.merge(jti, expiration, Math::max);
+      bloomFilter.put(jti);
+    }
+
+    private void putNotBefore(String email, long notBefore) {
+      notBefores.merge(email, notBefore, Math::max);
+    }
+  }
+}
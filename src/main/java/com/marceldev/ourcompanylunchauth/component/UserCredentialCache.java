@@ -0,0 +1,117 @@
+package com.marceldev.ourcompanylunchauth.component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.marceldev.ourcompanylunchauth.model.UserCredential;
+import com.marceldev.ourcompanylunchauth.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caches credentials by email, so a returning user signs in without a DB read.
+ * <p>
+ * Invalidated on sign up and when the password or role changes on this node. Changes on other
+ * nodes are seen after the TTL at the latest. Unknown emails aren't cached, RegisteredEmailFilter
+ * handles those.
+ * <p>
+ * With datasource routing on, a load reads the replica. A user signed up within the replica's lag
+ * isn't there yet, so a miss is read again on the primary.
+ */
+@Component
+public class UserCredentialCache {
+
+  private final UserRepository userRepository;
+
+  private final boolean retryOnPrimary;
+
+  private final Cache<String, UserCredential> cache;
+
+  private final Timer foundTimer;
+
+  private final Timer notFoundTimer;
+
+  // Counts invalidations. A load that saw one happen while it read the DB may hold the old value.
+  private final AtomicLong invalidations = new AtomicLong();
+
+  public UserCredentialCache(
+      UserRepository userRepository,
+      MeterRegistry meterRegistry,
+      @Value("${user-credential-cache.maximum-size:100000}") long maximumSize,
+      @Value("${user-credential-cache.expire-after-write-second:600}") long expireAfterWriteSecond,
+      @Value("${datasource-routing.enabled:false}") boolean retryOnPrimary
+  ) {
+    this.userRepository = userRepository;
+    this.retryOnPrimary = retryOnPrimary;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSecond))
+        .recordStats()
+        .build();
+
+    // cache.gets{result=hit|miss}, cache.evictions, cache.size ... tagged with cache=userCredential
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "userCredential");
+    this.foundTimer = loadTimer(meterRegistry, "success");
+    this.notFoundTimer = loadTimer(meterRegistry, "not-found");
+  }
+
+  /**
+   * Loaded outside the cache. Cache.get(key, loader) runs the loader inside a synchronized block of
+   * the map, which would pin a virtual thread for the whole DB read.
+   * <p>
+   * So a load and its put aren't atomic. When an invalidation came in during the load, the loaded
+   * value is taken out again, as it may be from before the change.
+   */
+  public Optional<UserCredential> get(String email) {
+    String key = normalize(email);
+    UserCredential cached = cache.getIfPresent(key);
+    if (cached != null) {
+      return Optional.of(cached);
+    }
+
+    long generation = invalidations.get();
+    long start = System.nanoTime();
+    Optional<UserCredential> loaded = userRepository.findCredentialByEmail(email);
+    if (loaded.isEmpty() && retryOnPrimary) {
+      loaded = userRepository.findCredentialByEmailOnPrimary(email);
+    }
+    (loaded.isPresent() ? foundTimer : notFoundTimer)
+        .record(Duration.ofNanos(System.nanoTime() - start));
+    if (loaded.isPresent()) {
+      cache.put(key, loaded.get());
+      // Checked after the put, so an invalidation either sees the value or changes the count
+      if (invalidations.get() != generation) {
+        cache.invalidate(key);
+      }
+    }
+    return loaded;
+  }
+
+  public void invalidate(String email) {
+    invalidations.incrementAndGet();
+    cache.invalidate(normalize(email));
+  }
+
+  public void invalidateAll() {
+    invalidations.incrementAndGet();
+    cache.invalidateAll();
+  }
+
+  private static Timer loadTimer(MeterRegistry meterRegistry, String outcome) {
+    return Timer.builder("auth.user.credential.load")
+        .description("DB load on a cache miss")
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+
+  // MariaDB compares emails case-insensitively
+  private static String normalize(String email) {
+    return email.toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,157 @@
+package com.marceldev.ourcompanylunchauth.component;
+
+import com.marceldev.ourcompanylunchauth.jfr.VerificationCleanupEvent;
+import com.marceldev.ourcompanylunchauth.store.VerificationStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deletes expired verification codes a small batch at a time, instead of all at once.
+ * <p>
+ * One batch per call, every pause-millis, until a batch comes back short. Then it waits idle-millis
+ * before the next run. The scheduler thread is shared, so it never sleeps between batches.
+ * <p>
+ * The batch size follows the delete time: halved when a batch is slower than target-batch-millis,
+ * grown when it is well under. Every node may run this. The ids are read with FOR UPDATE SKIP
+ * LOCKED, so each node takes rows no other node is deleting.
+ */
+@Slf4j
+@Component
+public class VerificationCodeCleaner {
+
+  private final VerificationStore verificationStore;
+
+  private final long idleMillis;
+
+  private final int minBatchSize;
+
+  private final int maxBatchSize;
+
+  private final long targetBatchMillis;
+
+  private final AtomicInteger batchSize;
+
+  private final AtomicLong lagSecond = new AtomicLong();
+
+  private final Counter deletedCounter;
+
+  private final DistributionSummary runRows;
+
+  private final Timer batchTimer;
+
+  private long nextRunAtMillis;
+
+  private int rowsInRun;
+
+  private boolean running;
+
+  public VerificationCodeCleaner(
+      VerificationStore verificationStore,
+      MeterRegistry meterRegistry,
+      @Value("${verification-cleaner.idle-millis:10000}") long idleMillis,
+      @Value("${verification-cleaner.min-batch-size:50}") int minBatchSize,
+      @Value("${verification-cleaner.max-batch-size:2000}") int maxBatchSize,
+      @Value("${verification-cleaner.target-batch-millis:50}") long targetBatchMillis
+  ) {
+    this.verificationStore = verificationStore;
+    this.idleMillis = idleMillis;
+    this.minBatchSize = minBatchSize;
+    this.maxBatchSize = maxBatchSize;
+    this.targetBatchMillis = targetBatchMillis;
+    this.batchSize = new AtomicInteger(minBatchSize);
+
+    this.deletedCounter = Counter.builder("auth.verification.cleaner.deleted")
+        .description("Expired verification codes deleted")
+        .register(meterRegistry);
+    this.runRows = DistributionSummary.builder("auth.verification.cleaner.run.rows")
+        .description("Expired verification codes deleted per run")
+        .register(meterRegistry);
+    this.batchTimer = Timer.builder("auth.verification.cleaner.batch")
+        .description("Time to delete one batch")
+        .register(meterRegistry);
+    Gauge.builder("auth.verification.cleaner.batch.size", batchSize, AtomicInteger::get)
+        .description("Rows deleted per batch at most, adapted to the delete time")
+        .register(meterRegistry);
+    Gauge.builder("auth.verification.cleaner.lag", lagSecond, AtomicLong::get)
+        .description("How long the oldest expired verification code has been waiting for delete")
+        .baseUnit("seconds")
+        .register(meterRegistry);
+  }
+
+  @Scheduled(fixedDelayString = "${verification-cleaner.pause-millis:200}")
+  public void clean() {
+    if (!running && System.currentTimeMillis() < nextRunAtMillis) {
+      return;
+    }
+    running = true;
+
+    LocalDateTime now = LocalDateTime.now();
+    int limit = batchSize.get();
+    int rows;
+    VerificationCleanupEvent event = new VerificationCleanupEvent();
+    event.begin();
+    event.batchSize = limit;
+    long start = System.nanoTime();
+    try {
+      rows = verificationStore.deleteExpired(now, limit);
+    } catch (DataAccessException e) {
+      event.outcome = "error";
+      event.commit();
+      // Lock wait timeout and such. Smaller batches hold fewer locks.
+      batchSize.set(Math.max(minBatchSize, limit / 2));
+      log.warn("Verification code clear failed, batch size {}: {}", batchSize.get(), e.toString());
+      endRun();
+      return;
+    }
+    long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+    event.rows = rows;
+    event.outcome = "success";
+    event.commit();
+    batchTimer.record(Duration.ofMillis(elapsedMillis));
+    deletedCounter.increment(rows);
+    rowsInRun += rows;
+    adaptBatchSize(limit, rows, elapsedMillis);
+    updateLag(now);
+
+    if (rows < limit) {
+      endRun();
+    }
+  }
+
+  private void adaptBatchSize(int limit, int rows, long elapsedMillis) {
+    if (elapsedMillis > targetBatchMillis) {
+      batchSize.set(Math.max(minBatchSize, limit / 2));
+    } else if (rows == limit && elapsedMillis < targetBatchMillis / 2) {
+      batchSize.set(Math.min(maxBatchSize, limit + Math.max(1, limit / 4)));
+    }
+  }
+
+  private void updateLag(LocalDateTime now) {
+    lagSecond.set(verificationStore.findOldestExpirationAt()
+        .filter(oldest -> oldest.isBefore(now))
+        .map(oldest -> Duration.between(oldest, now).toSeconds())
+        .orElse(0L));
+  }
+
+  private void endRun() {
+    if (rowsInRun > 0) {
+      log.info("Verification code clear: {} rows deleted", rowsInRun);
+    }
+    runRows.record(rowsInRun);
+    rowsInRun = 0;
+    running = false;
+    nextRunAtMillis = System.currentTimeMillis() + idleMillis;
+  }
+}
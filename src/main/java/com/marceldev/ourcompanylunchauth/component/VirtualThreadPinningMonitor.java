@@ -0,0 +1,100 @@
+package com.marceldev.ourcompanylunchauth.component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports virtual threads pinned to their carrier, from the JFR jdk.VirtualThreadPinned event. A
+ * pinned virtual thread blocks its carrier, like a platform thread would, usually because it blocked
+ * inside a synchronized block.
+ * <p>
+ * Counted as auth.virtual.thread.pinned, tagged with the first frame outside the JDK.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+  private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+  private static final int LOGGED_FRAME_COUNT = 8;
+
+  private final MeterRegistry meterRegistry;
+
+  private final Duration threshold;
+
+  private RecordingStream recordingStream;
+
+  public VirtualThreadPinningMonitor(
+      MeterRegistry meterRegistry,
+      @Value("${virtual-thread.pinned-threshold-millis:20}") long thresholdMillis
+  ) {
+    this.meterRegistry = meterRegistry;
+    this.threshold = Duration.ofMillis(thresholdMillis);
+  }
+
+  @PostConstruct
+  public void start() {
+    recordingStream = new RecordingStream();
+    recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+    recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+    recordingStream.startAsync();
+    log.info("Virtual thread pinning monitor started: threshold={}ms", threshold.toMillis());
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (recordingStream != null) {
+      recordingStream.close();
+    }
+  }
+
+  private void onPinned(RecordedEvent event) {
+    RecordedStackTrace stackTrace = event.getStackTrace();
+    List<RecordedFrame> frames = stackTrace == null ? List.of() : stackTrace.getFrames();
+
+    Counter.builder("auth.virtual.thread.pinned")
+        .description("Virtual threads pinned to the carrier longer than the threshold")
+        .tag("frame", firstApplicationFrame(frames))
+        .register(meterRegistry)
+        .increment();
+
+    StringBuilder trace = new StringBuilder();
+    frames.stream()
+        .limit(LOGGED_FRAME_COUNT)
+        .forEach(frame -> trace.append("\n\tat ").append(describe(frame)));
+    log.warn("Virtual thread pinned for {}ms{}", event.getDuration().toMillis(), trace);
+  }
+
+  // The JDK frames are the same for every pin (park, LockSupport ...). The caller is what differs.
+  private static String firstApplicationFrame(List<RecordedFrame> frames) {
+    return frames.stream()
+        .filter(RecordedFrame::isJavaFrame)
+        .filter(frame -> !isJdkFrame(frame))
+        .findFirst()
+        .map(VirtualThreadPinningMonitor::describe)
+        .orElse("unknown");
+  }
+
+  private static boolean isJdkFrame(RecordedFrame frame) {
+    String className = frame.getMethod().getType().getName();
+    return className.startsWith("java.") || className.startsWith("jdk.")
+        || className.startsWith("sun.");
+  }
+
+  private static String describe(RecordedFrame frame) {
+    return frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+  }
+}
@@ -1,21 +1,83 @@
 package com.marceldev.ourcompanylunchauth.config;
 
+import com.marceldev.ourcompanylunchauth.util.BCryptStrengthCalibrator;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.client.RestTemplate;
 
+@Slf4j
 @Configuration
 public class AppConfig {
 
+  private static final String BCRYPT_ID = "bcrypt";
+
+  /**
+   * Hashes are saved with an algorithm prefix like "{bcrypt}$2a$12$...". Hashes saved before the
+   * prefix was introduced are still matched as BCrypt, and get upgraded on the next sign in.
+   *
+   * <p>Calibration picks the strength per host, so it is off unless configured. Nodes on different
+   * hardware would otherwise hash with different strengths, and the stronger ones would rehash
+   * every user the weaker ones hashed.
+   */
   @Bean
-  public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+  public PasswordEncoder passwordEncoder(
+      @Value("${password-hash.strength:10}") int strength,
+      @Value("${password-hash.calibration.enabled:false}") boolean calibrationEnabled,
+      @Value("${password-hash.calibration.target-millis:250}") long targetMillis,
+      @Value("${password-hash.calibration.min-strength:10}") int minStrength,
+      @Value("${password-hash.calibration.max-strength:14}") int maxStrength
+  ) {
+    int bcryptStrength = strength;
+    if (calibrationEnabled) {
+      bcryptStrength = BCryptStrengthCalibrator.calibrate(
+          Duration.ofMillis(targetMillis), minStrength, maxStrength);
+      log.info("BCrypt strength calibrated to {} for target {}ms", bcryptStrength, targetMillis);
+    }
+
+    DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(
+        BCRYPT_ID,
+        Map.of(BCRYPT_ID, new BCryptPasswordEncoder(bcryptStrength))
+    );
+    passwordEncoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+    return passwordEncoder;
   }
 
+  /**
+   * java.net.http client instead of HttpURLConnection, which blocks inside synchronized blocks and
+   * would pin virtual threads. It keeps connections alive and reuses them, and HTTP_2 multiplexes
+   * calls over one connection.
+   */
   @Bean
-  public RestTemplate restTemplate() {
-    return new RestTemplate();
+  public RestTemplate restTemplate(
+      RestTemplateBuilder restTemplateBuilder,
+      @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreadsEnabled,
+      @Value("${business-server.connect-timeout-millis:2000}") long connectTimeoutMillis,
+      @Value("${business-server.read-timeout-millis:5000}") long readTimeoutMillis,
+      @Value("${business-server.http-version:HTTP_1_1}") HttpClient.Version httpVersion
+  ) {
+    HttpClient.Builder httpClientBuilder = HttpClient.newBuilder()
+        .version(httpVersion)
+        .connectTimeout(Duration.ofMillis(connectTimeoutMillis));
+    if (virtualThreadsEnabled) {
+      httpClientBuilder.executor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    JdkClientHttpRequestFactory requestFactory =
+        new JdkClientHttpRequestFactory(httpClientBuilder.build());
+    requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMillis));
+    return restTemplateBuilder
+        .requestFactory(() -> requestFactory)
+        .build();
   }
 }
@@ -0,0 +1,75 @@
+package com.marceldev.ourcompanylunchauth.config;
+
+import com.marceldev.ourcompanylunchauth.component.ReplicaLagMonitor;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * A primary and a replica pool, with read-only transactions on the replica. Only with
+ * datasource-routing.enabled. Otherwise Spring Boot makes the one pool from spring.datasource.
+ * <p>
+ * Each pool is a HikariDataSource bean, so each has its own hikaricp.* meters, tagged with the pool
+ * name. Flyway migrates the primary directly.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource-routing.enabled", havingValue = "true")
+public class DataSourceConfig {
+
+  @Bean
+  @FlywayDataSource
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+    HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+        .type(HikariDataSource.class)
+        .build();
+    dataSource.setPoolName("primary");
+    return dataSource;
+  }
+
+  @Bean
+  @ConfigurationProperties("datasource-routing.replica.hikari")
+  public HikariDataSource replicaDataSource(
+      DataSourceProperties properties,
+      @Value("${datasource-routing.replica.url}") String url,
+      @Value("${datasource-routing.replica.username:${spring.datasource.username}}") String username,
+      @Value("${datasource-routing.replica.password:${spring.datasource.password}}") String password
+  ) {
+    HikariDataSource dataSource = DataSourceBuilder.create()
+        .type(HikariDataSource.class)
+        .driverClassName(properties.determineDriverClassName())
+        .url(url)
+        .username(username)
+        .password(password)
+        .build();
+    dataSource.setPoolName("replica");
+    dataSource.setReadOnly(true);
+    return dataSource;
+  }
+
+  /**
+   * The one JPA and JdbcTemplate use.
+   */
+  @Bean
+  @Primary
+  public DataSource dataSource(
+      @Qualifier("primaryDataSource") DataSource primaryDataSource,
+      @Qualifier("replicaDataSource") DataSource replicaDataSource,
+      ReplicaLagMonitor replicaLagMonitor,
+      MeterRegistry meterRegistry
+  ) {
+    return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primaryDataSource,
+        replicaDataSource, replicaLagMonitor::isReplicaUsable, meterRegistry));
+  }
+}
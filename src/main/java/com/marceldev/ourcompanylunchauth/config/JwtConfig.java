@@ -0,0 +1,47 @@
+package com.marceldev.ourcompanylunchauth.config;
+
+import com.marceldev.ourcompanylunchauth.component.JwtMinter;
+import com.marceldev.ourcompanylunchauth.component.JwtVerifier;
+import com.marceldev.ourcompanylunchauth.component.SigningKeyStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * jwt-signing.algorithm: HS signs with common.jwt.secret. ES256 signs with rotating keys from
+ * SigningKeyStore, published at /.well-known/jwks.json.
+ */
+@Configuration
+public class JwtConfig {
+
+  @Bean
+  public JwtMinter jwtMinter(
+      @Value("${common.jwt.secret}") String secret,
+      @Value("${common.jwt.expired-in-hour}") long expiredInHour,
+      ObjectProvider<SigningKeyStore> signingKeyStore,
+      MeterRegistry meterRegistry
+  ) {
+    SigningKeyStore store = signingKeyStore.getIfAvailable();
+    return new JwtMinter(secret, expiredInHour, store == null ? null : store::activeKey,
+        meterRegistry);
+  }
+
+  /**
+   * jwt-signing.accept-hs: false rejects HMAC tokens in ES256 mode. With HS signing they are always
+   * accepted.
+   */
+  @Bean
+  public JwtVerifier jwtVerifier(
+      @Value("${common.jwt.secret}") String secret,
+      @Value("${jwt-signing.accept-hs:true}") boolean acceptHs,
+      ObjectProvider<SigningKeyStore> signingKeyStore
+  ) {
+    SigningKeyStore store = signingKeyStore.getIfAvailable();
+    if (store == null) {
+      return new JwtVerifier(secret, null);
+    }
+    return new JwtVerifier(secret, store::findPublicKey, acceptHs);
+  }
+}
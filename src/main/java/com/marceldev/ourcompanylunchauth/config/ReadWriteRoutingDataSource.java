@@ -0,0 +1,67 @@
+package com.marceldev.ourcompanylunchauth.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Connections of read-only transactions come from the replica, others from the primary. While
+ * replicaUsable is false, read-only transactions go to the primary too.
+ * <p>
+ * Has to be behind LazyConnectionDataSourceProxy. The transaction manager takes a connection
+ * before the transaction is marked read-only, and the proxy defers the real one to the first
+ * statement.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+  private static final String PRIMARY = "primary";
+
+  private static final String REPLICA = "replica";
+
+  private final BooleanSupplier replicaUsable;
+
+  private final Counter primaryCounter;
+
+  private final Counter replicaCounter;
+
+  private final Counter fallbackCounter;
+
+  public ReadWriteRoutingDataSource(DataSource primary, DataSource replica,
+      BooleanSupplier replicaUsable, MeterRegistry meterRegistry) {
+    this.replicaUsable = replicaUsable;
+    setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+    setDefaultTargetDataSource(primary);
+    setLenientFallback(false);
+    afterPropertiesSet();
+
+    this.primaryCounter = routeCounter(meterRegistry, PRIMARY);
+    this.replicaCounter = routeCounter(meterRegistry, REPLICA);
+    this.fallbackCounter = routeCounter(meterRegistry, "fallback");
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      primaryCounter.increment();
+      return PRIMARY;
+    }
+    if (!replicaUsable.getAsBoolean()) {
+      fallbackCounter.increment();
+      return PRIMARY;
+    }
+    replicaCounter.increment();
+    return REPLICA;
+  }
+
+  private static Counter routeCounter(MeterRegistry meterRegistry, String route) {
+    return Counter.builder("auth.datasource.route")
+        .description("Connections taken, by the pool they came from. fallback is a read-only "
+            + "transaction sent to the primary, as the replica was behind")
+        .tag("route", route)
+        .register(meterRegistry);
+  }
+}
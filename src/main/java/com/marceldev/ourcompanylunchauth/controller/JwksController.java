@@ -0,0 +1,48 @@
+package com.marceldev.ourcompanylunchauth.controller;
+
+import com.marceldev.ourcompanylunchauth.component.SigningKeyStore;
+import com.marceldev.ourcompanylunchauth.component.SigningKeyStore.Jwks;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.time.Duration;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+@Tag(name = "2 Key")
+public class JwksController {
+
+  private static final String EMPTY_JWKS = "{\"keys\":[]}";
+
+  private final ObjectProvider<SigningKeyStore> signingKeyStore;
+
+  @Value("${jwt-signing.jwks-max-age-second:600}")
+  private long jwksMaxAgeSecond;
+
+  @Operation(
+      summary = "Public keys to verify tokens (JWKS).",
+      description = "Empty when tokens are signed with HMAC.<br>"
+          + "Supports If-None-Match. Cache it for the max-age."
+  )
+  @GetMapping("/.well-known/jwks.json")
+  public ResponseEntity<String> jwks() {
+    SigningKeyStore store = signingKeyStore.getIfAvailable();
+    Jwks jwks = store == null ? null : store.jwks();
+    String json = jwks == null ? EMPTY_JWKS : jwks.getJson();
+    String etag = jwks == null ? "empty" : jwks.getEtag();
+
+    // 304 is returned for a matching If-None-Match, by the ETag on the response.
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_JSON)
+        .cacheControl(CacheControl.maxAge(Duration.ofSeconds(jwksMaxAgeSecond)).cachePublic())
+        .eTag(etag)
+        .body(json);
+  }
+}
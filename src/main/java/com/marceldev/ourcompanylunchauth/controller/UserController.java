@@ -1,12 +1,20 @@
 package com.marceldev.ourcompanylunchauth.controller;
 
+import com.marceldev.ourcompanylunchauth.component.AuthRateLimiter;
+import com.marceldev.ourcompanylunchauth.dto.RefreshTokenRequest;
 import com.marceldev.ourcompanylunchauth.dto.SendVerificationCodeRequest;
 import com.marceldev.ourcompanylunchauth.dto.SignInRequest;
 import com.marceldev.ourcompanylunchauth.dto.SignUpRequest;
+import com.marceldev.ourcompanylunchauth.dto.SignUpStatusResponse;
+import com.marceldev.ourcompanylunchauth.dto.TokenIntrospectRequest;
+import com.marceldev.ourcompanylunchauth.dto.TokenIntrospectResponse;
 import com.marceldev.ourcompanylunchauth.dto.TokenResponse;
 import com.marceldev.ourcompanylunchauth.exception.AlreadyExistUserException;
 import com.marceldev.ourcompanylunchauth.exception.ErrorResponse;
 import com.marceldev.ourcompanylunchauth.exception.IncorrectPasswordException;
+import com.marceldev.ourcompanylunchauth.exception.InvalidRefreshTokenException;
+import com.marceldev.ourcompanylunchauth.exception.InvalidTokenException;
+import com.marceldev.ourcompanylunchauth.exception.RefreshTokenReuseException;
 import com.marceldev.ourcompanylunchauth.exception.SignInFailException;
 import com.marceldev.ourcompanylunchauth.exception.VerificationCodeNotFoundException;
 import com.marceldev.ourcompanylunchauth.service.UserService;
@@ -15,12 +23,16 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -28,8 +40,12 @@ import org.springframework.web.bind.annotation.RestController;
 @Tag(name = "1 User")
 public class UserController {
 
+  private static final String BEARER_PREFIX = "Bearer ";
+
   private final UserService userService;
 
+  private final AuthRateLimiter authRateLimiter;
+
   @Operation(
       summary = "Sign Up.",
       description = "Require email and password.<br>"
@@ -38,7 +54,8 @@ public class UserController {
   @ApiResponses({
       @ApiResponse(responseCode = "200", description = "OK"),
       @ApiResponse(responseCode = "400", description = "errorCode: 1001 - Already exist user", content = @Content),
-      @ApiResponse(responseCode = "400", description = "errorCode: 1002 - Verification code error", content = @Content)
+      @ApiResponse(responseCode = "400", description = "errorCode: 1002 - Verification code error", content = @Content),
+      @ApiResponse(responseCode = "503", description = "errorCode: 9001 - Server is busy. Retry after Retry-After seconds", content = @Content)
   })
   @PostMapping("/users/signup")
   public ResponseEntity<Void> signUp(
@@ -48,6 +65,25 @@ public class UserController {
     return ResponseEntity.ok().build();
   }
 
+  @Operation(
+      summary = "Sign up status.",
+      description = "Whether the user profile is made on business server.<br>"
+          + "PENDING right after sign up, then COMPLETED or FAILED."
+  )
+  @ApiResponses({
+      @ApiResponse(responseCode = "200", description = "OK"),
+      @ApiResponse(responseCode = "400", description = "errorCode: 1008 - Invalid token", content = @Content)
+  })
+  @GetMapping("/users/signup/status")
+  public ResponseEntity<SignUpStatusResponse> getSignUpStatus(
+      @RequestHeader(name = HttpHeaders.AUTHORIZATION, required = false) String authorization
+  ) {
+    String token = authorization != null && authorization.startsWith(BEARER_PREFIX)
+        ? authorization.substring(BEARER_PREFIX.length()) : "";
+    SignUpStatusResponse response = userService.getSignUpStatus(token);
+    return ResponseEntity.ok(response);
+  }
+
   @Operation(
       summary = "Sign In.",
       description = "Require email and password."
@@ -55,23 +91,64 @@ public class UserController {
   @ApiResponses({
       @ApiResponse(responseCode = "200", description = "OK"),
       @ApiResponse(responseCode = "400", description = "errorCode: 1003 - Incorrect password", content = @Content),
-      @ApiResponse(responseCode = "400", description = "errorCode: 1004 - Sign in fail", content = @Content)
+      @ApiResponse(responseCode = "400", description = "errorCode: 1004 - Sign in fail", content = @Content),
+      @ApiResponse(responseCode = "429", description = "errorCode: 9002 - Too many requests. Retry after Retry-After seconds", content = @Content),
+      @ApiResponse(responseCode = "503", description = "errorCode: 9001 - Server is busy. Retry after Retry-After seconds", content = @Content)
   })
   @PostMapping("/users/signin")
   public ResponseEntity<TokenResponse> signIn(
-      @Validated @RequestBody SignInRequest request
+      @Validated @RequestBody SignInRequest request,
+      HttpServletRequest httpRequest
   ) {
+    authRateLimiter.checkSignIn(httpRequest, request.getEmail());
     TokenResponse token = userService.signIn(request);
     return ResponseEntity.ok(token);
   }
 
+  @Operation(
+      summary = "Refresh token.",
+      description = "Exchange a refresh token for a new token and refresh token.<br>"
+          + "A refresh token can be used only once."
+  )
+  @ApiResponses({
+      @ApiResponse(responseCode = "200", description = "OK"),
+      @ApiResponse(responseCode = "400", description = "errorCode: 1005 - Invalid refresh token", content = @Content),
+      @ApiResponse(responseCode = "400", description = "errorCode: 1006 - Refresh token already used", content = @Content)
+  })
+  @PostMapping("/users/token/refresh")
+  public ResponseEntity<TokenResponse> refreshToken(
+      @Validated @RequestBody RefreshTokenRequest request
+  ) {
+    TokenResponse token = userService.refreshToken(request);
+    return ResponseEntity.ok(token);
+  }
+
+  @Operation(
+      summary = "Introspect token.",
+      description = "Check if a token is valid and not revoked.<br>"
+          + "Only active is returned for an invalid token."
+  )
+  @PostMapping("/users/token/introspect")
+  public ResponseEntity<TokenIntrospectResponse> introspectToken(
+      @Validated @RequestBody TokenIntrospectRequest request
+  ) {
+    TokenIntrospectResponse response = userService.introspectToken(request);
+    return ResponseEntity.ok(response);
+  }
+
   @Operation(
       summary = "Send verification code to email."
   )
+  @ApiResponses({
+      @ApiResponse(responseCode = "200", description = "OK"),
+      @ApiResponse(responseCode = "429", description = "errorCode: 9002 - Too many requests. Retry after Retry-After seconds", content = @Content)
+  })
   @PostMapping("/users/send-verification-code")
   public ResponseEntity<Void> sendVerificationCode(
-      @Validated @RequestBody SendVerificationCodeRequest request
+      @Validated @RequestBody SendVerificationCodeRequest request,
+      HttpServletRequest httpRequest
   ) {
+    authRateLimiter.checkSendVerificationCode(httpRequest, request.getEmail());
     userService.sendVerificationCode(request);
     return ResponseEntity.ok().build();
   }
@@ -95,4 +172,19 @@ public class UserController {
   public ResponseEntity<ErrorResponse> handle(SignInFailException e) {
     return ErrorResponse.badRequest(1004, e.getMessage());
   }
+
+  @ExceptionHandler
+  public ResponseEntity<ErrorResponse> handle(InvalidRefreshTokenException e) {
+    return ErrorResponse.badRequest(1005, e.getMessage());
+  }
+
+  @ExceptionHandler
+  public ResponseEntity<ErrorResponse> handle(RefreshTokenReuseException e) {
+    return ErrorResponse.badRequest(1006, e.getMessage());
+  }
+
+  @ExceptionHandler
+  public ResponseEntity<ErrorResponse> handle(InvalidTokenException e) {
+    return ErrorResponse.badRequest(1008, e.getMessage());
+  }
 }
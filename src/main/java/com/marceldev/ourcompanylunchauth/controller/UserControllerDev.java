@@ -1,16 +1,26 @@
 package com.marceldev.ourcompanylunchauth.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.marceldev.ourcompanylunchauth.dto.SignUpRequest;
 import com.marceldev.ourcompanylunchauth.exception.AlreadyExistUserException;
 import com.marceldev.ourcompanylunchauth.exception.ErrorResponse;
+import com.marceldev.ourcompanylunchauth.model.UserImportFormat;
+import com.marceldev.ourcompanylunchauth.service.UserImportService;
 import com.marceldev.ourcompanylunchauth.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -25,8 +35,16 @@ import org.springframework.web.bind.annotation.RestController;
 @Tag(name = "1 User")
 public class UserControllerDev {
 
+  private static final String NDJSON = "application/x-ndjson";
+
+  private static final String CSV = "text/csv";
+
   private final UserService userService;
 
+  private final UserImportService userImportService;
+
+  private final ObjectMapper objectMapper;
+
   @Operation(
       summary = "Mock Sign Up (ONLY for local, dev profile).",
       description = "Can sign up with random code, then sign in with it.<br>"
@@ -45,6 +63,35 @@ public class UserControllerDev {
     return ResponseEntity.ok().build();
   }
 
+  @Operation(
+      summary = "Bulk Mock Sign Up (ONLY for local, dev profile).",
+      description = "Seeds many users at once.<br>"
+          + "application/x-ndjson: {\"email\", \"password\", \"name\"} per line.<br>"
+          + "text/csv: email,name,password per line, header optional.<br>"
+          + "Response is a result per line, as NDJSON, written as the import goes."
+  )
+  @PostMapping(value = "/users/mocksignup/bulk", consumes = {NDJSON, CSV}, produces = NDJSON)
+  public void bulkMockSignUp(
+      HttpServletRequest request,
+      HttpServletResponse response
+  ) throws IOException {
+    UserImportFormat format = MediaType.parseMediaType(request.getContentType())
+        .isCompatibleWith(MediaType.parseMediaType(CSV))
+        ? UserImportFormat.CSV : UserImportFormat.NDJSON;
+
+    response.setContentType(NDJSON);
+    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+    OutputStream out = response.getOutputStream();
+    userImportService.importUsers(request.getInputStream(), format, result -> {
+      try {
+        out.write(objectMapper.writeValueAsBytes(result));
+        out.write('\n');
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+  }
+
   @ExceptionHandler
   public ResponseEntity<ErrorResponse> handle(AlreadyExistUserException e) {
     return ErrorResponse.badRequest(1001, e.getMessage());
@@ -0,0 +1,21 @@
+package com.marceldev.ourcompanylunchauth.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+public class RefreshTokenRequest {
+
+  @NotBlank
+  @Schema(description = "Refresh token from sign in or the last refresh")
+  private final String refreshToken;
+
+  @JsonCreator
+  @Builder
+  private RefreshTokenRequest(String refreshToken) {
+    this.refreshToken = refreshToken;
+  }
+}
@@ -0,0 +1,12 @@
+package com.marceldev.ourcompanylunchauth.dto;
+
+import com.marceldev.ourcompanylunchauth.model.SignUpStatus;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class SignUpStatusResponse {
+
+  private final SignUpStatus status;
+}
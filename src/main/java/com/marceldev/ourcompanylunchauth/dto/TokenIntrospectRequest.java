@@ -0,0 +1,21 @@
+package com.marceldev.ourcompanylunchauth.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+public class TokenIntrospectRequest {
+
+  @NotBlank
+  @Schema(description = "JWT token to check")
+  private final String token;
+
+  @JsonCreator
+  @Builder
+  private TokenIntrospectRequest(String token) {
+    this.token = token;
+  }
+}
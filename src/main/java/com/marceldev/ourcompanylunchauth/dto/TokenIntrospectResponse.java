@@ -0,0 +1,27 @@
+package com.marceldev.ourcompanylunchauth.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Only active is set for an inactive token, like RFC 7662.
+ */
+@Getter
+@RequiredArgsConstructor
+@JsonInclude(Include.NON_NULL)
+public class TokenIntrospectResponse {
+
+  private final boolean active;
+
+  private final String sub;
+
+  private final String role;
+
+  private final Long exp;
+
+  public static TokenIntrospectResponse inactive() {
+    return new TokenIntrospectResponse(false, null, null, null);
+  }
+}
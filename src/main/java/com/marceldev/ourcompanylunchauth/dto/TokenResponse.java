@@ -8,4 +8,6 @@ import lombok.RequiredArgsConstructor;
 public class TokenResponse {
 
   private final String token;
+
+  private final String refreshToken;
 }
@@ -0,0 +1,24 @@
+package com.marceldev.ourcompanylunchauth.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.marceldev.ourcompanylunchauth.model.UserImportStatus;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The result of a line of a bulk import. Line numbers start at 1, the CSV header included.
+ */
+@Getter
+@RequiredArgsConstructor
+@JsonInclude(Include.NON_NULL)
+public class UserImportResult {
+
+  private final long line;
+
+  private final String email;
+
+  private final UserImportStatus status;
+
+  private final String error;
+}
@@ -0,0 +1,32 @@
+package com.marceldev.ourcompanylunchauth.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * A line of a bulk import. Same rules as SignUpRequest, without the verification code.
+ */
+@Getter
+public class UserImportRow {
+
+  @NotBlank
+  @Email
+  private final String email;
+
+  @NotBlank
+  @Pattern(regexp = "^(?=.*[A-Za-z])(?=.*\\d)[A-Za-z\\d\\S]{8,30}$")
+  private final String password;
+
+  @NotBlank
+  private final String name;
+
+  @Builder
+  private UserImportRow(String email, String password, String name) {
+    this.email = email;
+    this.password = password;
+    this.name = name;
+  }
+}
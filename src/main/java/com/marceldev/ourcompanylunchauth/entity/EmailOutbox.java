@@ -0,0 +1,62 @@
+package com.marceldev.ourcompanylunchauth.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+/**
+ * An email to send, saved in the same transaction as what it is about. Deleted once sent.
+ * <p>
+ * A dispatcher claims a row by setting claimedBy until claimedUntil, so only one node sends it.
+ * <p>
+ * The body holds the verification code in plain text until the row is deleted. The code is in
+ * plain text in the verification table too, and expires within minutes.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Getter
+@Entity
+@EntityListeners(AuditingEntityListener.class)
+public class EmailOutbox extends BaseEntity {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  private String recipient;
+
+  private String subject;
+
+  @Column(length = 2000)
+  private String body;
+
+  private LocalDateTime enqueuedAt;
+
+  // Not worth sending after this, like an expired verification code
+  private LocalDateTime expirationAt;
+
+  private LocalDateTime nextAttemptAt;
+
+  private int attemptCount;
+
+  @Column(length = 36)
+  private String claimedBy;
+
+  private LocalDateTime claimedUntil;
+
+  // Gave up. Kept for a while to look into.
+  private LocalDateTime failedAt;
+
+  @Column(length = 500)
+  private String lastError;
+}
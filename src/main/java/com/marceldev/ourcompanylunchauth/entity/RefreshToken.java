@@ -0,0 +1,55 @@
+package com.marceldev.ourcompanylunchauth.entity;
+
+import com.marceldev.ourcompanylunchauth.model.Role;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+/**
+ * Only the SHA-256 hash of the token is saved. Tokens rotated from the same sign in share a family.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Getter
+@Entity
+@EntityListeners(AuditingEntityListener.class)
+public class RefreshToken extends BaseEntity {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(length = 64)
+  private String tokenHash;
+
+  @Column(length = 36)
+  private String familyId;
+
+  private String email;
+
+  // VARCHAR, not the native ENUM Hibernate would pick for MariaDB. See V2__add_indexes.sql
+  @Enumerated(value = EnumType.STRING)
+  @JdbcTypeCode(SqlTypes.VARCHAR)
+  @Column(length = 20)
+  private Role role;
+
+  private LocalDateTime expirationAt;
+
+  private LocalDateTime usedAt;
+
+  private LocalDateTime revokedAt;
+}
@@ -0,0 +1,68 @@
+package com.marceldev.ourcompanylunchauth.entity;
+
+import com.marceldev.ourcompanylunchauth.model.Role;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+/**
+ * A profile to make on the business server, saved in the same transaction as the user. Deleted once
+ * made.
+ * <p>
+ * Claimed like EmailOutbox. The idempotency key goes with every attempt, so the business server
+ * makes the profile once even when a response is lost and the call is retried.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Getter
+@Entity
+@EntityListeners(AuditingEntityListener.class)
+public class SignUpOutbox extends BaseEntity {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  private String email;
+
+  private String name;
+
+  @Enumerated(value = EnumType.STRING)
+  @JdbcTypeCode(SqlTypes.VARCHAR)
+  @Column(length = 20)
+  private Role role;
+
+  @Column(length = 36, nullable = false)
+  private String idempotencyKey;
+
+  private LocalDateTime enqueuedAt;
+
+  private LocalDateTime nextAttemptAt;
+
+  private int attemptCount;
+
+  @Column(length = 36)
+  private String claimedBy;
+
+  private LocalDateTime claimedUntil;
+
+  // Gave up. Kept for a while to look into.
+  private LocalDateTime failedAt;
+
+  @Column(length = 500)
+  private String lastError;
+}
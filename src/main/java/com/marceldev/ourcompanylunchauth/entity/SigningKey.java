@@ -0,0 +1,52 @@
+package com.marceldev.ourcompanylunchauth.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+/**
+ * JWT signing key pair. Keys are Base64 of the PKCS#8 and X.509 encodings, and the private key is
+ * encrypted by SigningKeyCipher. Every node signs with the same keys by sharing this table.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Getter
+@Entity
+@EntityListeners(AuditingEntityListener.class)
+public class SigningKey extends BaseEntity {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(length = 36)
+  private String kid;
+
+  @Column(length = 10)
+  private String algorithm;
+
+  // 0 for the first key, one more for each rotation. Unique, so only one node saves each.
+  private Long generation;
+
+  @Column(length = 512)
+  private String privateKey;
+
+  @Column(length = 512)
+  private String publicKey;
+
+  // Signs tokens from this time. Published before, so verifiers already have it.
+  private LocalDateTime activeFrom;
+
+  // Not published after this. Tokens signed with it have expired by then.
+  private LocalDateTime expirationAt;
+}
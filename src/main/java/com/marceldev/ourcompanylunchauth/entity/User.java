@@ -1,6 +1,8 @@
 package com.marceldev.ourcompanylunchauth.entity;
 
 import com.marceldev.ourcompanylunchauth.model.Role;
+import com.marceldev.ourcompanylunchauth.model.SignUpStatus;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
@@ -12,6 +14,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 @Entity
 @Getter
@@ -29,6 +33,14 @@ public class User {
 
   private String password;
 
+  // VARCHAR, not the native ENUM Hibernate would pick for MariaDB. See V2__add_indexes.sql
   @Enumerated(value = EnumType.STRING)
+  @JdbcTypeCode(SqlTypes.VARCHAR)
+  @Column(length = 20)
   private Role role;
+
+  @Enumerated(value = EnumType.STRING)
+  @JdbcTypeCode(SqlTypes.VARCHAR)
+  @Column(length = 20)
+  private SignUpStatus signUpStatus;
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.marceldev.ourcompanylunchauth.exception;
+
+import lombok.Getter;
+
+@Getter
+public class BusinessServerUnavailableException extends CustomException {
+
+  private final int retryAfterSecond;
+
+  public BusinessServerUnavailableException(int retryAfterSecond, Throwable cause) {
+    super("Business server is unavailable. Try again later.", cause);
+    this.retryAfterSecond = retryAfterSecond;
+  }
+}
@@ -2,6 +2,7 @@ package com.marceldev.ourcompanylunchauth.exception;
 
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
@@ -21,4 +22,20 @@ public class ErrorResponse {
     ErrorResponse errorResponse = new ErrorResponse(errorCode, message);
     return new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
   }
+
+  static public ResponseEntity<ErrorResponse> serviceUnavailable(int errorCode, String message,
+      int retryAfterSecond) {
+    ErrorResponse errorResponse = new ErrorResponse(errorCode, message);
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSecond))
+        .body(errorResponse);
+  }
+
+  static public ResponseEntity<ErrorResponse> tooManyRequests(int errorCode, String message,
+      long retryAfterSecond) {
+    ErrorResponse errorResponse = new ErrorResponse(errorCode, message);
+    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSecond))
+        .body(errorResponse);
+  }
 }
\ No newline at end of file
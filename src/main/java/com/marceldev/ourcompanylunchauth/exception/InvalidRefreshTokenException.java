@@ -0,0 +1,8 @@
+package com.marceldev.ourcompanylunchauth.exception;
+
+public class InvalidRefreshTokenException extends CustomException {
+
+  public InvalidRefreshTokenException() {
+    super("Invalid refresh token.");
+  }
+}
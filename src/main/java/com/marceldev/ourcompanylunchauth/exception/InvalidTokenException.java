@@ -0,0 +1,8 @@
+package com.marceldev.ourcompanylunchauth.exception;
+
+public class InvalidTokenException extends CustomException {
+
+  public InvalidTokenException(Throwable cause) {
+    super("Invalid token.", cause);
+  }
+}
@@ -0,0 +1,14 @@
+package com.marceldev.ourcompanylunchauth.exception;
+
+import lombok.Getter;
+
+@Getter
+public class PasswordHashBusyException extends CustomException {
+
+  private final int retryAfterSecond;
+
+  public PasswordHashBusyException(int retryAfterSecond) {
+    super("Server is busy. Try again later.");
+    this.retryAfterSecond = retryAfterSecond;
+  }
+}
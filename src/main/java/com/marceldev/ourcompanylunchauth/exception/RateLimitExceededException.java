@@ -0,0 +1,14 @@
+package com.marceldev.ourcompanylunchauth.exception;
+
+import lombok.Getter;
+
+@Getter
+public class RateLimitExceededException extends CustomException {
+
+  private final long retryAfterSecond;
+
+  public RateLimitExceededException(long retryAfterSecond) {
+    super("Too many requests. Try again later.");
+    this.retryAfterSecond = retryAfterSecond;
+  }
+}
@@ -0,0 +1,8 @@
+package com.marceldev.ourcompanylunchauth.exception;
+
+public class RefreshTokenReuseException extends CustomException {
+
+  public RefreshTokenReuseException() {
+    super("Refresh token already used. Sign in again.");
+  }
+}
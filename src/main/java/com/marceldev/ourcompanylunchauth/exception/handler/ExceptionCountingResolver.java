@@ -0,0 +1,49 @@
+package com.marceldev.ourcompanylunchauth.exception.handler;
+
+import com.marceldev.ourcompanylunchauth.exception.CustomException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.ModelAndView;
+
+/**
+ * Counts exceptions thrown out of controllers as auth.exception{exception}, before the controller's
+ * or GlobalExceptionHandler's handler turns them into a response.
+ * <p>
+ * Only the domain exceptions get their own tag, as their classes are a fixed set. Anything else is
+ * "other", so an unexpected exception can't grow the tags.
+ */
+@Component
+public class ExceptionCountingResolver implements HandlerExceptionResolver, Ordered {
+
+  private static final String OTHER = "other";
+
+  private final MeterRegistry meterRegistry;
+
+  public ExceptionCountingResolver(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public ModelAndView resolveException(HttpServletRequest request, HttpServletResponse response,
+      Object handler, Exception ex) {
+    String exception = ex instanceof CustomException ? ex.getClass().getSimpleName() : OTHER;
+    Counter.builder("auth.exception")
+        .description("Exceptions thrown out of controllers")
+        .tag("exception", exception)
+        .register(meterRegistry)
+        .increment();
+
+    // Not resolved, the next resolver makes the response
+    return null;
+  }
+
+  @Override
+  public int getOrder() {
+    return Ordered.HIGHEST_PRECEDENCE;
+  }
+}
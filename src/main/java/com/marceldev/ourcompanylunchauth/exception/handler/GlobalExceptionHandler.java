@@ -1,7 +1,10 @@
 package com.marceldev.ourcompanylunchauth.exception.handler;
 
+import com.marceldev.ourcompanylunchauth.exception.BusinessServerUnavailableException;
 import com.marceldev.ourcompanylunchauth.exception.CustomException;
 import com.marceldev.ourcompanylunchauth.exception.ErrorResponse;
+import com.marceldev.ourcompanylunchauth.exception.PasswordHashBusyException;
+import com.marceldev.ourcompanylunchauth.exception.RateLimitExceededException;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -24,6 +27,36 @@ public class GlobalExceptionHandler {
     return ErrorResponse.serverError(9000, e.getMessage());
   }
 
+  @ExceptionHandler
+  public ResponseEntity<ErrorResponse> handleBusy(
+      PasswordHashBusyException e,
+      HttpServletRequest request
+  ) {
+    log.warn("PasswordHashBusyException, {}", request.getRequestURI());
+
+    return ErrorResponse.serviceUnavailable(9001, e.getMessage(), e.getRetryAfterSecond());
+  }
+
+  @ExceptionHandler
+  public ResponseEntity<ErrorResponse> handleBusinessServerUnavailable(
+      BusinessServerUnavailableException e,
+      HttpServletRequest request
+  ) {
+    log.warn("BusinessServerUnavailableException, {}", request.getRequestURI());
+
+    return ErrorResponse.serviceUnavailable(9003, e.getMessage(), e.getRetryAfterSecond());
+  }
+
+  @ExceptionHandler
+  public ResponseEntity<ErrorResponse> handleRateLimit(
+      RateLimitExceededException e,
+      HttpServletRequest request
+  ) {
+    log.warn("RateLimitExceededException, {}", request.getRequestURI());
+
+    return ErrorResponse.tooManyRequests(9002, e.getMessage(), e.getRetryAfterSecond());
+  }
+
   @ExceptionHandler
   public ResponseEntity<ErrorResponse> handleValidation(
       MethodArgumentNotValidException e,
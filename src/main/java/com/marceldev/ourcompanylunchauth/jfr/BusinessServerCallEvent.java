@@ -0,0 +1,25 @@
+package com.marceldev.ourcompanylunchauth.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A call to the business server, including calls the bulkhead or the circuit breaker rejected.
+ */
+@Name("com.marceldev.auth.BusinessServerCall")
+@Label("Business Server Call")
+@Category({"Our Company Lunch Auth"})
+@StackTrace(false)
+public class BusinessServerCallEvent extends Event {
+
+  @Label("Operation")
+  public String operation;
+
+  @Label("Outcome")
+  @Description("success, rejected, timeout, client-error, server-error or error")
+  public String outcome;
+}
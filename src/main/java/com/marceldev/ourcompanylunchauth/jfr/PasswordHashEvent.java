@@ -0,0 +1,26 @@
+package com.marceldev.ourcompanylunchauth.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * BCrypt encode or matches, including the wait for the hash pool.
+ */
+@Name("com.marceldev.auth.PasswordHash")
+@Label("Password Hash")
+@Category({"Our Company Lunch Auth"})
+@StackTrace(false)
+public class PasswordHashEvent extends Event {
+
+  @Label("Operation")
+  @Description("encode or matches")
+  public String operation;
+
+  @Label("Outcome")
+  @Description("success, bad-password, busy or error")
+  public String outcome;
+}
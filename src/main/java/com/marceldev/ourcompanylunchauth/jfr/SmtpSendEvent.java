@@ -0,0 +1,22 @@
+package com.marceldev.ourcompanylunchauth.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Sending one email on an open SMTP session.
+ */
+@Name("com.marceldev.auth.SmtpSend")
+@Label("SMTP Send")
+@Category({"Our Company Lunch Auth"})
+@StackTrace(false)
+public class SmtpSendEvent extends Event {
+
+  @Label("Outcome")
+  @Description("success, timeout or error")
+  public String outcome;
+}
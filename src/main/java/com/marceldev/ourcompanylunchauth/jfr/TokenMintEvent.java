@@ -0,0 +1,20 @@
+package com.marceldev.ourcompanylunchauth.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Minting and signing a JWT.
+ */
+@Name("com.marceldev.auth.TokenMint")
+@Label("Token Mint")
+@Category({"Our Company Lunch Auth"})
+@StackTrace(false)
+public class TokenMintEvent extends Event {
+
+  @Label("Algorithm")
+  public String algorithm;
+}
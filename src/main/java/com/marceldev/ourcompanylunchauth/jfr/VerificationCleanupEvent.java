@@ -0,0 +1,30 @@
+package com.marceldev.ourcompanylunchauth.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One batch of VerificationCodeCleaner deleting expired verification codes.
+ */
+@Name("com.marceldev.auth.VerificationCleanup")
+@Label("Verification Cleanup")
+@Category({"Our Company Lunch Auth"})
+@StackTrace(false)
+public class VerificationCleanupEvent extends Event {
+
+  @Label("Batch Size")
+  @Description("Rows the batch could delete at most")
+  public int batchSize;
+
+  @Label("Rows")
+  @Description("Rows deleted")
+  public int rows;
+
+  @Label("Outcome")
+  @Description("success or error")
+  public String outcome;
+}
@@ -0,0 +1,123 @@
+package com.marceldev.ourcompanylunchauth.model;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import lombok.Getter;
+
+/**
+ * ES256 (ECDSA P-256, SHA-256) key pair used to sign JWTs.
+ */
+@Getter
+public class JwtSigningKey {
+
+  public static final String ALGORITHM = "ES256";
+
+  // P-256 coordinates are 32 bytes
+  private static final int COORDINATE_LENGTH = 32;
+
+  private final String kid;
+
+  private final PrivateKey privateKey;
+
+  private final ECPublicKey publicKey;
+
+  private final LocalDateTime activeFrom;
+
+  private final LocalDateTime expirationAt;
+
+  // Base64 URL of {"alg":"ES256","kid":"..."} followed by "."
+  private final byte[] headerSegment;
+
+  private JwtSigningKey(String kid, PrivateKey privateKey, ECPublicKey publicKey,
+      LocalDateTime activeFrom, LocalDateTime expirationAt) {
+    this.kid = kid;
+    this.privateKey = privateKey;
+    this.publicKey = publicKey;
+    this.activeFrom = activeFrom;
+    this.expirationAt = expirationAt;
+
+    String header = "{\"alg\":\"" + ALGORITHM + "\",\"kid\":\"" + kid + "\"}";
+    this.headerSegment = (Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(header.getBytes(StandardCharsets.UTF_8)) + ".")
+        .getBytes(StandardCharsets.US_ASCII);
+  }
+
+  public static JwtSigningKey generate(LocalDateTime activeFrom, LocalDateTime expirationAt) {
+    try {
+      KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+      generator.initialize(new ECGenParameterSpec("secp256r1"));
+      KeyPair keyPair = generator.generateKeyPair();
+      return new JwtSigningKey(UUID.randomUUID().toString(), keyPair.getPrivate(),
+          (ECPublicKey) keyPair.getPublic(), activeFrom, expirationAt);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * From the Base64 of the PKCS#8 private key and the X.509 public key.
+   */
+  public static JwtSigningKey of(String kid, String privateKey, String publicKey,
+      LocalDateTime activeFrom, LocalDateTime expirationAt) {
+    try {
+      KeyFactory keyFactory = KeyFactory.getInstance("EC");
+      return new JwtSigningKey(
+          kid,
+          keyFactory.generatePrivate(
+              new PKCS8EncodedKeySpec(Base64.getDecoder().decode(privateKey))),
+          (ECPublicKey) keyFactory.generatePublic(
+              new X509EncodedKeySpec(Base64.getDecoder().decode(publicKey))),
+          activeFrom,
+          expirationAt
+      );
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public String encodedPrivateKey() {
+    return Base64.getEncoder().encodeToString(privateKey.getEncoded());
+  }
+
+  public String encodedPublicKey() {
+    return Base64.getEncoder().encodeToString(publicKey.getEncoded());
+  }
+
+  /**
+   * Public key as a JWK (RFC 7517).
+   */
+  public Map<String, Object> toJwk() {
+    Map<String, Object> jwk = new LinkedHashMap<>();
+    jwk.put("kty", "EC");
+    jwk.put("crv", "P-256");
+    jwk.put("kid", kid);
+    jwk.put("use", "sig");
+    jwk.put("alg", ALGORITHM);
+    jwk.put("x", coordinate(publicKey.getW().getAffineX()));
+    jwk.put("y", coordinate(publicKey.getW().getAffineY()));
+    return jwk;
+  }
+
+  // Unsigned, big-endian and left padded to the coordinate length
+  private static String coordinate(BigInteger value) {
+    byte[] bytes = value.toByteArray();
+    byte[] fixed = new byte[COORDINATE_LENGTH];
+    int length = Math.min(bytes.length, COORDINATE_LENGTH);
+    System.arraycopy(bytes, bytes.length - length, fixed, COORDINATE_LENGTH - length, length);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+  }
+}
@@ -0,0 +1,15 @@
+package com.marceldev.ourcompanylunchauth.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class MailMessage {
+
+  private final String to;
+
+  private final String subject;
+
+  private final String text;
+}
@@ -0,0 +1,10 @@
+package com.marceldev.ourcompanylunchauth.model;
+
+/**
+ * Whether the user's profile was made on the business server.
+ */
+public enum SignUpStatus {
+  PENDING,
+  COMPLETED,
+  FAILED
+}
@@ -0,0 +1,18 @@
+package com.marceldev.ourcompanylunchauth.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * What sign in needs from a user. Immutable, so it can be cached and shared between threads.
+ */
+@Getter
+@RequiredArgsConstructor
+public class UserCredential {
+
+  private final String email;
+
+  private final String password;
+
+  private final Role role;
+}
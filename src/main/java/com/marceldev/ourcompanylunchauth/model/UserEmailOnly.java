@@ -0,0 +1,8 @@
+package com.marceldev.ourcompanylunchauth.model;
+
+public interface UserEmailOnly {
+
+  Long getId();
+
+  String getEmail();
+}
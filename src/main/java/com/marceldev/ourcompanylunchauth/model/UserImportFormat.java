@@ -0,0 +1,8 @@
+package com.marceldev.ourcompanylunchauth.model;
+
+public enum UserImportFormat {
+  // A JSON object per line: {"email": ..., "password": ..., "name": ...}
+  NDJSON,
+  // email,name,password per line, without quoting. The header line is optional.
+  CSV
+}
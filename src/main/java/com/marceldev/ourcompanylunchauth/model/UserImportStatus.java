@@ -0,0 +1,12 @@
+package com.marceldev.ourcompanylunchauth.model;
+
+public enum UserImportStatus {
+  CREATED,
+  // Registered before the import
+  EXISTS,
+  // Came earlier in the same import
+  DUPLICATE,
+  INVALID,
+  // Not saved, e.g. the password hash pool was busy. Safe to import again.
+  FAILED
+}
@@ -0,0 +1,16 @@
+package com.marceldev.ourcompanylunchauth.model;
+
+import java.time.LocalDateTime;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class VerificationCode {
+
+  private final String email;
+
+  private final String code;
+
+  private final LocalDateTime expirationAt;
+}
@@ -0,0 +1,70 @@
+package com.marceldev.ourcompanylunchauth.repository;
+
+import com.marceldev.ourcompanylunchauth.entity.EmailOutbox;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+  @Query("select e.id from EmailOutbox e where e.failedAt is null and e.nextAttemptAt <= :now"
+      + " and (e.claimedUntil is null or e.claimedUntil < :now) order by e.id")
+  List<Long> findDispatchableIds(LocalDateTime now, Pageable pageable);
+
+  /**
+   * Only rows nobody else claimed in the meantime are updated.
+   */
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("update EmailOutbox e set e.claimedBy = :owner, e.claimedUntil = :claimedUntil"
+      + " where e.id in :ids and e.failedAt is null"
+      + " and (e.claimedUntil is null or e.claimedUntil < :now)")
+  int claim(List<Long> ids, String owner, LocalDateTime claimedUntil, LocalDateTime now);
+
+  /**
+   * Pending emails of this subject to the recipient, that no dispatcher claimed yet. A newer one
+   * replaces them, so an older verification code can't arrive after it.
+   */
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("delete from EmailOutbox e where e.recipient = :recipient and e.subject = :subject"
+      + " and e.failedAt is null and (e.claimedUntil is null or e.claimedUntil < :now)")
+  int deleteSuperseded(String recipient, String subject, LocalDateTime now);
+
+  List<EmailOutbox> findByIdInAndClaimedBy(List<Long> ids, String claimedBy);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("delete from EmailOutbox e where e.id = :id and e.claimedBy = :owner")
+  int deleteSent(Long id, String owner);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("update EmailOutbox e set e.attemptCount = e.attemptCount + 1,"
+      + " e.nextAttemptAt = :nextAttemptAt, e.lastError = :error,"
+      + " e.claimedBy = null, e.claimedUntil = null"
+      + " where e.id = :id and e.claimedBy = :owner")
+  int scheduleRetry(Long id, String owner, LocalDateTime nextAttemptAt, String error);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("update EmailOutbox e set e.attemptCount = e.attemptCount + 1,"
+      + " e.failedAt = :now, e.lastError = :error, e.claimedBy = null, e.claimedUntil = null"
+      + " where e.id = :id and e.claimedBy = :owner")
+  int markFailed(Long id, String owner, LocalDateTime now, String error);
+
+  long countByFailedAtIsNull();
+
+  @Query("select min(e.enqueuedAt) from EmailOutbox e where e.failedAt is null")
+  Optional<LocalDateTime> findOldestPendingEnqueuedAt();
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("delete from EmailOutbox e where e.failedAt < :localDateTime")
+  int deleteAllFailedBefore(LocalDateTime localDateTime);
+}
@@ -0,0 +1,32 @@
+package com.marceldev.ourcompanylunchauth.repository;
+
+import com.marceldev.ourcompanylunchauth.entity.RefreshToken;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+  Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+  /**
+   * Returns 0 when the token was already used.
+   */
+  @Modifying(clearAutomatically = true)
+  @Query("update RefreshToken r set r.usedAt = :now where r.id = :id and r.usedAt is null")
+  int markUsed(Long id, LocalDateTime now);
+
+  @Modifying(clearAutomatically = true)
+  @Query("update RefreshToken r set r.revokedAt = :now where r.familyId = :familyId and r.revokedAt is null")
+  int revokeFamily(String familyId, LocalDateTime now);
+
+  @Modifying(clearAutomatically = true)
+  @Query("update RefreshToken r set r.revokedAt = :now where r.email = :email and r.revokedAt is null")
+  int revokeAllByEmail(String email, LocalDateTime now);
+
+  @Modifying(clearAutomatically = true)
+  @Query("delete from RefreshToken r where r.expirationAt < :localDateTime")
+  int deleteAllExpiredRefreshToken(LocalDateTime localDateTime);
+}
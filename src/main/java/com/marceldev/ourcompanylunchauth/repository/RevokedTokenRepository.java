@@ -0,0 +1,19 @@
+package com.marceldev.ourcompanylunchauth.repository;
+
+import com.marceldev.ourcompanylunchauth.entity.RevokedToken;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+
+  List<RevokedToken> findByIdGreaterThanAndExpirationAtAfterOrderByIdAsc(Long id,
+      LocalDateTime now, Pageable pageable);
+
+  @Modifying(clearAutomatically = true)
+  @Query("delete from RevokedToken r where r.expirationAt < :localDateTime")
+  int deleteAllExpiredRevokedToken(LocalDateTime localDateTime);
+}
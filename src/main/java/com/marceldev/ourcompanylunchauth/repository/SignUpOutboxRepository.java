@@ -0,0 +1,70 @@
+package com.marceldev.ourcompanylunchauth.repository;
+
+import com.marceldev.ourcompanylunchauth.entity.SignUpOutbox;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface SignUpOutboxRepository extends JpaRepository<SignUpOutbox, Long> {
+
+  @Query("select s.id from SignUpOutbox s where s.failedAt is null and s.nextAttemptAt <= :now"
+      + " and (s.claimedUntil is null or s.claimedUntil < :now) order by s.id")
+  List<Long> findDispatchableIds(LocalDateTime now, Pageable pageable);
+
+  /**
+   * Only rows nobody else claimed in the meantime are updated.
+   */
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("update SignUpOutbox s set s.claimedBy = :owner, s.claimedUntil = :claimedUntil"
+      + " where s.id in :ids and s.failedAt is null"
+      + " and (s.claimedUntil is null or s.claimedUntil < :now)")
+  int claim(List<Long> ids, String owner, LocalDateTime claimedUntil, LocalDateTime now);
+
+  List<SignUpOutbox> findByIdInAndClaimedBy(List<Long> ids, String claimedBy);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("delete from SignUpOutbox s where s.id = :id and s.claimedBy = :owner")
+  int deleteDelivered(Long id, String owner);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("update SignUpOutbox s set s.attemptCount = s.attemptCount + 1,"
+      + " s.nextAttemptAt = :nextAttemptAt, s.lastError = :error,"
+      + " s.claimedBy = null, s.claimedUntil = null"
+      + " where s.id = :id and s.claimedBy = :owner")
+  int scheduleRetry(Long id, String owner, LocalDateTime nextAttemptAt, String error);
+
+  /**
+   * Gives the claim back without counting an attempt, for a call that was never made.
+   */
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("update SignUpOutbox s set s.nextAttemptAt = :nextAttemptAt,"
+      + " s.claimedBy = null, s.claimedUntil = null"
+      + " where s.id in :ids and s.claimedBy = :owner")
+  int release(List<Long> ids, String owner, LocalDateTime nextAttemptAt);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("update SignUpOutbox s set s.attemptCount = s.attemptCount + 1,"
+      + " s.failedAt = :now, s.lastError = :error, s.claimedBy = null, s.claimedUntil = null"
+      + " where s.id = :id and s.claimedBy = :owner")
+  int markFailed(Long id, String owner, LocalDateTime now, String error);
+
+  long countByFailedAtIsNull();
+
+  @Query("select min(s.enqueuedAt) from SignUpOutbox s where s.failedAt is null")
+  Optional<LocalDateTime> findOldestPendingEnqueuedAt();
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("delete from SignUpOutbox s where s.failedAt < :localDateTime")
+  int deleteAllFailedBefore(LocalDateTime localDateTime);
+}
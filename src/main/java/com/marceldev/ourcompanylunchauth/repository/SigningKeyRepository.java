@@ -0,0 +1,14 @@
+package com.marceldev.ourcompanylunchauth.repository;
+
+import com.marceldev.ourcompanylunchauth.entity.SigningKey;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface SigningKeyRepository extends JpaRepository<SigningKey, Long> {
+
+  List<SigningKey> findByExpirationAtAfterOrderByActiveFromDesc(LocalDateTime now);
+
+  Optional<SigningKey> findTopByOrderByGenerationDesc();
+}
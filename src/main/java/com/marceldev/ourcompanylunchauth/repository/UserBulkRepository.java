@@ -0,0 +1,74 @@
+package com.marceldev.ourcompanylunchauth.repository;
+
+import com.marceldev.ourcompanylunchauth.model.Role;
+import com.marceldev.ourcompanylunchauth.model.SignUpStatus;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Inserts users with JDBC batches, for bulk import.
+ * <p>
+ * Hibernate doesn't batch inserts of an IDENTITY id, as it reads each generated id back. Nothing
+ * here needs the id, so plain JDBC batches are sent, a statement per batch with the MariaDB driver.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UserBulkRepository {
+
+  private static final String INSERT_USER =
+      "INSERT INTO users (email, password, role, sign_up_status) VALUES (?, ?, ?, ?)";
+
+  private static final String INSERT_SIGN_UP_OUTBOX =
+      "INSERT INTO sign_up_outbox (created_at, updated_at, email, name, role, idempotency_key,"
+          + " enqueued_at, next_attempt_at, attempt_count) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Users and their sign up outbox rows, in one transaction like UserService.signUp. Throws
+   * DuplicateKeyException when an email was registered in the meantime, and nothing is saved.
+   */
+  @Transactional
+  public void insertAll(List<NewUser> users, LocalDateTime now) {
+    Timestamp timestamp = Timestamp.valueOf(now);
+
+    jdbcTemplate.batchUpdate(INSERT_USER, users, users.size(), (ps, user) -> {
+      ps.setString(1, user.getEmail());
+      ps.setString(2, user.getPassword());
+      ps.setString(3, user.getRole().name());
+      ps.setString(4, SignUpStatus.PENDING.name());
+    });
+
+    jdbcTemplate.batchUpdate(INSERT_SIGN_UP_OUTBOX, users, users.size(), (ps, user) -> {
+      ps.setTimestamp(1, timestamp);
+      ps.setTimestamp(2, timestamp);
+      ps.setString(3, user.getEmail());
+      ps.setString(4, user.getName());
+      ps.setString(5, user.getRole().name());
+      ps.setString(6, UUID.randomUUID().toString());
+      ps.setTimestamp(7, timestamp);
+      ps.setTimestamp(8, timestamp);
+    });
+  }
+
+  @Getter
+  @Builder
+  public static class NewUser {
+
+    private final String email;
+
+    private final String password;
+
+    private final String name;
+
+    private final Role role;
+  }
+}
@@ -1,12 +1,51 @@
 package com.marceldev.ourcompanylunchauth.repository;
 
 import com.marceldev.ourcompanylunchauth.entity.User;
+import com.marceldev.ourcompanylunchauth.model.SignUpStatus;
+import com.marceldev.ourcompanylunchauth.model.UserCredential;
+import com.marceldev.ourcompanylunchauth.model.UserEmailOnly;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 
   Optional<User> findByEmail(String email);
 
+  // Read-only, so it goes to the replica. Sign in calls it outside a transaction.
+  @Query("select new com.marceldev.ourcompanylunchauth.model.UserCredential(u.email, u.password, u.role)"
+      + " from User u where u.email = :email")
+  @Transactional(readOnly = true)
+  Optional<UserCredential> findCredentialByEmail(String email);
+
+  // Not read-only, so it goes to the primary. For a user the replica doesn't have yet.
+  @Query("select new com.marceldev.ourcompanylunchauth.model.UserCredential(u.email, u.password, u.role)"
+      + " from User u where u.email = :email")
+  @Transactional
+  Optional<UserCredential> findCredentialByEmailOnPrimary(String email);
+
   boolean existsByEmail(String email);
+
+  @Query("select u.email from User u where u.email in :emails")
+  List<String> findEmailsByEmailIn(Collection<String> emails);
+
+  List<UserEmailOnly> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+  /**
+   * Replace the password hash only if it wasn't changed in the meantime.
+   */
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("update User u set u.password = :newPassword where u.email = :email and u.password = :oldPassword")
+  int updatePassword(String email, String oldPassword, String newPassword);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("update User u set u.signUpStatus = :signUpStatus where u.email = :email")
+  int updateSignUpStatus(String email, SignUpStatus signUpStatus);
 }
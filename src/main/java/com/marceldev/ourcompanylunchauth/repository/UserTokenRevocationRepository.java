@@ -0,0 +1,19 @@
+package com.marceldev.ourcompanylunchauth.repository;
+
+import com.marceldev.ourcompanylunchauth.entity.UserTokenRevocation;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+public interface UserTokenRevocationRepository extends JpaRepository<UserTokenRevocation, Long> {
+
+  List<UserTokenRevocation> findByIdGreaterThanAndExpirationAtAfterOrderByIdAsc(Long id,
+      LocalDateTime now, Pageable pageable);
+
+  @Modifying(clearAutomatically = true)
+  @Query("delete from UserTokenRevocation r where r.expirationAt < :localDateTime")
+  int deleteAllExpiredUserTokenRevocation(LocalDateTime localDateTime);
+}
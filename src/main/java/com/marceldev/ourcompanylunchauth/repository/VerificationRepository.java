@@ -1,17 +1,48 @@
 package com.marceldev.ourcompanylunchauth.repository;
 
 import com.marceldev.ourcompanylunchauth.entity.Verification;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 public interface VerificationRepository extends JpaRepository<Verification, Long> {
 
   Optional<Verification> findByEmail(String email);
 
   @Modifying(clearAutomatically = true)
-  @Query("delete from Verification v where v.expirationAt < :localDateTime")
-  int deleteAllExpiredVerificationCode(LocalDateTime localDateTime);
+  @Query("delete from Verification v where v.email = :email")
+  int deleteByEmail(String email);
+
+  // One statement, atomic on uk_verification_email. A resend replaces the code in place, so
+  // concurrent resends for an email can't leave two rows.
+  @Modifying(clearAutomatically = true)
+  @Query(value = "insert into verification (email, code, expiration_at, created_at, updated_at)"
+      + " values (:email, :code, :expirationAt, :now, :now)"
+      + " on duplicate key update code = :code, expiration_at = :expirationAt, updated_at = :now",
+      nativeQuery = true)
+  int upsert(String email, String code, LocalDateTime expirationAt, LocalDateTime now);
+
+  // FOR UPDATE SKIP LOCKED (lock timeout -2), so nodes cleaning at once take different rows
+  // instead of waiting on each other's. Dialects without SKIP LOCKED wait instead.
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+  @Query("select v.id from Verification v where v.expirationAt < :now order by v.expirationAt")
+  List<Long> findExpiredIds(LocalDateTime now, Pageable pageable);
+
+  // Expiration checked again: a resend may have renewed the row since its id was read. Rows
+  // another node deleted first aren't counted.
+  @Modifying(clearAutomatically = true)
+  @Query("delete from Verification v where v.id in :ids and v.expirationAt < :now")
+  int deleteExpiredByIdIn(List<Long> ids, LocalDateTime now);
+
+  @Query("select min(v.expirationAt) from Verification v")
+  Optional<LocalDateTime> findOldestExpirationAt();
 }
@@ -1,13 +1,27 @@
 package com.marceldev.ourcompanylunchauth.security;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marceldev.ourcompanylunchauth.component.TokenRevocationRegistry;
 import com.marceldev.ourcompanylunchcommon.JwtAuthenticationFilter;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
@@ -19,8 +33,40 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 @RequiredArgsConstructor
 public class SecurityConfig {
 
+  private static final String ACTUATOR_ROLE = "ACTUATOR";
+
   private final JwtAuthenticationFilter jwtAuthenticationFilter;
 
+  private final TokenRevocationRegistry tokenRevocationRegistry;
+
+  private final ObjectMapper objectMapper;
+
+  /**
+   * Actuator endpoints other than health, info and prometheus change state or expose internals
+   * (revocations, filter rebuilds, JFR and heap dumps), so they need HTTP Basic as the
+   * actuator-security user. Without a password configured, nobody can call them.
+   */
+  @Bean
+  @Order(1)
+  public SecurityFilterChain actuatorSecurityFilterChain(
+      HttpSecurity http,
+      @Value("${actuator-security.username:actuator}") String username,
+      @Value("${actuator-security.password:}") String password
+  ) throws Exception {
+    return http
+        .securityMatcher(EndpointRequest.toAnyEndpoint())
+        .csrf(AbstractHttpConfigurer::disable) // No cookies, credentials on every request
+        .sessionManagement(session -> session
+            .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+        .httpBasic(Customizer.withDefaults())
+        .authenticationManager(actuatorAuthenticationManager(username, password))
+        .authorizeHttpRequests(authorization -> authorization
+            .requestMatchers(EndpointRequest.to("health", "info", "prometheus")).permitAll()
+            .anyRequest().hasRole(ACTUATOR_ROLE)
+        )
+        .build();
+  }
+
   @Bean
   public SecurityFilterChain configure(HttpSecurity http) throws Exception {
     return http
@@ -34,14 +80,31 @@ public class SecurityConfig {
                 "/swagger-ui.html",
                 "/swagger-resources/**",
                 "/webjars/**", // for swagger
-                "/actuator/**",
+                "/.well-known/**",
                 "/users/**"
             ).permitAll()
         )
+        .addFilterBefore(new TokenRevocationFilter(tokenRevocationRegistry, objectMapper),
+            BasicAuthenticationFilter.class)
         .addFilterAfter(jwtAuthenticationFilter, BasicAuthenticationFilter.class)
         .build();
   }
 
+  /**
+   * The password has an algorithm prefix, like "{bcrypt}$2a$10$..." or "{noop}...".
+   */
+  private static AuthenticationManager actuatorAuthenticationManager(String username,
+      String password) {
+    List<UserDetails> users = password.isBlank() ? List.of() : List.of(User.withUsername(username)
+        .password(password)
+        .roles(ACTUATOR_ROLE)
+        .build());
+    DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+    provider.setUserDetailsService(new InMemoryUserDetailsManager(users));
+    provider.setPasswordEncoder(PasswordEncoderFactories.createDelegatingPasswordEncoder());
+    return new ProviderManager(provider);
+  }
+
   @Bean
   public CorsConfigurationSource corsConfigurationSource() {
     CorsConfiguration configuration = new CorsConfiguration();
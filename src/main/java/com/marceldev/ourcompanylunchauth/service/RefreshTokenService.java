@@ -0,0 +1,116 @@
+package com.marceldev.ourcompanylunchauth.service;
+
+import com.marceldev.ourcompanylunchauth.component.JwtMinter;
+import com.marceldev.ourcompanylunchauth.component.TokenRevocationRegistry;
+import com.marceldev.ourcompanylunchauth.dto.TokenResponse;
+import com.marceldev.ourcompanylunchauth.entity.RefreshToken;
+import com.marceldev.ourcompanylunchauth.exception.InvalidRefreshTokenException;
+import com.marceldev.ourcompanylunchauth.exception.RefreshTokenReuseException;
+import com.marceldev.ourcompanylunchauth.model.Role;
+import com.marceldev.ourcompanylunchauth.repository.RefreshTokenRepository;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Refresh tokens are random and long, so a SHA-256 lookup is enough to verify them. No password
+ * hashing on refresh.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class RefreshTokenService {
+
+  private static final int TOKEN_BYTE_LENGTH = 32;
+
+  private final SecureRandom secureRandom = new SecureRandom();
+
+  private final RefreshTokenRepository refreshTokenRepository;
+
+  private final JwtMinter jwtMinter;
+
+  private final TokenRevocationRegistry tokenRevocationRegistry;
+
+  @Value("${refresh-token.expired-in-day:14}")
+  private int expiredInDay;
+
+  /**
+   * Issue a refresh token on sign in. It starts a new family. Sign in runs outside a transaction,
+   * so this one is its own, on the primary.
+   */
+  @Transactional
+  public String issue(String email, Role role) {
+    return issue(email, role, UUID.randomUUID().toString());
+  }
+
+  /**
+   * Exchange a refresh token for a new token and refresh token. A refresh token can be used only
+   * once. When a used one comes again, it was likely stolen, so the whole family is revoked, and
+   * every other token and refresh token of the user too.
+   */
+  @Transactional(noRollbackFor = RefreshTokenReuseException.class)
+  public TokenResponse rotate(String refreshToken, LocalDateTime now) {
+    RefreshToken saved = refreshTokenRepository.findByTokenHash(hash(refreshToken))
+        .orElseThrow(InvalidRefreshTokenException::new);
+
+    if (saved.getRevokedAt() != null || now.isAfter(saved.getExpirationAt())) {
+      throw new InvalidRefreshTokenException();
+    }
+
+    if (refreshTokenRepository.markUsed(saved.getId(), now) == 0) {
+      refreshTokenRepository.revokeFamily(saved.getFamilyId(), now);
+      tokenRevocationRegistry.revokeUser(saved.getEmail());
+      log.warn("Refresh token reuse detected. Family revoked: {}", saved.getFamilyId());
+      throw new RefreshTokenReuseException();
+    }
+
+    String token = jwtMinter.generateToken(saved.getEmail(), saved.getRole().toString());
+    String newRefreshToken = issue(saved.getEmail(), saved.getRole(), saved.getFamilyId());
+    return new TokenResponse(token, newRefreshToken);
+  }
+
+  @Transactional
+  @Scheduled(cron = "${scheduler.clear-refresh-token.cron:0 30 3 * * *}")
+  public void clearExpiredRefreshTokens() {
+    int rows = refreshTokenRepository.deleteAllExpiredRefreshToken(LocalDateTime.now());
+    log.info("Refresh token clear: {} rows deleted", rows);
+  }
+
+  private String issue(String email, Role role, String familyId) {
+    byte[] bytes = new byte[TOKEN_BYTE_LENGTH];
+    secureRandom.nextBytes(bytes);
+    String refreshToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+    RefreshToken entity = RefreshToken.builder()
+        .tokenHash(hash(refreshToken))
+        .familyId(familyId)
+        .email(email)
+        .role(role)
+        .expirationAt(LocalDateTime.now().plusDays(expiredInDay))
+        .build();
+    refreshTokenRepository.save(entity);
+
+    return refreshToken;
+  }
+
+  private static String hash(String refreshToken) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(digest.digest(refreshToken.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,245 @@
+package com.marceldev.ourcompanylunchauth.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marceldev.ourcompanylunchauth.component.PasswordHasher;
+import com.marceldev.ourcompanylunchauth.component.RegisteredEmailFilter;
+import com.marceldev.ourcompanylunchauth.dto.UserImportResult;
+import com.marceldev.ourcompanylunchauth.dto.UserImportRow;
+import com.marceldev.ourcompanylunchauth.exception.CustomException;
+import com.marceldev.ourcompanylunchauth.model.Role;
+import com.marceldev.ourcompanylunchauth.model.UserImportFormat;
+import com.marceldev.ourcompanylunchauth.model.UserImportStatus;
+import com.marceldev.ourcompanylunchauth.repository.UserBulkRepository;
+import com.marceldev.ourcompanylunchauth.repository.UserBulkRepository.NewUser;
+import com.marceldev.ourcompanylunchauth.repository.UserRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Bulk user creation for seeding local and dev environments. Like mockSignUp, without a
+ * verification code.
+ * <p>
+ * Lines are read as they arrive and handled batchSize at a time: one query for emails already
+ * registered, passwords hashed on every thread of the password hash pool, then a JDBC batch insert
+ * of the users and their sign up outbox rows. Profiles are made on the business server by
+ * SignUpOutboxRelay, as for any sign up. Each line gets a result, in order.
+ */
+@Slf4j
+@Service
+public class UserImportService {
+
+  private static final String CSV_HEADER = "email,name,password";
+
+  private final UserRepository userRepository;
+
+  private final UserBulkRepository userBulkRepository;
+
+  private final PasswordHasher passwordHasher;
+
+  private final RegisteredEmailFilter registeredEmailFilter;
+
+  private final Validator validator;
+
+  private final ObjectMapper objectMapper;
+
+  private final int batchSize;
+
+  public UserImportService(
+      UserRepository userRepository,
+      UserBulkRepository userBulkRepository,
+      PasswordHasher passwordHasher,
+      RegisteredEmailFilter registeredEmailFilter,
+      Validator validator,
+      ObjectMapper objectMapper,
+      @Value("${user-import.batch-size:500}") int batchSize
+  ) {
+    this.userRepository = userRepository;
+    this.userBulkRepository = userBulkRepository;
+    this.passwordHasher = passwordHasher;
+    this.registeredEmailFilter = registeredEmailFilter;
+    this.validator = validator;
+    this.objectMapper = objectMapper;
+    this.batchSize = batchSize;
+  }
+
+  public void importUsers(InputStream input, UserImportFormat format,
+      Consumer<UserImportResult> onResult) throws IOException {
+    long startedAt = System.nanoTime();
+    Map<UserImportStatus, Long> counts = new EnumMap<>(UserImportStatus.class);
+    Consumer<UserImportResult> counted = result -> {
+      counts.merge(result.getStatus(), 1L, Long::sum);
+      onResult.accept(result);
+    };
+
+    // Emails of this import so far, lower case. 100k emails are a few MB.
+    Set<String> seen = new HashSet<>();
+    List<Line> batch = new ArrayList<>(batchSize);
+    try (BufferedReader reader = new BufferedReader(
+        new InputStreamReader(input, StandardCharsets.UTF_8))) {
+      long lineNumber = 0;
+      String text;
+      while ((text = reader.readLine()) != null) {
+        lineNumber++;
+        if (text.isBlank() || (format == UserImportFormat.CSV && lineNumber == 1
+            && text.strip().equalsIgnoreCase(CSV_HEADER))) {
+          continue;
+        }
+
+        UserImportRow row;
+        try {
+          row = parse(text, format);
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+          counted.accept(new UserImportResult(lineNumber, null, UserImportStatus.INVALID,
+              "Not a " + format + " line"));
+          continue;
+        }
+
+        String violation = validate(row);
+        if (violation != null) {
+          counted.accept(new UserImportResult(lineNumber, row.getEmail(),
+              UserImportStatus.INVALID, violation));
+          continue;
+        }
+
+        if (!seen.add(normalize(row.getEmail()))) {
+          counted.accept(new UserImportResult(lineNumber, row.getEmail(),
+              UserImportStatus.DUPLICATE, null));
+          continue;
+        }
+
+        batch.add(new Line(lineNumber, row));
+        if (batch.size() == batchSize) {
+          importBatch(batch, counted);
+          batch.clear();
+        }
+      }
+    }
+    if (!batch.isEmpty()) {
+      importBatch(batch, counted);
+    }
+
+    long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+    long created = counts.getOrDefault(UserImportStatus.CREATED, 0L);
+    log.info("User import: {} in {} ms, {} users/s", counts, millis,
+        millis == 0 ? created : created * 1000 / millis);
+  }
+
+  private void importBatch(List<Line> batch, Consumer<UserImportResult> onResult) {
+    List<String> emails = batch.stream().map(line -> line.row().getEmail()).toList();
+    Set<String> registered = new HashSet<>();
+    userRepository.findEmailsByEmailIn(emails).forEach(email -> registered.add(normalize(email)));
+
+    List<Line> lines = new ArrayList<>(batch.size());
+    for (Line line : batch) {
+      if (registered.contains(normalize(line.row().getEmail()))) {
+        onResult.accept(line.result(UserImportStatus.EXISTS, null));
+      } else {
+        lines.add(line);
+      }
+    }
+    if (lines.isEmpty()) {
+      return;
+    }
+
+    List<String> encPasswords;
+    try {
+      encPasswords = passwordHasher.encodeAll(
+          lines.stream().map(line -> line.row().getPassword()).toList());
+    } catch (CustomException e) {
+      lines.forEach(line -> onResult.accept(line.result(UserImportStatus.FAILED, e.getMessage())));
+      return;
+    }
+
+    List<NewUser> users = new ArrayList<>(lines.size());
+    for (int i = 0; i < lines.size(); i++) {
+      UserImportRow row = lines.get(i).row();
+      users.add(NewUser.builder()
+          .email(row.getEmail())
+          .password(encPasswords.get(i))
+          .name(row.getName())
+          .role(Role.VIEWER)
+          .build());
+    }
+
+    LocalDateTime now = LocalDateTime.now();
+    try {
+      userBulkRepository.insertAll(users, now);
+      for (int i = 0; i < lines.size(); i++) {
+        created(lines.get(i), onResult);
+      }
+    } catch (DuplicateKeyException e) {
+      // Signed up in the meantime. Rare, so the batch goes again a user at a time.
+      for (int i = 0; i < lines.size(); i++) {
+        try {
+          userBulkRepository.insertAll(List.of(users.get(i)), now);
+          created(lines.get(i), onResult);
+        } catch (DuplicateKeyException duplicate) {
+          onResult.accept(lines.get(i).result(UserImportStatus.EXISTS, null));
+        }
+      }
+    }
+  }
+
+  private void created(Line line, Consumer<UserImportResult> onResult) {
+    registeredEmailFilter.put(line.row().getEmail());
+    onResult.accept(line.result(UserImportStatus.CREATED, null));
+  }
+
+  private UserImportRow parse(String text, UserImportFormat format)
+      throws JsonProcessingException {
+    if (format == UserImportFormat.NDJSON) {
+      return objectMapper.readValue(text, UserImportRow.class);
+    }
+
+    // Password last, so it may have commas
+    String[] columns = text.split(",", 3);
+    if (columns.length < 3) {
+      throw new IllegalArgumentException();
+    }
+    return UserImportRow.builder()
+        .email(columns[0].strip())
+        .name(columns[1].strip())
+        .password(columns[2])
+        .build();
+  }
+
+  private String validate(UserImportRow row) {
+    Set<ConstraintViolation<UserImportRow>> violations = validator.validate(row);
+    if (violations.isEmpty()) {
+      return null;
+    }
+    ConstraintViolation<UserImportRow> violation = violations.iterator().next();
+    return violation.getPropertyPath() + ": " + violation.getMessage();
+  }
+
+  private static String normalize(String email) {
+    return email.toLowerCase(Locale.ROOT);
+  }
+
+  private record Line(long lineNumber, UserImportRow row) {
+
+    UserImportResult result(UserImportStatus status, String error) {
+      return new UserImportResult(lineNumber, row.getEmail(), status, error);
+    }
+  }
+}
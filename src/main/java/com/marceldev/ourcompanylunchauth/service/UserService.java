@@ -1,28 +1,45 @@
 package com.marceldev.ourcompanylunchauth.service;
 
-import com.marceldev.ourcompanylunchauth.component.BusinessServerClient;
-import com.marceldev.ourcompanylunchauth.component.EmailSender;
+import com.marceldev.ourcompanylunchauth.component.JwtMinter;
+import com.marceldev.ourcompanylunchauth.component.JwtVerifier;
+import com.marceldev.ourcompanylunchauth.component.PasswordHasher;
+import com.marceldev.ourcompanylunchauth.component.RegisteredEmailFilter;
+import com.marceldev.ourcompanylunchauth.component.TokenRevocationRegistry;
+import com.marceldev.ourcompanylunchauth.component.UserCredentialCache;
+import com.marceldev.ourcompanylunchauth.dto.RefreshTokenRequest;
 import com.marceldev.ourcompanylunchauth.dto.SendVerificationCodeRequest;
 import com.marceldev.ourcompanylunchauth.dto.SignInRequest;
 import com.marceldev.ourcompanylunchauth.dto.SignUpRequest;
+import com.marceldev.ourcompanylunchauth.dto.SignUpStatusResponse;
+import com.marceldev.ourcompanylunchauth.dto.TokenIntrospectRequest;
+import com.marceldev.ourcompanylunchauth.dto.TokenIntrospectResponse;
 import com.marceldev.ourcompanylunchauth.dto.TokenResponse;
+import com.marceldev.ourcompanylunchauth.entity.EmailOutbox;
+import com.marceldev.ourcompanylunchauth.entity.SignUpOutbox;
 import com.marceldev.ourcompanylunchauth.entity.User;
-import com.marceldev.ourcompanylunchauth.entity.Verification;
 import com.marceldev.ourcompanylunchauth.exception.AlreadyExistUserException;
 import com.marceldev.ourcompanylunchauth.exception.IncorrectPasswordException;
+import com.marceldev.ourcompanylunchauth.exception.InvalidTokenException;
+import com.marceldev.ourcompanylunchauth.exception.RefreshTokenReuseException;
 import com.marceldev.ourcompanylunchauth.exception.UserNotExistException;
 import com.marceldev.ourcompanylunchauth.exception.VerificationCodeNotFoundException;
 import com.marceldev.ourcompanylunchauth.model.Role;
+import com.marceldev.ourcompanylunchauth.model.SignUpStatus;
+import com.marceldev.ourcompanylunchauth.model.UserCredential;
+import com.marceldev.ourcompanylunchauth.model.VerificationCode;
+import com.marceldev.ourcompanylunchauth.repository.EmailOutboxRepository;
+import com.marceldev.ourcompanylunchauth.repository.SignUpOutboxRepository;
 import com.marceldev.ourcompanylunchauth.repository.UserRepository;
-import com.marceldev.ourcompanylunchauth.repository.VerificationRepository;
+import com.marceldev.ourcompanylunchauth.store.VerificationStore;
 import com.marceldev.ourcompanylunchauth.util.GenerateVerificationCodeUtil;
-import com.marceldev.ourcompanylunchcommon.TokenProvider;
+import com.marceldev.ourcompanylunchauth.util.RequestStages;
+import io.jsonwebtoken.Claims;
 import java.time.LocalDateTime;
+import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 @Slf4j
@@ -37,40 +54,64 @@ public class UserService {
 
   private final UserRepository userRepository;
 
-  private final VerificationRepository verificationRepository;
+  private final VerificationStore verificationStore;
 
-  private final TokenProvider tokenProvider;
+  private final EmailOutboxRepository emailOutboxRepository;
 
-  private final EmailSender emailSender;
+  private final SignUpOutboxRepository signUpOutboxRepository;
 
-  private final PasswordEncoder passwordEncoder;
+  private final JwtMinter jwtMinter;
 
-  private final BusinessServerClient businessServerClient;
+  private final JwtVerifier jwtVerifier;
+
+  private final PasswordHasher passwordHasher;
+
+  private final RegisteredEmailFilter registeredEmailFilter;
+
+  private final RefreshTokenService refreshTokenService;
+
+  private final TokenRevocationRegistry tokenRevocationRegistry;
+
+  private final UserCredentialCache userCredentialCache;
 
   /**
-   * Sign up to auth server. Also save the user profile(name and etc) to business server.
+   * Sign up to auth server. The user profile(name and etc) is saved to business server by
+   * SignUpOutboxRelay after commit, so the status is PENDING until then.
    */
   @Transactional
   public void signUp(SignUpRequest request) {
+    long stageStart = RequestStages.start();
     checkAlreadyExistsUser(request.getEmail());
+    RequestStages.record("exists", stageStart);
 
     Role role = Role.VIEWER;
 
-    Verification verification = verificationRepository.findByEmail(request.getEmail())
+    stageStart = RequestStages.start();
+    VerificationCode verificationCode = verificationStore.find(request.getEmail())
         .orElseThrow(VerificationCodeNotFoundException::new);
 
-    matchVerificationCode(request.getCode(), verification, request.getNow());
+    matchVerificationCode(request.getCode(), verificationCode, request.getNow());
+    RequestStages.record("verification", stageStart);
 
-    String encPassword = passwordEncoder.encode(request.getPassword());
+    stageStart = RequestStages.start();
+    String encPassword = passwordHasher.encode(request.getPassword());
+    RequestStages.record("hash", stageStart);
     User user = User.builder()
         .email(request.getEmail())
         .password(encPassword)
         .role(role)
+        .signUpStatus(SignUpStatus.PENDING)
         .build();
 
+    stageStart = RequestStages.start();
     userRepository.save(user);
-    businessServerClient.signUp(request, role.toString());
-    verificationRepository.delete(verification);
+    RequestStages.record("insert", stageStart);
+    stageStart = RequestStages.start();
+    enqueueBusinessServerSignUp(request, role);
+    RequestStages.record("outbox", stageStart);
+    registeredEmailFilter.put(user.getEmail());
+    userCredentialCache.invalidate(user.getEmail());
+    verificationStore.delete(request.getEmail());
   }
 
   /**
@@ -83,84 +124,177 @@ public class UserService {
 
     Role role = Role.VIEWER;
 
-    String encPassword = passwordEncoder.encode(request.getPassword());
+    String encPassword = passwordHasher.encode(request.getPassword());
     User user = User.builder()
         .email(request.getEmail())
         .password(encPassword)
         .role(role)
+        .signUpStatus(SignUpStatus.PENDING)
         .build();
 
     userRepository.save(user);
-    businessServerClient.signUp(request, role.toString());
+    enqueueBusinessServerSignUp(request, role);
+    registeredEmailFilter.put(user.getEmail());
+    userCredentialCache.invalidate(user.getEmail());
   }
 
   /**
-   * Sign in. Response is JWT token.
+   * Sign in. Response is JWT token and refresh token. Not one transaction: the credential is read
+   * in a read-only one, from the replica when there is one, and the refresh token is saved in
+   * another after it. A request holds one connection at a time, never one per transaction.
    */
+  @Transactional(propagation = Propagation.SUPPORTS)
   public TokenResponse signIn(SignInRequest request) {
-    User user = userRepository.findByEmail(request.getEmail())
-        .orElseThrow(UserNotExistException::new);
-
-    if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+    long stageStart = RequestStages.start();
+    UserCredential user = findUser(request.getEmail());
+    RequestStages.record("credential", stageStart);
+
+    stageStart = RequestStages.start();
+    boolean matched = passwordHasher.matches(request.getPassword(), user.getPassword());
+    RequestStages.record("hash", stageStart);
+    if (!matched) {
       throw new IncorrectPasswordException();
     }
 
+    if (passwordHasher.upgradeEncoding(user.getPassword())) {
+      upgradePasswordInBackground(user.getEmail(), request.getPassword(), user.getPassword());
+    }
+
     Role role = user.getRole();
-    String token = tokenProvider.generateToken(user.getEmail(), role.toString());
-    return new TokenResponse(token);
+    stageStart = RequestStages.start();
+    String token = jwtMinter.generateToken(user.getEmail(), role.toString());
+    RequestStages.record("mint", stageStart);
+    stageStart = RequestStages.start();
+    String refreshToken = refreshTokenService.issue(user.getEmail(), role);
+    RequestStages.record("refresh-token", stageStart);
+    return new TokenResponse(token, refreshToken);
   }
 
   /**
-   * Send verification code to the email.
+   * Exchange a refresh token for a new JWT token and refresh token, without password check.
    */
-  @Transactional
-  public void sendVerificationCode(SendVerificationCodeRequest request) {
-    String email = request.getEmail();
-    String code = GenerateVerificationCodeUtil.generate(VERIFICATION_CODE_LENGTH);
+  @Transactional(noRollbackFor = RefreshTokenReuseException.class)
+  public TokenResponse refreshToken(RefreshTokenRequest request) {
+    return refreshTokenService.rotate(request.getRefreshToken(), LocalDateTime.now());
+  }
+
+  /**
+   * Check a token for other servers. Inactive when the signature is wrong, it expired, or it was
+   * revoked.
+   */
+  public TokenIntrospectResponse introspectToken(TokenIntrospectRequest request) {
+    Claims claims;
+    try {
+      claims = jwtVerifier.verify(request.getToken());
+    } catch (InvalidTokenException e) {
+      return TokenIntrospectResponse.inactive();
+    }
+
+    long issuedAt = claims.getIssuedAt() == null ? 0 : claims.getIssuedAt().getTime() / 1000;
+    if (tokenRevocationRegistry.isRevoked(claims.getId(), claims.getSubject(), issuedAt)) {
+      return TokenIntrospectResponse.inactive();
+    }
 
-    sendVerificationCodeEmail(email, code);
-    saveVerificationCodeToDb(email, code);
+    return new TokenIntrospectResponse(true, claims.getSubject(),
+        claims.get("role", String.class), claims.getExpiration().getTime() / 1000);
   }
 
   /**
-   * Verification code remains when a user doesn't confirm the requested code and leave.
+   * Whether the user profile is made on business server yet. For the user of the token.
    */
-  @Scheduled(cron = "${scheduler.clear-verification-code.cron}")
-  public void clearUnusedVerificationCodes() {
-    int rows = verificationRepository.deleteAllExpiredVerificationCode(LocalDateTime.now());
-    log.info("Verification code clear: {} rows deleted", rows);
+  public SignUpStatusResponse getSignUpStatus(String token) {
+    Claims claims = jwtVerifier.verify(token);
+    User user = userRepository.findByEmail(claims.getSubject())
+        .orElseThrow(UserNotExistException::new);
+    return new SignUpStatusResponse(user.getSignUpStatus());
+  }
+
+  /**
+   * Send verification code to the email. The email is sent by EmailOutboxDispatcher after commit.
+   */
+  @Transactional
+  public void sendVerificationCode(SendVerificationCodeRequest request) {
+    String email = request.getEmail();
+    String code = GenerateVerificationCodeUtil.generate(VERIFICATION_CODE_LENGTH);
+    LocalDateTime expirationAt = LocalDateTime.now().plusSeconds(VERIFICATION_CODE_VALID_SECOND);
+
+    long stageStart = RequestStages.start();
+    verificationStore.save(new VerificationCode(email, code, expirationAt));
+    RequestStages.record("verification", stageStart);
+    stageStart = RequestStages.start();
+    enqueueVerificationCodeEmail(email, code, expirationAt);
+    RequestStages.record("outbox", stageStart);
   }
 
-  private void sendVerificationCodeEmail(String email, String code) {
+  private void enqueueVerificationCodeEmail(String email, String code,
+      LocalDateTime expirationAt) {
     String subject = "[Our Company Lunch] Welcome!";
     String body = String.format("Verification code is %s. Enter this in signup field.", code);
-    emailSender.sendMail(email, subject, body);
+    LocalDateTime now = LocalDateTime.now();
+
+    // A resend makes the earlier code invalid, so its email isn't worth sending anymore.
+    emailOutboxRepository.deleteSuperseded(email, subject, now);
+    EmailOutbox emailOutbox = EmailOutbox.builder()
+        .recipient(email)
+        .subject(subject)
+        .body(body)
+        .enqueuedAt(now)
+        .nextAttemptAt(now)
+        .expirationAt(expirationAt)
+        .build();
+
+    emailOutboxRepository.save(emailOutbox);
   }
 
-  private void saveVerificationCodeToDb(String email, String code) {
-    // Remove if already exists.
-    verificationRepository.findByEmail(email).ifPresent(verificationRepository::delete);
+  private void enqueueBusinessServerSignUp(SignUpRequest request, Role role) {
+    LocalDateTime now = LocalDateTime.now();
 
-    // Save new verification code.
-    Verification verification = Verification.builder()
-        .code(code)
-        .expirationAt(LocalDateTime.now().plusSeconds(VERIFICATION_CODE_VALID_SECOND))
-        .email(email)
+    SignUpOutbox signUpOutbox = SignUpOutbox.builder()
+        .email(request.getEmail())
+        .name(request.getName())
+        .role(role)
+        .idempotencyKey(UUID.randomUUID().toString())
+        .enqueuedAt(now)
+        .nextAttemptAt(now)
         .build();
 
-    verificationRepository.save(verification);
+    signUpOutboxRepository.save(signUpOutbox);
+  }
+
+  private void upgradePasswordInBackground(String email, String rawPassword,
+      String oldEncPassword) {
+    passwordHasher.encodeInBackground(rawPassword, newEncPassword -> {
+      int rows = userRepository.updatePassword(email, oldEncPassword, newEncPassword);
+      userCredentialCache.invalidate(email);
+      log.debug("Password hash upgrade: {} rows updated", rows);
+    });
   }
 
-  private void matchVerificationCode(String code, Verification verification, LocalDateTime now) {
-    if (now.isAfter(verification.getExpirationAt())) {
+  private void matchVerificationCode(String code, VerificationCode verificationCode,
+      LocalDateTime now) {
+    if (now.isAfter(verificationCode.getExpirationAt())) {
       throw new VerificationCodeNotFoundException();
     }
 
-    if (!verification.getCode().equals(code)) {
+    if (!verificationCode.getCode().equals(code)) {
       throw new VerificationCodeNotFoundException();
     }
   }
 
+  private UserCredential findUser(String email) {
+    // Skip the DB for emails that are definitely not registered.
+    if (!registeredEmailFilter.mightContain(email)) {
+      throw new UserNotExistException();
+    }
+
+    return userCredentialCache.get(email)
+        .orElseThrow(() -> {
+          registeredEmailFilter.recordFalsePositive();
+          return new UserNotExistException();
+        });
+  }
+
+  // Not using RegisteredEmailFilter here. A missed sign up from another node would make a duplicate.
   private void checkAlreadyExistsUser(String email) {
     if (userRepository.existsByEmail(email)) {
       throw new AlreadyExistUserException();
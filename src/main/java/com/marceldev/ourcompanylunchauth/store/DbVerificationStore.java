@@ -0,0 +1,61 @@
+package com.marceldev.ourcompanylunchauth.store;
+
+import com.marceldev.ourcompanylunchauth.model.VerificationCode;
+import com.marceldev.ourcompanylunchauth.repository.VerificationRepository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Codes in the verification table. Shared by every node.
+ */
+@Component
+@ConditionalOnProperty(name = "verification-store.type", havingValue = "db", matchIfMissing = true)
+@RequiredArgsConstructor
+public class DbVerificationStore implements VerificationStore {
+
+  private final VerificationRepository verificationRepository;
+
+  @Override
+  public void save(VerificationCode verificationCode) {
+    verificationRepository.upsert(verificationCode.getEmail(), verificationCode.getCode(),
+        verificationCode.getExpirationAt(), LocalDateTime.now());
+  }
+
+  @Override
+  public Optional<VerificationCode> find(String email) {
+    return verificationRepository.findByEmail(email)
+        .map(verification -> new VerificationCode(
+            verification.getEmail(), verification.getCode(), verification.getExpirationAt()));
+  }
+
+  @Override
+  public void delete(String email) {
+    verificationRepository.deleteByEmail(email);
+  }
+
+  /**
+   * Read and lock the ids, then delete by primary key. A short transaction that locks only those
+   * rows, where one delete by expiration_at would lock every expired row, and the index range, until
+   * it ends.
+   */
+  @Override
+  @Transactional
+  public int deleteExpired(LocalDateTime now, int limit) {
+    List<Long> ids = verificationRepository.findExpiredIds(now, PageRequest.of(0, limit));
+    if (ids.isEmpty()) {
+      return 0;
+    }
+    return verificationRepository.deleteExpiredByIdIn(ids, now);
+  }
+
+  @Override
+  public Optional<LocalDateTime> findOldestExpirationAt() {
+    return verificationRepository.findOldestExpirationAt();
+  }
+}
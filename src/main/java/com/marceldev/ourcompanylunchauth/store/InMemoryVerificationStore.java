@@ -0,0 +1,126 @@
+package com.marceldev.ourcompanylunchauth.store;
+
+import com.marceldev.ourcompanylunchauth.model.VerificationCode;
+import com.marceldev.ourcompanylunchauth.util.HierarchicalTimingWheel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Codes in a map, removed by a timing wheel within a tick of their expiration.
+ * <p>
+ * Single node only. A code sent by one node can't be found on another, and codes are lost on
+ * restart. Run one node, or route a user to the same node, when using this.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "verification-store.type", havingValue = "memory")
+public class InMemoryVerificationStore implements VerificationStore {
+
+  private static final int WHEEL_SIZE = 64;
+
+  private static final int WHEEL_LEVELS = 4;
+
+  private final Map<String, VerificationCode> codes = new ConcurrentHashMap<>();
+
+  private final HierarchicalTimingWheel<VerificationCode> timingWheel;
+
+  private final ScheduledExecutorService ticker;
+
+  private final ZoneId zoneId = ZoneId.systemDefault();
+
+  private final Counter expiredCounter;
+
+  public InMemoryVerificationStore(
+      MeterRegistry meterRegistry,
+      @Value("${verification-store.tick-millis:1000}") long tickMillis
+  ) {
+    this.timingWheel = new HierarchicalTimingWheel<>(tickMillis, WHEEL_SIZE, WHEEL_LEVELS,
+        System.currentTimeMillis(), this::expire);
+    this.expiredCounter = Counter.builder("auth.verification.store.expired")
+        .description("Verification codes removed by expiration")
+        .register(meterRegistry);
+    Gauge.builder("auth.verification.store.size", codes, Map::size)
+        .description("Verification codes in memory")
+        .register(meterRegistry);
+
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("verification-store-");
+    threadFactory.setDaemon(true);
+    this.ticker = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    this.ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void save(VerificationCode verificationCode) {
+    // The last code stays in the wheel, and its expiry skips it once replaced.
+    codes.put(key(verificationCode.getEmail()), verificationCode);
+    timingWheel.add(verificationCode, toMillis(verificationCode.getExpirationAt()));
+  }
+
+  @Override
+  public Optional<VerificationCode> find(String email) {
+    return Optional.ofNullable(codes.get(key(email)));
+  }
+
+  @Override
+  public void delete(String email) {
+    codes.remove(key(email));
+  }
+
+  /**
+   * Nothing to do. The timing wheel removes codes as they expire.
+   */
+  @Override
+  public int deleteExpired(LocalDateTime now, int limit) {
+    return 0;
+  }
+
+  @Override
+  public Optional<LocalDateTime> findOldestExpirationAt() {
+    return Optional.empty();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    ticker.shutdownNow();
+  }
+
+  private void tick() {
+    try {
+      timingWheel.advanceTo(System.currentTimeMillis());
+    } catch (RuntimeException e) {
+      // An exception would cancel the schedule, and nothing would expire after.
+      log.error("Verification store tick failed", e);
+    }
+  }
+
+  private void expire(VerificationCode verificationCode) {
+    // Only if it is still the current code of the email
+    if (codes.remove(key(verificationCode.getEmail()), verificationCode)) {
+      expiredCounter.increment();
+    }
+  }
+
+  private long toMillis(LocalDateTime dateTime) {
+    return dateTime.atZone(zoneId).toInstant().toEpochMilli();
+  }
+
+  private static String key(String email) {
+    return email.toLowerCase(Locale.ROOT);
+  }
+}
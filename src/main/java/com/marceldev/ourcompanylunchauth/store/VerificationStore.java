@@ -0,0 +1,35 @@
+package com.marceldev.ourcompanylunchauth.store;
+
+import com.marceldev.ourcompanylunchauth.model.VerificationCode;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Verification codes by email. One code per email, a new one replaces the last.
+ * <p>
+ * verification-store.type picks the implementation: db (default) or memory.
+ */
+public interface VerificationStore {
+
+  void save(VerificationCode verificationCode);
+
+  /**
+   * May return an expired code that wasn't removed yet. Check expirationAt.
+   */
+  Optional<VerificationCode> find(String email);
+
+  void delete(String email);
+
+  /**
+   * Remove at most limit expired codes, oldest first.
+   *
+   * @return number of codes removed. Less than limit when no expired code is left.
+   */
+  int deleteExpired(LocalDateTime now, int limit);
+
+  /**
+   * Expiration of the code that expires first, expired or not. Empty when the store removes codes
+   * as they expire.
+   */
+  Optional<LocalDateTime> findOldestExpirationAt();
+}
@@ -0,0 +1,61 @@
+package com.marceldev.ourcompanylunchauth.util;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.IntToLongFunction;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+public class BCryptStrengthCalibrator {
+
+  private static final String SAMPLE_PASSWORD = "calibration1234";
+
+  private static final int WARM_UP_COUNT = 5;
+
+  private static final int SAMPLE_COUNT = 5;
+
+  /**
+   * Measure hashing time on this host, and return the highest strength that still hashes within
+   * the target time. Each strength is timed SAMPLE_COUNT times and the median is compared, so one
+   * sample slowed or sped up by a GC pause or a noisy neighbour doesn't move the result. Each
+   * strength step doubles the time, so the whole run takes about SAMPLE_COUNT times twice the
+   * target.
+   */
+  public static int calibrate(Duration target, int minStrength, int maxStrength) {
+    warmUp();
+    return calibrate(target, minStrength, maxStrength, BCryptStrengthCalibrator::measure);
+  }
+
+  static int calibrate(Duration target, int minStrength, int maxStrength,
+      IntToLongFunction measure) {
+    long targetNanos = target.toNanos();
+    for (int strength = minStrength; strength <= maxStrength; strength++) {
+      if (median(strength, measure) > targetNanos) {
+        return Math.max(minStrength, strength - 1);
+      }
+    }
+    return maxStrength;
+  }
+
+  private static long median(int strength, IntToLongFunction measure) {
+    long[] samples = new long[SAMPLE_COUNT];
+    for (int i = 0; i < SAMPLE_COUNT; i++) {
+      samples[i] = measure.applyAsLong(strength);
+    }
+    Arrays.sort(samples);
+    return samples[SAMPLE_COUNT / 2];
+  }
+
+  private static void warmUp() {
+    BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(4);
+    for (int i = 0; i < WARM_UP_COUNT; i++) {
+      encoder.encode(SAMPLE_PASSWORD);
+    }
+  }
+
+  private static long measure(int strength) {
+    BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+    long start = System.nanoTime();
+    encoder.encode(SAMPLE_PASSWORD);
+    return System.nanoTime() - start;
+  }
+}
@@ -0,0 +1,151 @@
+package com.marceldev.ourcompanylunchauth.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Expires items at their deadline, in O(1) per item, without scanning everything that is alive.
+ * <p>
+ * Level 0 has a bucket per tick. Each level above has buckets wheelSize times wider. An item goes
+ * to the lowest level whose range covers its deadline. When time reaches a wide bucket, its items
+ * move down a level, and they expire from level 0. With a 1 second tick, a wheel size of 64 and 4
+ * levels, deadlines up to 64^4 seconds (194 days) ahead are covered. Later ones wait in the top
+ * level and are placed again on the way down.
+ * <p>
+ * Time moves only by advanceTo(), so the caller picks the clock and the thread expiry runs on.
+ */
+public class HierarchicalTimingWheel<T> {
+
+  private final long tickMillis;
+
+  private final int wheelSize;
+
+  private final List<Node<T>>[][] buckets;
+
+  // Width of a bucket in ticks, per level
+  private final long[] spans;
+
+  private final Consumer<T> onExpire;
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private long currentTick;
+
+  private int size;
+
+  @SuppressWarnings("unchecked")
+  public HierarchicalTimingWheel(long tickMillis, int wheelSize, int levels, long startMillis,
+      Consumer<T> onExpire) {
+    this.tickMillis = tickMillis;
+    this.wheelSize = wheelSize;
+    this.buckets = new List[levels][wheelSize];
+    this.spans = new long[levels];
+    long span = 1;
+    for (int level = 0; level < levels; level++) {
+      spans[level] = span;
+      for (int i = 0; i < wheelSize; i++) {
+        buckets[level][i] = new ArrayList<>();
+      }
+      span *= wheelSize;
+    }
+    this.onExpire = onExpire;
+    this.currentTick = startMillis / tickMillis;
+  }
+
+  /**
+   * A deadline already passed expires on the next advanceTo().
+   */
+  public void add(T item, long expirationMillis) {
+    // Rounded up, so an item never expires before its deadline
+    long expirationTick = (expirationMillis + tickMillis - 1) / tickMillis;
+    lock.lock();
+    try {
+      place(new Node<>(item, expirationTick));
+      size++;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Expire everything due until now. onExpire runs on this thread, outside the lock.
+   */
+  public void advanceTo(long nowMillis) {
+    List<T> expired = new ArrayList<>();
+    lock.lock();
+    try {
+      long targetTick = nowMillis / tickMillis;
+      while (currentTick < targetTick) {
+        currentTick++;
+        // Top level first, so items moved down are handled by the lower levels in the same tick
+        for (int level = spans.length - 1; level > 0; level--) {
+          if (currentTick % spans[level] == 0) {
+            cascade(level);
+          }
+        }
+        List<Node<T>> due = buckets[0][index(0, currentTick)];
+        for (Node<T> node : due) {
+          expired.add(node.item);
+        }
+        size -= due.size();
+        due.clear();
+      }
+    } finally {
+      lock.unlock();
+    }
+    expired.forEach(onExpire);
+  }
+
+  public int size() {
+    lock.lock();
+    try {
+      return size;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void cascade(int level) {
+    List<Node<T>> bucket = buckets[level][index(level, currentTick)];
+    List<Node<T>> moving = new ArrayList<>(bucket);
+    bucket.clear();
+    for (Node<T> node : moving) {
+      if (node.expirationTick <= currentTick) {
+        // Due this tick. Level 0 of this tick is expired right after the cascade.
+        buckets[0][index(0, currentTick)].add(node);
+      } else {
+        place(node);
+      }
+    }
+  }
+
+  private void place(Node<T> node) {
+    // Added when its tick is already expired: the level 0 bucket of the next tick
+    if (node.expirationTick <= currentTick) {
+      buckets[0][index(0, currentTick + 1)].add(node);
+      return;
+    }
+
+    int top = spans.length - 1;
+    for (int level = 0; level <= top; level++) {
+      if (node.expirationTick / spans[level] - currentTick / spans[level] < wheelSize) {
+        buckets[level][index(level, node.expirationTick)].add(node);
+        return;
+      }
+    }
+
+    // Beyond the top level: the last bucket it reaches now, and placed again from there
+    long lastTick = (currentTick / spans[top] + wheelSize - 1) * spans[top];
+    buckets[top][index(top, lastTick)].add(node);
+  }
+
+  private int index(int level, long tick) {
+    return (int) ((tick / spans[level]) % wheelSize);
+  }
+
+  private record Node<T>(T item, long expirationTick) {
+
+  }
+}
@@ -0,0 +1,93 @@
+package com.marceldev.ourcompanylunchauth.util;
+
+/**
+ * Time of each stage of the current request, like the DB lookup or BCrypt.
+ * <p>
+ * Bound to the request thread by RequestTimingFilter. Without it, start() and record() only read a
+ * ThreadLocal and do nothing, so the calls can stay in the services when timing is off. Stages are
+ * kept in two fixed arrays, so recording one doesn't allocate. Stages over MAX_STAGES are dropped.
+ */
+public final class RequestStages {
+
+  private static final int MAX_STAGES = 16;
+
+  private static final ThreadLocal<RequestStages> CURRENT = new ThreadLocal<>();
+
+  private final long startNanos;
+
+  private final String[] names = new String[MAX_STAGES];
+
+  private final long[] durations = new long[MAX_STAGES];
+
+  private int size;
+
+  private RequestStages(long startNanos) {
+    this.startNanos = startNanos;
+  }
+
+  /**
+   * Start timing the request on this thread. Call end() when it's done.
+   */
+  public static RequestStages begin() {
+    RequestStages stages = new RequestStages(System.nanoTime());
+    CURRENT.set(stages);
+    return stages;
+  }
+
+  /**
+   * @return the start of a stage, to pass to record(). 0 when the request isn't timed.
+   */
+  public static long start() {
+    return CURRENT.get() == null ? 0 : System.nanoTime();
+  }
+
+  public static void record(String stage, long startNanos) {
+    RequestStages stages = CURRENT.get();
+    if (stages != null && stages.size < MAX_STAGES) {
+      stages.names[stages.size] = stage;
+      stages.durations[stages.size] = System.nanoTime() - startNanos;
+      stages.size++;
+    }
+  }
+
+  public void end() {
+    CURRENT.remove();
+  }
+
+  public long elapsedNanos() {
+    return System.nanoTime() - startNanos;
+  }
+
+  /**
+   * The Server-Timing header value, like "hash;dur=251.3, insert;dur=2.1, total;dur=260.8".
+   */
+  public String toServerTiming(long totalNanos) {
+    StringBuilder sb = new StringBuilder(24 * (size + 1));
+    for (int i = 0; i < size; i++) {
+      appendDuration(sb, names[i], durations[i], ";dur=").append(", ");
+    }
+    return appendDuration(sb, "total", totalNanos, ";dur=").toString();
+  }
+
+  /**
+   * For the log, like "hash=251.3ms insert=2.1ms".
+   */
+  public String toLogString() {
+    StringBuilder sb = new StringBuilder(24 * size);
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        sb.append(' ');
+      }
+      appendDuration(sb, names[i], durations[i], "=").append("ms");
+    }
+    return sb.toString();
+  }
+
+  // Milliseconds with one decimal
+  private static StringBuilder appendDuration(StringBuilder sb, String name, long nanos,
+      String separator) {
+    long tenthMillis = nanos / 100_000;
+    return sb.append(name).append(separator)
+        .append(tenthMillis / 10).append('.').append(tenthMillis % 10);
+  }
+}
@@ -0,0 +1,83 @@
+package com.marceldev.ourcompanylunchauth.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * AES-GCM for signing_key.private_key, with a key from config instead of the DB. A DB dump, a
+ * backup or the replica alone then can't sign tokens.
+ * <p>
+ * Values are "v1:" followed by the Base64 of the IV and the ciphertext. The kid is authenticated
+ * with it, so a value copied to another row doesn't decrypt. Keys saved before encryption have no
+ * prefix, and are read as they are.
+ */
+public class SigningKeyCipher {
+
+  private static final String PREFIX = "v1:";
+
+  private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+  private static final int KEY_LENGTH = 32;
+
+  private static final int IV_LENGTH = 12;
+
+  private static final int TAG_BIT_LENGTH = 128;
+
+  private final SecureRandom secureRandom = new SecureRandom();
+
+  private final SecretKey key;
+
+  /**
+   * @param base64Key 32 bytes, Base64 encoded. e.g. from "openssl rand -base64 32"
+   */
+  public SigningKeyCipher(String base64Key) {
+    byte[] keyBytes = Base64.getDecoder().decode(base64Key);
+    if (keyBytes.length != KEY_LENGTH) {
+      throw new IllegalArgumentException("Signing key encryption key should be 32 bytes.");
+    }
+    this.key = new SecretKeySpec(keyBytes, "AES");
+  }
+
+  public String encrypt(String kid, String privateKey) {
+    byte[] iv = new byte[IV_LENGTH];
+    secureRandom.nextBytes(iv);
+    byte[] encrypted = doFinal(Cipher.ENCRYPT_MODE, kid, iv,
+        privateKey.getBytes(StandardCharsets.US_ASCII));
+
+    byte[] value = new byte[IV_LENGTH + encrypted.length];
+    System.arraycopy(iv, 0, value, 0, IV_LENGTH);
+    System.arraycopy(encrypted, 0, value, IV_LENGTH, encrypted.length);
+    return PREFIX + Base64.getEncoder().encodeToString(value);
+  }
+
+  public String decrypt(String kid, String stored) {
+    if (!stored.startsWith(PREFIX)) {
+      return stored;
+    }
+
+    byte[] value = Base64.getDecoder().decode(stored.substring(PREFIX.length()));
+    byte[] iv = new byte[IV_LENGTH];
+    System.arraycopy(value, 0, iv, 0, IV_LENGTH);
+    byte[] encrypted = new byte[value.length - IV_LENGTH];
+    System.arraycopy(value, IV_LENGTH, encrypted, 0, encrypted.length);
+    return new String(doFinal(Cipher.DECRYPT_MODE, kid, iv, encrypted),
+        StandardCharsets.US_ASCII);
+  }
+
+  private byte[] doFinal(int mode, String kid, byte[] iv, byte[] input) {
+    try {
+      Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+      cipher.init(mode, key, new GCMParameterSpec(TAG_BIT_LENGTH, iv));
+      cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+      return cipher.doFinal(input);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
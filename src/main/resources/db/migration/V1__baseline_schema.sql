@@ -0,0 +1,71 @@
+-- Schema as ddl-auto: update left it. IF NOT EXISTS, so existing databases pass through unchanged.
+
+CREATE TABLE IF NOT EXISTS users
+(
+    id       BIGINT NOT NULL AUTO_INCREMENT,
+    email    VARCHAR(255),
+    password VARCHAR(255),
+    role     VARCHAR(20),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS verification
+(
+    id            BIGINT NOT NULL AUTO_INCREMENT,
+    created_at    DATETIME(6),
+    updated_at    DATETIME(6),
+    email         VARCHAR(255),
+    expiration_at DATETIME(6),
+    code          VARCHAR(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS refresh_token
+(
+    id            BIGINT NOT NULL AUTO_INCREMENT,
+    created_at    DATETIME(6),
+    updated_at    DATETIME(6),
+    token_hash    VARCHAR(64),
+    family_id     VARCHAR(36),
+    email         VARCHAR(255),
+    role          VARCHAR(20),
+    expiration_at DATETIME(6),
+    used_at       DATETIME(6),
+    revoked_at    DATETIME(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS signing_key
+(
+    id            BIGINT NOT NULL AUTO_INCREMENT,
+    created_at    DATETIME(6),
+    updated_at    DATETIME(6),
+    kid           VARCHAR(36),
+    algorithm     VARCHAR(10),
+    private_key   VARCHAR(512),
+    public_key    VARCHAR(512),
+    active_from   DATETIME(6),
+    expiration_at DATETIME(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS revoked_token
+(
+    id            BIGINT NOT NULL AUTO_INCREMENT,
+    created_at    DATETIME(6),
+    updated_at    DATETIME(6),
+    jti           VARCHAR(64),
+    expiration_at DATETIME(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS user_token_revocation
+(
+    id            BIGINT NOT NULL AUTO_INCREMENT,
+    created_at    DATETIME(6),
+    updated_at    DATETIME(6),
+    email         VARCHAR(255),
+    not_before    DATETIME(6),
+    expiration_at DATETIME(6),
+    PRIMARY KEY (id)
+);
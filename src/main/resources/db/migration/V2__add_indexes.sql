@@ -0,0 +1,24 @@
+-- ddl-auto: update made role a native ENUM. VARCHAR, so a new role doesn't need a migration.
+ALTER TABLE users MODIFY COLUMN role VARCHAR(20);
+ALTER TABLE refresh_token MODIFY COLUMN role VARCHAR(20);
+
+-- Fails if an email was registered twice. Find them with:
+-- SELECT email, COUNT(*) FROM users GROUP BY email HAVING COUNT(*) > 1;
+CREATE UNIQUE INDEX IF NOT EXISTS uk_users_email ON users (email);
+
+-- Verification codes are short-lived. Keep only the latest per email.
+DELETE
+FROM verification
+WHERE id NOT IN (SELECT latest.id
+                 FROM (SELECT MAX(id) AS id FROM verification GROUP BY email) latest);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_verification_email ON verification (email);
+CREATE INDEX IF NOT EXISTS idx_verification_expiration_at ON verification (expiration_at);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_refresh_token_token_hash ON refresh_token (token_hash);
+CREATE INDEX IF NOT EXISTS idx_refresh_token_family_id ON refresh_token (family_id);
+CREATE INDEX IF NOT EXISTS idx_refresh_token_expiration_at ON refresh_token (expiration_at);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_signing_key_kid ON signing_key (kid);
+
+CREATE INDEX IF NOT EXISTS idx_revoked_token_expiration_at ON revoked_token (expiration_at);
+CREATE INDEX IF NOT EXISTS idx_user_token_revocation_expiration_at ON user_token_revocation (expiration_at);
@@ -0,0 +1,21 @@
+CREATE TABLE email_outbox
+(
+    id              BIGINT NOT NULL AUTO_INCREMENT,
+    created_at      DATETIME(6),
+    updated_at      DATETIME(6),
+    recipient       VARCHAR(255),
+    subject         VARCHAR(255),
+    body            VARCHAR(2000),
+    enqueued_at     DATETIME(6),
+    expiration_at   DATETIME(6),
+    next_attempt_at DATETIME(6),
+    attempt_count   INT    NOT NULL,
+    claimed_by      VARCHAR(36),
+    claimed_until   DATETIME(6),
+    failed_at       DATETIME(6),
+    last_error      VARCHAR(500),
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_email_outbox_next_attempt_at ON email_outbox (next_attempt_at);
+CREATE INDEX idx_email_outbox_failed_at ON email_outbox (failed_at);
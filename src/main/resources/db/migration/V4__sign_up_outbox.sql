@@ -0,0 +1,26 @@
+-- Users made before the outbox already have their profile on the business server.
+ALTER TABLE users ADD COLUMN IF NOT EXISTS sign_up_status VARCHAR(20);
+UPDATE users SET sign_up_status = 'COMPLETED' WHERE sign_up_status IS NULL;
+
+CREATE TABLE sign_up_outbox
+(
+    id              BIGINT      NOT NULL AUTO_INCREMENT,
+    created_at      DATETIME(6),
+    updated_at      DATETIME(6),
+    email           VARCHAR(255),
+    name            VARCHAR(255),
+    role            VARCHAR(20),
+    idempotency_key VARCHAR(36) NOT NULL,
+    enqueued_at     DATETIME(6),
+    next_attempt_at DATETIME(6),
+    attempt_count   INT         NOT NULL,
+    claimed_by      VARCHAR(36),
+    claimed_until   DATETIME(6),
+    failed_at       DATETIME(6),
+    last_error      VARCHAR(500),
+    PRIMARY KEY (id)
+);
+
+CREATE UNIQUE INDEX uk_sign_up_outbox_idempotency_key ON sign_up_outbox (idempotency_key);
+CREATE INDEX idx_sign_up_outbox_next_attempt_at ON sign_up_outbox (next_attempt_at);
+CREATE INDEX idx_sign_up_outbox_failed_at ON sign_up_outbox (failed_at);
@@ -0,0 +1,10 @@
+-- Unique rotation number, so nodes rotating at the same time save one key between them.
+-- Existing keys are numbered in the order they became active.
+ALTER TABLE signing_key ADD COLUMN IF NOT EXISTS generation BIGINT;
+UPDATE signing_key s
+SET generation = (SELECT COUNT(*)
+                  FROM signing_key o
+                  WHERE o.active_from < s.active_from
+                     OR (o.active_from = s.active_from AND o.id < s.id));
+
+CREATE UNIQUE INDEX uk_signing_key_generation ON signing_key (generation);
@@ -0,0 +1,2 @@
+-- A resend deletes the unsent emails to the same recipient.
+CREATE INDEX idx_email_outbox_recipient ON email_outbox (recipient);
@@ -0,0 +1,2 @@
+-- Revoking a user revokes all of the user's refresh tokens.
+CREATE INDEX idx_refresh_token_email ON refresh_token (email);
@@ -0,0 +1,102 @@
+package com.marceldev.ourcompanylunchauth.actuator;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.jayway.jsonpath.JsonPath;
+import com.marceldev.ourcompanylunchauth.basic.IntegrationTest;
+import com.marceldev.ourcompanylunchauth.component.JfrRecorder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+/**
+ * The actuator user is set in application-test.yml.
+ */
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+    "jfr-recording.dump-directory=${java.io.tmpdir}/auth-jfr-test",
+    "jfr-recording.max-size-mb=50"
+})
+class JfrRecordingEndpointTest extends IntegrationTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private JfrRecorder jfrRecorder;
+
+  @AfterEach
+  void closeRecording() {
+    jfrRecorder.shutdown();
+  }
+
+  @Test
+  @DisplayName("Start, Dump and Download - Success")
+  void start_dump_download() throws Exception {
+    // given
+    mockMvc.perform(control("start"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.running").value(true));
+
+    // when
+    String response = mockMvc.perform(control("dump"))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    String dump = JsonPath.read(response, "$.dump");
+
+    // then
+    mockMvc.perform(get("/actuator/jfr/" + dump)
+            .with(httpBasic("actuator", "actuator1234")))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_OCTET_STREAM));
+  }
+
+  @Test
+  @DisplayName("Dump - Fail(Not running)")
+  void dump_fail_not_running() throws Exception {
+    mockMvc.perform(control("dump"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  @DisplayName("Control - Fail(Unknown action)")
+  void control_fail_unknown_action() throws Exception {
+    mockMvc.perform(control("restart"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  @DisplayName("Download - Fail(Not a dump)")
+  void download_fail_not_dump() throws Exception {
+    mockMvc.perform(get("/actuator/jfr/application.yml")
+            .with(httpBasic("actuator", "actuator1234")))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  @DisplayName("Start - Fail(No credentials)")
+  void start_fail_anonymous() throws Exception {
+    mockMvc.perform(post("/actuator/jfr")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"action\":\"start\"}"))
+        .andExpect(status().isUnauthorized());
+  }
+
+  private static MockHttpServletRequestBuilder control(String action) {
+    return post("/actuator/jfr")
+        .with(httpBasic("actuator", "actuator1234"))
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"action\":\"" + action + "\"}");
+  }
+}
@@ -0,0 +1,73 @@
+package com.marceldev.ourcompanylunchauth.basic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.marceldev.ourcompanylunchauth.component.PasswordHasher;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Holds every hash until release(), so a test can keep the password hash pool busy.
+ */
+public class BlockingPasswordEncoder implements PasswordEncoder {
+
+  private final CountDownLatch entered = new CountDownLatch(1);
+
+  private final CountDownLatch released = new CountDownLatch(1);
+
+  // Callers of the held hashes. Not the common pool, which may have a single thread.
+  private final ExecutorService callers = Executors.newFixedThreadPool(2);
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    block();
+    return "{noop}" + rawPassword;
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    block();
+    return encodedPassword.equals("{noop}" + rawPassword);
+  }
+
+  /**
+   * Fill a PasswordHasher of one thread and a queue of one: a hash running on the thread, and one
+   * waiting in the queue.
+   *
+   * @return the two hashes, "first" and "second", done after release()
+   */
+  public List<Future<String>> fillPool(PasswordHasher passwordHasher, MeterRegistry meterRegistry)
+      throws InterruptedException {
+    Future<String> running = callers.submit(() -> passwordHasher.encode("first"));
+    assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+    Future<String> queued = callers.submit(() -> passwordHasher.encode("second"));
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (meterRegistry.get("executor.queued").tag("name", "auth.password.hash")
+        .gauge().value() < 1) {
+      assertThat(System.nanoTime()).isLessThan(deadline);
+      Thread.sleep(10);
+    }
+    return List.of(running, queued);
+  }
+
+  public void release() {
+    released.countDown();
+    callers.shutdown();
+  }
+
+  private void block() {
+    entered.countDown();
+    try {
+      released.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
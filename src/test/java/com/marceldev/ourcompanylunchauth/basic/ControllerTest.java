@@ -1,6 +1,7 @@
 package com.marceldev.ourcompanylunchauth.basic;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marceldev.ourcompanylunchauth.component.AuthRateLimiter;
 import com.marceldev.ourcompanylunchauth.controller.UserController;
 import com.marceldev.ourcompanylunchauth.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,4 +22,7 @@ public abstract class ControllerTest {
 
   @MockBean
   protected UserService userService;
+
+  @MockBean
+  protected AuthRateLimiter authRateLimiter;
 }
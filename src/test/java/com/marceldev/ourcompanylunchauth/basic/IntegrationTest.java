@@ -1,11 +1,18 @@
 package com.marceldev.ourcompanylunchauth.basic;
 
 import com.marceldev.ourcompanylunchauth.component.BusinessServerClient;
+import com.marceldev.ourcompanylunchauth.component.EmailOutboxDispatcher;
 import com.marceldev.ourcompanylunchauth.component.EmailSender;
+import com.marceldev.ourcompanylunchauth.component.SignUpOutboxRelay;
+import com.marceldev.ourcompanylunchauth.component.TokenRevocationRegistry;
+import com.marceldev.ourcompanylunchauth.component.UserCredentialCache;
+import com.marceldev.ourcompanylunchauth.repository.EmailOutboxRepository;
+import com.marceldev.ourcompanylunchauth.repository.SignUpOutboxRepository;
 import com.marceldev.ourcompanylunchauth.repository.UserRepository;
 import com.marceldev.ourcompanylunchauth.repository.VerificationRepository;
 import com.marceldev.ourcompanylunchauth.service.UserService;
 import com.marceldev.ourcompanylunchcommon.TokenProvider;
+import org.junit.jupiter.api.AfterEach;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -26,6 +33,12 @@ public abstract class IntegrationTest {
   @Autowired
   protected VerificationRepository verificationRepository;
 
+  @Autowired
+  protected EmailOutboxRepository emailOutboxRepository;
+
+  @Autowired
+  protected SignUpOutboxRepository signUpOutboxRepository;
+
   // --- Service ---
 
   @Autowired
@@ -42,6 +55,18 @@ public abstract class IntegrationTest {
   @Autowired
   protected RestTemplate restTemplate;
 
+  @Autowired
+  protected TokenRevocationRegistry tokenRevocationRegistry;
+
+  @Autowired
+  protected UserCredentialCache userCredentialCache;
+
+  @Autowired
+  protected EmailOutboxDispatcher emailOutboxDispatcher;
+
+  @Autowired
+  protected SignUpOutboxRelay signUpOutboxRelay;
+
   // --- Mock ---
 
   @MockBean
@@ -49,4 +74,10 @@ public abstract class IntegrationTest {
 
   @MockBean
   protected BusinessServerClient businessServerClient;
+
+  // Each test rolls back its users, but the cache would keep them
+  @AfterEach
+  void clearUserCredentialCache() {
+    userCredentialCache.invalidateAll();
+  }
 }
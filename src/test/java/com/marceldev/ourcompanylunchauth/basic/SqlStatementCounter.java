@@ -0,0 +1,38 @@
+package com.marceldev.ourcompanylunchauth.basic;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares, per thread, so scheduled tasks running in the
+ * background don't add to the count of a test. The last one is kept too, to EXPLAIN the SQL a
+ * repository method really runs.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+  private static final ThreadLocal<Integer> COUNT = ThreadLocal.withInitial(() -> 0);
+
+  private static final ThreadLocal<String> LAST_STATEMENT = new ThreadLocal<>();
+
+  @Override
+  public String inspect(String sql) {
+    COUNT.set(COUNT.get() + 1);
+    LAST_STATEMENT.set(sql);
+    return sql;
+  }
+
+  public static void reset() {
+    COUNT.set(0);
+    LAST_STATEMENT.remove();
+  }
+
+  public static int count() {
+    return COUNT.get();
+  }
+
+  /**
+   * With "?" for the parameters. null when nothing was prepared since the last reset.
+   */
+  public static String lastStatement() {
+    return LAST_STATEMENT.get();
+  }
+}
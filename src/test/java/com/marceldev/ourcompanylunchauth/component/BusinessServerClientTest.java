@@ -0,0 +1,195 @@
+package com.marceldev.ourcompanylunchauth.component;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.marceldev.ourcompanylunchauth.config.AppConfig;
+import com.marceldev.ourcompanylunchauth.exception.BusinessServerUnavailableException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Against a stub business server on a local port, which answers with whatever the test sets.
+ */
+class BusinessServerClientTest {
+
+  private static final String SECRET = "irsntuuqftynustrsyutnqfrastuarkftuqtulnqfturaustnayrustuaarsewur";
+
+  private static final String SIGN_UP_PATH = "/members/signup";
+
+  private static final long READ_TIMEOUT_MILLIS = 300;
+
+  private HttpServer stubServer;
+
+  private ExecutorService stubExecutor;
+
+  private final AtomicInteger requestCount = new AtomicInteger();
+
+  private final AtomicReference<StubHandler> stubHandler =
+      new AtomicReference<>(exchange -> respond(exchange, 200));
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private BusinessServerClient businessServerClient;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    stubServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    stubExecutor = Executors.newCachedThreadPool();
+    stubServer.setExecutor(stubExecutor);
+    stubServer.createContext(SIGN_UP_PATH, exchange -> {
+      requestCount.incrementAndGet();
+      try {
+        stubHandler.get().handle(exchange);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    stubServer.start();
+
+    RestTemplate restTemplate = new AppConfig().restTemplate(new RestTemplateBuilder(), false,
+        1000, READ_TIMEOUT_MILLIS, HttpClient.Version.HTTP_1_1);
+    String url = "http://127.0.0.1:" + stubServer.getAddress().getPort();
+    // Opens after 2 failures of the last 4 calls. 1 call at once.
+    businessServerClient = new BusinessServerClient(new JwtMinter(SECRET, 24), restTemplate,
+        meterRegistry, url, SIGN_UP_PATH, 50, 4, 4, 30, 1, 0);
+  }
+
+  @AfterEach
+  void tearDown() {
+    stubServer.stop(0);
+    stubExecutor.shutdownNow();
+  }
+
+  @Test
+  @DisplayName("Sign up - Success")
+  void sign_up() {
+    // given
+    AtomicReference<String> authorization = new AtomicReference<>();
+    AtomicReference<String> idempotencyKey = new AtomicReference<>();
+    stubHandler.set(exchange -> {
+      authorization.set(exchange.getRequestHeaders().getFirst("Authorization"));
+      idempotencyKey.set(exchange.getRequestHeaders().getFirst("Idempotency-Key"));
+      respond(exchange, 200);
+    });
+
+    // when
+    signUp();
+
+    // then
+    assertThat(authorization.get()).startsWith("Bearer ");
+    assertThat(idempotencyKey.get()).isEqualTo("idempotency-key");
+    assertThat(meterRegistry.get("auth.business.server.call")
+        .tag("operation", "signup")
+        .tag("outcome", "success")
+        .timer().count()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Sign up - Fail(Read timeout)")
+  void sign_up_fail_read_timeout() {
+    // given
+    stubHandler.set(exchange -> {
+      Thread.sleep(READ_TIMEOUT_MILLIS * 3);
+      respond(exchange, 200);
+    });
+
+    // when // then
+    assertThatThrownBy(this::signUp)
+        .isInstanceOf(ResourceAccessException.class);
+    assertThat(meterRegistry.get("auth.business.server.call")
+        .tag("operation", "signup")
+        .tag("outcome", "timeout")
+        .timer().count()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Sign up - Fail(Circuit opens after server errors, and calls stop)")
+  void sign_up_fail_circuit_open() {
+    // given
+    stubHandler.set(exchange -> respond(exchange, 500));
+    for (int i = 0; i < 4; i++) {
+      assertThatThrownBy(this::signUp)
+          .isInstanceOf(HttpServerErrorException.class);
+    }
+
+    // when // then
+    assertThatThrownBy(this::signUp)
+        .isInstanceOf(BusinessServerUnavailableException.class);
+    assertThat(requestCount.get()).isEqualTo(4);
+  }
+
+  @Test
+  @DisplayName("Sign up - Fail(4xx don't open the circuit)")
+  void sign_up_fail_client_error() {
+    // given
+    stubHandler.set(exchange -> respond(exchange, 400));
+
+    // when // then
+    for (int i = 0; i < 6; i++) {
+      assertThatThrownBy(this::signUp)
+          .isInstanceOf(HttpClientErrorException.class);
+    }
+    assertThat(requestCount.get()).isEqualTo(6);
+  }
+
+  @Test
+  @DisplayName("Sign up - Fail(Bulkhead full)")
+  void sign_up_fail_bulkhead_full() throws Exception {
+    // given
+    CountDownLatch entered = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    stubHandler.set(exchange -> {
+      entered.countDown();
+      release.await(5, TimeUnit.SECONDS);
+      respond(exchange, 200);
+    });
+    CompletableFuture<Void> first = CompletableFuture.runAsync(this::signUp);
+    assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+    // when // then
+    assertThatThrownBy(this::signUp)
+        .isInstanceOf(BusinessServerUnavailableException.class);
+    release.countDown();
+    // The first call may have hit the read timeout by now. Only the rejection matters here.
+    first.handle((result, e) -> null).get(5, TimeUnit.SECONDS);
+    assertThat(requestCount.get()).isEqualTo(1);
+  }
+
+  private static void respond(HttpExchange exchange, int status) throws IOException {
+    exchange.getRequestBody().readAllBytes();
+    exchange.sendResponseHeaders(status, -1);
+    exchange.close();
+  }
+
+  private void signUp() {
+    businessServerClient.signUp("hello@example.com", "John", "VIEWER", "idempotency-key");
+  }
+
+  @FunctionalInterface
+  private interface StubHandler {
+
+    void handle(HttpExchange exchange) throws IOException, InterruptedException;
+  }
+}
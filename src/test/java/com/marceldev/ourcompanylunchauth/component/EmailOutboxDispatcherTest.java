@@ -0,0 +1,108 @@
+package com.marceldev.ourcompanylunchauth.component;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.marceldev.ourcompanylunchauth.basic.IntegrationTest;
+import com.marceldev.ourcompanylunchauth.entity.EmailOutbox;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+class EmailOutboxDispatcherTest extends IntegrationTest {
+
+  @Test
+  @DisplayName("Dispatch - Retry later when SMTP fails")
+  void dispatch_retry() {
+    // given
+    EmailOutbox saved = emailOutboxRepository.save(
+        createEmailOutbox(LocalDateTime.now().plusMinutes(3)));
+    given(emailSender.sendMails(anyList(), any()))
+        .willReturn(List.of(new MailSendException("Relay down")));
+
+    // when
+    emailOutboxDispatcher.dispatch();
+
+    // then
+    EmailOutbox retry = emailOutboxRepository.findById(saved.getId()).orElseThrow();
+    assertThat(retry.getAttemptCount()).isEqualTo(1);
+    assertThat(retry.getNextAttemptAt()).isAfter(saved.getNextAttemptAt());
+    assertThat(retry.getClaimedBy()).isNull();
+    assertThat(retry.getFailedAt()).isNull();
+    assertThat(retry.getLastError()).contains("Relay down");
+  }
+
+  @Test
+  @DisplayName("Dispatch - Give up on an expired email without sending")
+  void dispatch_expired() {
+    // given
+    EmailOutbox saved = emailOutboxRepository.save(
+        createEmailOutbox(LocalDateTime.now().minusSeconds(1)));
+
+    // when
+    emailOutboxDispatcher.dispatch();
+
+    // then
+    verify(emailSender, never()).sendMails(anyList(), any());
+    EmailOutbox failed = emailOutboxRepository.findById(saved.getId()).orElseThrow();
+    assertThat(failed.getFailedAt()).isNotNull();
+  }
+
+  /**
+   * The poll thread reads committed rows, so this test commits and cleans up instead of rolling
+   * back.
+   */
+  @Test
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  @DisplayName("Poll - Returns while the dispatch waits on SMTP")
+  void poll_off_scheduler_thread() throws Exception {
+    CountDownLatch sending = new CountDownLatch(1);
+    CountDownLatch relayAnswers = new CountDownLatch(1);
+    try {
+      // given
+      emailOutboxRepository.save(createEmailOutbox(LocalDateTime.now().plusMinutes(3)));
+      given(emailSender.sendMails(anyList(), any()))
+          .willAnswer(invocation -> {
+            sending.countDown();
+            relayAnswers.await(5, TimeUnit.SECONDS);
+            return Arrays.asList(new Exception[invocation.<List<?>>getArgument(0).size()]);
+          });
+
+      // when
+      emailOutboxDispatcher.poll();
+
+      // then
+      assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+    } finally {
+      relayAnswers.countDown();
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (emailOutboxRepository.count() > 0 && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+      emailOutboxRepository.deleteAll();
+    }
+  }
+
+  private static EmailOutbox createEmailOutbox(LocalDateTime expirationAt) {
+    LocalDateTime now = LocalDateTime.now();
+    return EmailOutbox.builder()
+        .recipient("hello@example.com")
+        .subject("Subject")
+        .body("Body")
+        .enqueuedAt(now)
+        .nextAttemptAt(now)
+        .expirationAt(expirationAt)
+        .build();
+  }
+}
@@ -0,0 +1,128 @@
+package com.marceldev.ourcompanylunchauth.component;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.marceldev.ourcompanylunchauth.model.MailMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+/**
+ * Against an embedded SMTP server, no Spring context.
+ */
+@Slf4j
+class EmailSenderTest {
+
+  private static final int POOL_SIZE = 2;
+
+  @RegisterExtension
+  static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private EmailSender emailSender;
+
+  @BeforeEach
+  void setUp() {
+    JavaMailSenderImpl javaMailSender = new JavaMailSenderImpl();
+    javaMailSender.setHost("localhost");
+    javaMailSender.setPort(ServerSetupTest.SMTP.getPort());
+    meterRegistry = new SimpleMeterRegistry();
+    emailSender = new EmailSender(javaMailSender, meterRegistry, POOL_SIZE, 60, 10_000, 100);
+  }
+
+  @AfterEach
+  void tearDown() {
+    emailSender.shutdown();
+  }
+
+  @Test
+  @DisplayName("Send mail - Success")
+  void send_mail() throws Exception {
+    // when
+    emailSender.sendMail("hello@example.com", "Subject", "Verification code is 123456.");
+
+    // then
+    assertThat(greenMail.getReceivedMessages()).hasSize(1);
+    assertThat(greenMail.getReceivedMessages()[0].getSubject()).isEqualTo("Subject");
+  }
+
+  @Test
+  @DisplayName("Send mails - Sessions are reused across batches")
+  void send_mails_reuse_session() {
+    // given
+    int batches = 20;
+    int batchSize = 10;
+    List<MailMessage> messages = IntStream.range(0, batchSize)
+        .mapToObj(i -> new MailMessage("user" + i + "@example.com", "Subject", "Body"))
+        .toList();
+
+    // when
+    long start = System.nanoTime();
+    List<Exception> failures = IntStream.range(0, batches).parallel()
+        .mapToObj(i -> emailSender.sendMails(messages, Instant.MAX))
+        .flatMap(List::stream)
+        .toList();
+    double second = (System.nanoTime() - start) / 1e9;
+
+    // then
+    int sent = batches * batchSize;
+    log.info("Sent {} messages in {}s: {} messages/s", sent, second, sent / second);
+    assertThat(failures).allMatch(Objects::isNull);
+    assertThat(greenMail.getReceivedMessages()).hasSize(sent);
+    assertThat(meterRegistry.get("auth.email.smtp.pool.created").functionCounter().count())
+        .isLessThanOrEqualTo(POOL_SIZE);
+  }
+
+  @Test
+  @DisplayName("Send mails - Fail(Relay down, the rest fail without waiting on the pool again)")
+  void send_mails_fail_relay_down() {
+    // given
+    JavaMailSenderImpl javaMailSender = new JavaMailSenderImpl();
+    javaMailSender.setHost("localhost");
+    javaMailSender.setPort(ServerSetupTest.SMTP.getPort() + 1); // Nothing listening
+    SimpleMeterRegistry downMeterRegistry = new SimpleMeterRegistry();
+    EmailSender downEmailSender = new EmailSender(javaMailSender, downMeterRegistry, POOL_SIZE,
+        60, 10_000, 100);
+
+    try {
+      // when
+      List<Exception> failures = downEmailSender.sendMails(messages(3), Instant.MAX);
+
+      // then
+      assertThat(failures).hasSize(3).allMatch(Objects::nonNull);
+      assertThat(downMeterRegistry.get("auth.email.smtp.pool.borrow").timer().count())
+          .isEqualTo(1);
+    } finally {
+      downEmailSender.shutdown();
+    }
+  }
+
+  @Test
+  @DisplayName("Send mails - Fail(Deadline passed, nothing sent)")
+  void send_mails_fail_deadline() {
+    // when
+    List<Exception> failures = emailSender.sendMails(messages(3), Instant.now().minusSeconds(1));
+
+    // then
+    assertThat(failures).hasSize(3).allMatch(Objects::nonNull);
+    assertThat(greenMail.getReceivedMessages()).isEmpty();
+  }
+
+  private static List<MailMessage> messages(int count) {
+    return IntStream.range(0, count)
+        .mapToObj(i -> new MailMessage("user" + i + "@example.com", "Subject", "Body"))
+        .toList();
+  }
+}
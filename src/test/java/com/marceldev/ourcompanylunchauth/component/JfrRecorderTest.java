@@ -0,0 +1,126 @@
+package com.marceldev.ourcompanylunchauth.component;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import jdk.jfr.EventType;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * A real recording, dumped to a temporary directory. No Spring context.
+ */
+class JfrRecorderTest {
+
+  @TempDir
+  private Path dumpDirectory;
+
+  private JfrRecorder jfrRecorder;
+
+  @BeforeEach
+  void setUp() {
+    jfrRecorder = new JfrRecorder(dumpDirectory.toString(), "profile", 30, 50, 2);
+  }
+
+  @AfterEach
+  void tearDown() {
+    jfrRecorder.shutdown();
+  }
+
+  @Test
+  @DisplayName("Dump - Success(System properties and environment not recorded)")
+  void dump() throws Exception {
+    // given
+    jfrRecorder.start();
+
+    // when
+    Map<String, Object> status = jfrRecorder.dump();
+
+    // then
+    assertThat(status.get("running")).isEqualTo(true);
+    Path dump = jfrRecorder.findDump((String) status.get("dump")).orElseThrow();
+    List<String> eventNames = RecordingFile.readAllEvents(dump).stream()
+        .map(RecordedEvent::getEventType)
+        .map(EventType::getName)
+        .distinct()
+        .toList();
+    assertThat(eventNames).isNotEmpty()
+        .doesNotContain("jdk.InitialSystemProperty", "jdk.InitialEnvironmentVariable",
+            "jdk.JVMInformation", "jdk.SystemProcess");
+  }
+
+  @Test
+  @DisplayName("Dump - Only the newest dumps kept")
+  void dump_old_deleted() throws Exception {
+    // given
+    Files.createFile(dumpDirectory.resolve("auth-20240101-000000-000.jfr"));
+    Files.createFile(dumpDirectory.resolve("auth-20240102-000000-000.jfr"));
+    jfrRecorder.start();
+
+    // when
+    Map<String, Object> status = jfrRecorder.dump();
+
+    // then
+    assertThat(status.get("dumps")).asList()
+        .containsExactly("auth-20240102-000000-000.jfr", status.get("dump"));
+    assertThat(dumpDirectory.resolve("auth-20240101-000000-000.jfr")).doesNotExist();
+  }
+
+  @Test
+  @DisplayName("Dump and Stop - Both kept, even within one second")
+  void dump_then_stop() {
+    // given
+    jfrRecorder.start();
+
+    // when
+    String dump = (String) jfrRecorder.dump().get("dump");
+    String stopDump = (String) jfrRecorder.stop().get("dump");
+
+    // then
+    assertThat(stopDump).isNotEqualTo(dump);
+    assertThat(jfrRecorder.findDump(dump)).isPresent();
+    assertThat(jfrRecorder.findDump(stopDump)).isPresent();
+  }
+
+  @Test
+  @DisplayName("Stop - Success(Dumped, then closed)")
+  void stop() {
+    // given
+    jfrRecorder.start();
+
+    // when
+    Map<String, Object> status = jfrRecorder.stop();
+
+    // then
+    assertThat(status.get("running")).isEqualTo(false);
+    assertThat(jfrRecorder.findDump((String) status.get("dump"))).isPresent();
+  }
+
+  @Test
+  @DisplayName("Dump - Fail(Not running)")
+  void dump_fail_not_running() {
+    // when // then
+    assertThatThrownBy(() -> jfrRecorder.dump())
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  @DisplayName("Find Dump - Fail(Not a dump name, other files not readable)")
+  void find_dump_fail_other_file() throws Exception {
+    // given
+    Files.createFile(dumpDirectory.resolve("secret.txt"));
+
+    // when // then
+    assertThat(jfrRecorder.findDump("secret.txt")).isEmpty();
+    assertThat(jfrRecorder.findDump("../auth-20240101-000000-000.jfr")).isEmpty();
+  }
+}
@@ -0,0 +1,128 @@
+package com.marceldev.ourcompanylunchauth.component;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marceldev.ourcompanylunchauth.basic.IntegrationTest;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+class JwtMinterTest extends IntegrationTest {
+
+  @Autowired
+  private JwtMinter jwtMinter;
+
+  @Value("${common.jwt.secret}")
+  private String secret;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  @DisplayName("Generate token - Accepted by TokenProvider")
+  void generate_token() {
+    // when
+    String token = jwtMinter.generateToken("hello@example.com", "VIEWER");
+
+    // then
+    assertThat(tokenProvider.validateToken(token)).isTrue();
+
+    Claims claims = Jwts.parser()
+        .verifyWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+        .build()
+        .parseSignedClaims(token)
+        .getPayload();
+    assertThat(claims.getSubject()).isEqualTo("hello@example.com");
+    assertThat(claims.get("role", String.class)).isEqualTo("VIEWER");
+    assertThat(claims.getExpiration()).isAfter(claims.getIssuedAt());
+    assertThat(claims.getId()).hasSize(22);
+  }
+
+  @Test
+  @DisplayName("Generate token - Unique jti per token")
+  void generate_token_unique_jti() throws Exception {
+    // when
+    String token1 = jwtMinter.generateToken("hello@example.com", "VIEWER");
+    String token2 = jwtMinter.generateToken("hello@example.com", "VIEWER");
+
+    // then
+    assertThat(decode(token1, 1).get("jti")).isNotEqualTo(decode(token2, 1).get("jti"));
+  }
+
+  @Test
+  @DisplayName("Generate token - Same header and claim names as TokenProvider, plus jti")
+  void generate_token_same_shape() throws Exception {
+    // given
+    String expected = tokenProvider.generateToken("hello@example.com", "VIEWER");
+
+    // when
+    String token = jwtMinter.generateToken("hello@example.com", "VIEWER");
+
+    // then
+    assertThat(decode(token, 0)).isEqualTo(decode(expected, 0));
+    Set<String> expectedClaimNames = new HashSet<>(decode(expected, 1).keySet());
+    expectedClaimNames.add("jti");
+    assertThat(decode(token, 1).keySet()).isEqualTo(expectedClaimNames);
+  }
+
+  @Test
+  @DisplayName("Generate token - Escape and encode non-ASCII email")
+  void generate_token_escape() {
+    // when
+    String token = jwtMinter.generateToken("\"한글\"@example.com", "VIEWER");
+
+    // then
+    Claims claims = Jwts.parser()
+        .verifyWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+        .build()
+        .parseSignedClaims(token)
+        .getPayload();
+    assertThat(claims.getSubject()).isEqualTo("\"한글\"@example.com");
+  }
+
+  @Test
+  @DisplayName("Generate token - Concurrently on virtual threads, with pooled buffers")
+  void generate_token_virtual_threads() throws Exception {
+    // given
+    List<Future<String>> tokens = new ArrayList<>();
+
+    // when
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < 1000; i++) {
+        String email = "user" + i + "@example.com";
+        tokens.add(executor.submit(() -> jwtMinter.generateToken(email, "VIEWER")));
+      }
+    }
+
+    // then
+    for (int i = 0; i < tokens.size(); i++) {
+      Claims claims = Jwts.parser()
+          .verifyWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+          .build()
+          .parseSignedClaims(tokens.get(i).get())
+          .getPayload();
+      assertThat(claims.getSubject()).isEqualTo("user" + i + "@example.com");
+    }
+  }
+
+  private Map<String, Object> decode(String token, int segment) throws Exception {
+    byte[] json = Base64.getUrlDecoder().decode(token.split("\\.")[segment]);
+    return objectMapper.readValue(json, new TypeReference<>() {
+    });
+  }
+}
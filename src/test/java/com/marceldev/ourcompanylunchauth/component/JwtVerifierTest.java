@@ -0,0 +1,59 @@
+package com.marceldev.ourcompanylunchauth.component;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.marceldev.ourcompanylunchauth.exception.InvalidTokenException;
+import com.marceldev.ourcompanylunchauth.model.JwtSigningKey;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class JwtVerifierTest {
+
+  private static final String SECRET =
+      "irsntuuqftynustrsyutnqfrastuarkftuqtulnqfturaustnayrustuaarsewur";
+
+  private final JwtSigningKey signingKey = JwtSigningKey.generate(
+      LocalDateTime.now().minusMinutes(1), LocalDateTime.now().plusDays(1));
+
+  private final String hmacToken = new JwtMinter(SECRET, 24)
+      .generateToken("hello@example.com", "VIEWER");
+
+  private final String ecdsaToken = new JwtMinter(SECRET, 24, () -> signingKey)
+      .generateToken("hello@example.com", "VIEWER");
+
+  @Test
+  @DisplayName("Verify - Success(HMAC and ES256 both accepted by default)")
+  void verify() {
+    // given
+    JwtVerifier jwtVerifier = new JwtVerifier(SECRET, kid -> signingKey.getPublicKey());
+
+    // when // then
+    assertThat(jwtVerifier.verify(hmacToken).getSubject()).isEqualTo("hello@example.com");
+    assertThat(jwtVerifier.verify(ecdsaToken).getSubject()).isEqualTo("hello@example.com");
+  }
+
+  @Test
+  @DisplayName("Verify - Fail(HMAC turned off)")
+  void verify_fail_hmac_off() {
+    // given
+    JwtVerifier jwtVerifier = new JwtVerifier(SECRET, kid -> signingKey.getPublicKey(), false);
+
+    // when // then
+    assertThat(jwtVerifier.verify(ecdsaToken).getSubject()).isEqualTo("hello@example.com");
+    assertThatThrownBy(() -> jwtVerifier.verify(hmacToken))
+        .isInstanceOf(InvalidTokenException.class);
+  }
+
+  @Test
+  @DisplayName("Verify - Fail(Unknown kid)")
+  void verify_fail_unknown_kid() {
+    // given
+    JwtVerifier jwtVerifier = new JwtVerifier(SECRET, kid -> null, false);
+
+    // when // then
+    assertThatThrownBy(() -> jwtVerifier.verify(ecdsaToken))
+        .isInstanceOf(InvalidTokenException.class);
+  }
+}
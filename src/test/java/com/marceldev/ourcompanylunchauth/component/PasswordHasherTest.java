@@ -0,0 +1,78 @@
+package com.marceldev.ourcompanylunchauth.component;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.marceldev.ourcompanylunchauth.basic.BlockingPasswordEncoder;
+import com.marceldev.ourcompanylunchauth.exception.PasswordHashBusyException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * One thread and a queue of one, so two hashes held by BlockingPasswordEncoder fill the pool.
+ */
+class PasswordHasherTest {
+
+  private final BlockingPasswordEncoder passwordEncoder = new BlockingPasswordEncoder();
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private final PasswordHasher passwordHasher =
+      new PasswordHasher(passwordEncoder, meterRegistry, 1, 1, 2);
+
+  @AfterEach
+  void tearDown() {
+    passwordEncoder.release();
+    passwordHasher.shutdown();
+  }
+
+  @Test
+  @DisplayName("Encode - Fail(Pool and queue full, rejected without waiting)")
+  void encode_fail_busy() throws Exception {
+    // given
+    passwordEncoder.fillPool(passwordHasher, meterRegistry);
+
+    // when
+    long start = System.nanoTime();
+    assertThatThrownBy(() -> passwordHasher.encode("abc123123"))
+        .isInstanceOf(PasswordHashBusyException.class)
+        .extracting("retryAfterSecond")
+        .isEqualTo(2);
+    Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+    // then
+    assertThat(elapsed).isLessThan(Duration.ofSeconds(1));
+    assertThat(meterRegistry.get("auth.password.hash.rejected").counter().count()).isEqualTo(1);
+    assertThat(meterRegistry.get("auth.password.hash")
+        .tag("operation", "encode")
+        .tag("outcome", "busy")
+        .timer().count()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Encode - Success(Wait in the queue recorded)")
+  void encode_wait() throws Exception {
+    // given
+    List<Future<String>> hashes = passwordEncoder.fillPool(passwordHasher, meterRegistry);
+
+    // when
+    passwordEncoder.release();
+
+    // then
+    assertThat(hashes.get(0).get(5, TimeUnit.SECONDS)).isEqualTo("{noop}first");
+    assertThat(hashes.get(1).get(5, TimeUnit.SECONDS)).isEqualTo("{noop}second");
+    assertThat(meterRegistry.get("auth.password.hash.wait").timer().count()).isEqualTo(2);
+    assertThat(meterRegistry.get("auth.password.hash.rejected").counter().count()).isZero();
+    assertThat(meterRegistry.get("auth.password.hash")
+        .tag("operation", "encode")
+        .tag("outcome", "success")
+        .timer().count()).isEqualTo(2);
+  }
+}
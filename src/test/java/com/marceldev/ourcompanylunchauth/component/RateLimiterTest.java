@@ -0,0 +1,67 @@
+package com.marceldev.ourcompanylunchauth.component;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class RateLimiterTest {
+
+  private static final long SECOND = 1_000_000_000L;
+
+  private final RateLimiter rateLimiter = new RateLimiter("test", 3, Duration.ofSeconds(10),
+      100, new SimpleMeterRegistry());
+
+  @Test
+  @DisplayName("Try acquire - Capacity at once, then one per refill interval")
+  void try_acquire() {
+    // given
+    long now = 1_000 * SECOND;
+
+    // when // then
+    assertThat(rateLimiter.tryAcquire("a", now)).isZero();
+    assertThat(rateLimiter.tryAcquire("a", now)).isZero();
+    assertThat(rateLimiter.tryAcquire("a", now)).isZero();
+    assertThat(rateLimiter.tryAcquire("a", now)).isEqualTo(10 * SECOND);
+    assertThat(rateLimiter.tryAcquire("a", now + 4 * SECOND)).isEqualTo(6 * SECOND);
+    assertThat(rateLimiter.tryAcquire("a", now + 10 * SECOND)).isZero();
+    assertThat(rateLimiter.tryAcquire("a", now + 10 * SECOND)).isEqualTo(10 * SECOND);
+  }
+
+  @Test
+  @DisplayName("Try acquire - Each key has its own bucket")
+  void try_acquire_per_key() {
+    // given
+    long now = 1_000 * SECOND;
+    for (int i = 0; i < 3; i++) {
+      rateLimiter.tryAcquire("a", now);
+    }
+
+    // when
+    long waitA = rateLimiter.tryAcquire("a", now);
+    long waitB = rateLimiter.tryAcquire("b", now);
+
+    // then
+    assertThat(waitA).isPositive();
+    assertThat(waitB).isZero();
+  }
+
+  @Test
+  @DisplayName("Try acquire - A bucket idle long enough is full again")
+  void try_acquire_refilled() {
+    // given
+    long now = 1_000 * SECOND;
+    for (int i = 0; i < 3; i++) {
+      rateLimiter.tryAcquire("a", now);
+    }
+
+    // when // then
+    long later = now + 60 * SECOND;
+    for (int i = 0; i < 3; i++) {
+      assertThat(rateLimiter.tryAcquire("a", later)).isZero();
+    }
+    assertThat(rateLimiter.tryAcquire("a", later)).isPositive();
+  }
+}
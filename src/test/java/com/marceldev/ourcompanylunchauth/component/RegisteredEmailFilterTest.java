@@ -0,0 +1,130 @@
+package com.marceldev.ourcompanylunchauth.component;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import com.marceldev.ourcompanylunchauth.model.UserEmailOnly;
+import com.marceldev.ourcompanylunchauth.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * The users table is a list of committed users, so a test can commit them in any id order.
+ */
+class RegisteredEmailFilterTest {
+
+  private final List<UserEmailOnly> committed = new ArrayList<>();
+
+  private final UserRepository userRepository = mock(UserRepository.class);
+
+  private final RegisteredEmailFilter registeredEmailFilter =
+      new RegisteredEmailFilter(userRepository, new SimpleMeterRegistry(), true, 0.01, 1000,
+          60_000);
+
+  @BeforeEach
+  void setUp() {
+    given(userRepository.count()).willAnswer(invocation -> (long) committed.size());
+    given(userRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class)))
+        .willAnswer(invocation -> {
+          long id = invocation.getArgument(0);
+          Pageable pageable = invocation.getArgument(1);
+          return committed.stream()
+              .filter(user -> user.getId() > id)
+              .sorted(Comparator.comparing(UserEmailOnly::getId))
+              .limit(pageable.getPageSize())
+              .toList();
+        });
+  }
+
+  @Test
+  @DisplayName("Sync - Users signed up on other nodes")
+  void sync() {
+    // given
+    commit(1L, "a@example.com");
+    registeredEmailFilter.rebuild();
+    commit(2L, "b@example.com");
+
+    // when
+    registeredEmailFilter.syncNewUsers();
+
+    // then
+    assertThat(registeredEmailFilter.mightContain("b@example.com")).isTrue();
+    assertThat(registeredEmailFilter.status()).containsEntry("lastUserId", 2L);
+  }
+
+  @Test
+  @DisplayName("Sync - Lower id committed after a higher id was synced")
+  void sync_committed_out_of_order() {
+    // given
+    commit(1L, "a@example.com");
+    registeredEmailFilter.rebuild();
+    commit(3L, "c@example.com");
+    registeredEmailFilter.syncNewUsers();
+    commit(2L, "b@example.com");
+
+    // when
+    registeredEmailFilter.syncNewUsers();
+
+    // then
+    assertThat(registeredEmailFilter.mightContain("b@example.com")).isTrue();
+    assertThat(registeredEmailFilter.status()).containsEntry("lastUserId", 3L);
+  }
+
+  @Test
+  @DisplayName("Sync - Fail(Unknown email absent)")
+  void sync_fail_unknown() {
+    // given
+    commit(1L, "a@example.com");
+    registeredEmailFilter.rebuild();
+
+    // when
+    registeredEmailFilter.syncNewUsers();
+
+    // then
+    assertThat(registeredEmailFilter.mightContain("A@example.com")).isTrue();
+    assertThat(registeredEmailFilter.mightContain("unknown@example.com")).isFalse();
+  }
+
+  @Test
+  @DisplayName("Lookup - Unknown email present while the sync is behind")
+  void lookup_sync_behind() {
+    // given
+    RegisteredEmailFilter behind =
+        new RegisteredEmailFilter(userRepository, new SimpleMeterRegistry(), true, 0.01, 1000, 0);
+    commit(1L, "a@example.com");
+    behind.rebuild();
+
+    // when // then
+    assertThat(behind.mightContain("unknown@example.com")).isTrue();
+  }
+
+  @Test
+  @DisplayName("Lookup - Everything present before the first build")
+  void lookup_not_built() {
+    // when // then
+    assertThat(registeredEmailFilter.mightContain("unknown@example.com")).isTrue();
+  }
+
+  private void commit(long id, String email) {
+    committed.add(new UserEmailOnly() {
+      @Override
+      public Long getId() {
+        return id;
+      }
+
+      @Override
+      public String getEmail() {
+        return email;
+      }
+    });
+  }
+}
@@ -0,0 +1,78 @@
+package com.marceldev.ourcompanylunchauth.component;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * The lag comes from a query on an H2 database, standing in for SHOW SLAVE STATUS.
+ */
+class ReplicaLagMonitorTest {
+
+  private final DriverManagerDataSource replica =
+      new DriverManagerDataSource("jdbc:h2:mem:replica-lag;DB_CLOSE_DELAY=-1");
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  @DisplayName("Check - Replica used within the max lag")
+  void check() {
+    // given
+    ReplicaLagMonitor monitor = new ReplicaLagMonitor(replica, meterRegistry,
+        "SELECT 3 AS Seconds_Behind_Master", 5, 60_000);
+
+    // when
+    monitor.check();
+
+    // then
+    assertThat(monitor.isReplicaUsable()).isTrue();
+    assertThat(meterRegistry.get("auth.datasource.replica.lag").gauge().value()).isEqualTo(3);
+  }
+
+  @Test
+  @DisplayName("Check - Fail(Replica not used over the max lag)")
+  void check_fail_lag() {
+    // given
+    ReplicaLagMonitor monitor = new ReplicaLagMonitor(replica, meterRegistry,
+        "SELECT 30 AS Seconds_Behind_Master", 5, 60_000);
+
+    // when
+    monitor.check();
+
+    // then
+    assertThat(monitor.isReplicaUsable()).isFalse();
+  }
+
+  @Test
+  @DisplayName("Check - Fail(Replica not used when replication stopped)")
+  void check_fail_replication_stopped() {
+    // given
+    ReplicaLagMonitor monitor = new ReplicaLagMonitor(replica, meterRegistry,
+        "SELECT CAST(NULL AS BIGINT) AS Seconds_Behind_Master", 5, 60_000);
+
+    // when
+    monitor.check();
+
+    // then
+    assertThat(monitor.isReplicaUsable()).isFalse();
+    assertThat(meterRegistry.get("auth.datasource.replica.lag").gauge().value()).isEqualTo(-1);
+  }
+
+  @Test
+  @DisplayName("Check - Fail(Replica not used once the last check is too old)")
+  void check_fail_stale() {
+    // given
+    ReplicaLagMonitor monitor = new ReplicaLagMonitor(replica, meterRegistry,
+        "SELECT 3 AS Seconds_Behind_Master", 5, 0);
+
+    // when
+    monitor.check();
+
+    // then
+    assertThat(monitor.isReplicaUsable()).isFalse();
+  }
+}
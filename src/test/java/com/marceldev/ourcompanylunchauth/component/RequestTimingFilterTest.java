@@ -0,0 +1,53 @@
+package com.marceldev.ourcompanylunchauth.component;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.marceldev.ourcompanylunchauth.util.RequestStages;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class RequestTimingFilterTest {
+
+  private final RequestTimingFilter filter = new RequestTimingFilter(500);
+
+  @Test
+  @DisplayName("Server-Timing - Stages in the header, before the body")
+  void server_timing() throws Exception {
+    // given
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", "/users/signin");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    // when
+    filter.doFilter(request, response, (req, res) -> {
+      long stageStart = RequestStages.start();
+      RequestStages.record("hash", stageStart);
+      res.getOutputStream().write("{}".getBytes(StandardCharsets.UTF_8));
+      res.flushBuffer();
+      // Recorded after the body, so not in the header
+      RequestStages.record("late", RequestStages.start());
+    });
+
+    // then
+    assertThat(response.getHeader("Server-Timing"))
+        .matches("hash;dur=\\d+\\.\\d, total;dur=\\d+\\.\\d");
+    assertThat(RequestStages.start()).isZero();
+  }
+
+  @Test
+  @DisplayName("Server-Timing - Response without a body")
+  void server_timing_no_body() throws Exception {
+    // given
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", "/users/signup");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    // when
+    filter.doFilter(request, response,
+        (req, res) -> RequestStages.record("insert", RequestStages.start()));
+
+    // then
+    assertThat(response.getHeader("Server-Timing")).startsWith("insert;dur=");
+  }
+}
@@ -0,0 +1,177 @@
+package com.marceldev.ourcompanylunchauth.component;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.verify;
+
+import com.marceldev.ourcompanylunchauth.basic.IntegrationTest;
+import com.marceldev.ourcompanylunchauth.entity.SignUpOutbox;
+import com.marceldev.ourcompanylunchauth.entity.User;
+import com.marceldev.ourcompanylunchauth.exception.BusinessServerUnavailableException;
+import com.marceldev.ourcompanylunchauth.model.Role;
+import com.marceldev.ourcompanylunchauth.model.SignUpStatus;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+class SignUpOutboxRelayTest extends IntegrationTest {
+
+  @Test
+  @DisplayName("Relay - Success")
+  void relay() {
+    // given
+    SignUpOutbox saved = saveUserAndSignUpOutbox("hello@example.com");
+
+    // when
+    signUpOutboxRelay.relay();
+
+    // then
+    verify(businessServerClient).signUp("hello@example.com", "John", "VIEWER",
+        saved.getIdempotencyKey());
+    assertThat(signUpOutboxRepository.findById(saved.getId())).isEmpty();
+    assertThat(signUpStatus("hello@example.com")).isEqualTo(SignUpStatus.COMPLETED);
+  }
+
+  @Test
+  @DisplayName("Relay - Success(Conflict, made by an earlier attempt)")
+  void relay_conflict() {
+    // given
+    SignUpOutbox saved = saveUserAndSignUpOutbox("hello@example.com");
+    willThrow(new HttpClientErrorException(HttpStatus.CONFLICT))
+        .given(businessServerClient).signUp(anyString(), anyString(), anyString(), anyString());
+
+    // when
+    signUpOutboxRelay.relay();
+
+    // then
+    assertThat(signUpOutboxRepository.findById(saved.getId())).isEmpty();
+    assertThat(signUpStatus("hello@example.com")).isEqualTo(SignUpStatus.COMPLETED);
+  }
+
+  @Test
+  @DisplayName("Relay - Retry later when business server fails")
+  void relay_retry() {
+    // given
+    SignUpOutbox saved = saveUserAndSignUpOutbox("hello@example.com");
+    willThrow(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE))
+        .given(businessServerClient).signUp(anyString(), anyString(), anyString(), anyString());
+
+    // when
+    signUpOutboxRelay.relay();
+
+    // then
+    SignUpOutbox retry = signUpOutboxRepository.findById(saved.getId()).orElseThrow();
+    assertThat(retry.getAttemptCount()).isEqualTo(1);
+    assertThat(retry.getNextAttemptAt()).isAfter(saved.getNextAttemptAt());
+    assertThat(retry.getClaimedBy()).isNull();
+    assertThat(retry.getFailedAt()).isNull();
+    assertThat(signUpStatus("hello@example.com")).isEqualTo(SignUpStatus.PENDING);
+  }
+
+  @Test
+  @DisplayName("Relay - Retry later without an attempt when the call was rejected")
+  void relay_rejected() {
+    // given
+    SignUpOutbox saved = saveUserAndSignUpOutbox("hello@example.com");
+    willThrow(new BusinessServerUnavailableException(30, null))
+        .given(businessServerClient).signUp(anyString(), anyString(), anyString(), anyString());
+
+    // when
+    signUpOutboxRelay.relay();
+
+    // then
+    SignUpOutbox retry = signUpOutboxRepository.findById(saved.getId()).orElseThrow();
+    assertThat(retry.getAttemptCount()).isZero();
+    assertThat(retry.getNextAttemptAt()).isAfter(LocalDateTime.now().plusSeconds(20));
+    assertThat(retry.getClaimedBy()).isNull();
+    assertThat(retry.getFailedAt()).isNull();
+    assertThat(signUpStatus("hello@example.com")).isEqualTo(SignUpStatus.PENDING);
+  }
+
+  @Test
+  @DisplayName("Relay - Fail(4xx, not retried)")
+  void relay_fail_client_error() {
+    // given
+    SignUpOutbox saved = saveUserAndSignUpOutbox("hello@example.com");
+    willThrow(new HttpClientErrorException(HttpStatus.BAD_REQUEST))
+        .given(businessServerClient)
+        .signUp(eq("hello@example.com"), anyString(), anyString(), anyString());
+
+    // when
+    signUpOutboxRelay.relay();
+
+    // then
+    SignUpOutbox failed = signUpOutboxRepository.findById(saved.getId()).orElseThrow();
+    assertThat(failed.getFailedAt()).isNotNull();
+    assertThat(failed.getLastError()).contains("400");
+    assertThat(signUpStatus("hello@example.com")).isEqualTo(SignUpStatus.FAILED);
+  }
+
+  /**
+   * The poll thread reads committed rows, so this test commits and cleans up instead of rolling
+   * back.
+   */
+  @Test
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  @DisplayName("Poll - Returns while the relay waits on the business server")
+  void poll_off_scheduler_thread() throws Exception {
+    CountDownLatch calling = new CountDownLatch(1);
+    CountDownLatch businessServerAnswers = new CountDownLatch(1);
+    try {
+      // given
+      saveUserAndSignUpOutbox("hello@example.com");
+      willAnswer(invocation -> {
+        calling.countDown();
+        businessServerAnswers.await(5, TimeUnit.SECONDS);
+        return null;
+      }).given(businessServerClient).signUp(anyString(), anyString(), anyString(), anyString());
+
+      // when
+      signUpOutboxRelay.poll();
+
+      // then
+      assertThat(calling.await(5, TimeUnit.SECONDS)).isTrue();
+    } finally {
+      businessServerAnswers.countDown();
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (signUpOutboxRepository.count() > 0 && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+      signUpOutboxRepository.deleteAll();
+      userRepository.deleteAll();
+    }
+  }
+
+  private SignUpOutbox saveUserAndSignUpOutbox(String email) {
+    userRepository.save(User.builder()
+        .email(email)
+        .password("encoded")
+        .role(Role.VIEWER)
+        .signUpStatus(SignUpStatus.PENDING)
+        .build());
+
+    LocalDateTime now = LocalDateTime.now();
+    return signUpOutboxRepository.save(SignUpOutbox.builder()
+        .email(email)
+        .name("John")
+        .role(Role.VIEWER)
+        .idempotencyKey("0b6a6f0e-2d2c-4f57-a0a5-6c1b1c4a4d11")
+        .enqueuedAt(now)
+        .nextAttemptAt(now)
+        .build());
+  }
+
+  private SignUpStatus signUpStatus(String email) {
+    return userRepository.findByEmail(email).orElseThrow().getSignUpStatus();
+  }
+}
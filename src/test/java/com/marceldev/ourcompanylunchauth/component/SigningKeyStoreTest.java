@@ -0,0 +1,127 @@
+package com.marceldev.ourcompanylunchauth.component;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.marceldev.ourcompanylunchauth.basic.IntegrationTest;
+import com.marceldev.ourcompanylunchauth.entity.SigningKey;
+import com.marceldev.ourcompanylunchauth.model.JwtSigningKey;
+import com.marceldev.ourcompanylunchauth.repository.SigningKeyRepository;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * ES256 signing, with a key made by init() on startup.
+ */
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+    "jwt-signing.algorithm=ES256",
+    "jwt-signing.private-key-encryption-key=bmlHGQUDTckwAlZ7D2lsk0TN/lUqzFwlJS9IIb2ZQI4="
+})
+class SigningKeyStoreTest extends IntegrationTest {
+
+  @Autowired
+  private SigningKeyStore signingKeyStore;
+
+  @Autowired
+  private SigningKeyRepository signingKeyRepository;
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Test
+  @DisplayName("JWKS - Success(Active key published)")
+  void jwks() throws Exception {
+    // given
+    String kid = signingKeyStore.activeKey().getKid();
+    String etag = "\"" + signingKeyStore.jwks().getEtag() + "\"";
+
+    // when // then
+    mockMvc.perform(get("/.well-known/jwks.json"))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, etag))
+        .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=600, public"))
+        .andExpect(jsonPath("$.keys[0].kid").value(kid))
+        .andExpect(jsonPath("$.keys[0].kty").value("EC"))
+        .andExpect(jsonPath("$.keys[0].alg").value(JwtSigningKey.ALGORITHM));
+  }
+
+  @Test
+  @DisplayName("JWKS - Not modified for a matching ETag")
+  void jwks_not_modified() throws Exception {
+    // given
+    String etag = mockMvc.perform(get("/.well-known/jwks.json"))
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+    // when // then
+    mockMvc.perform(get("/.well-known/jwks.json")
+            .header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().isNotModified());
+  }
+
+  @Test
+  @DisplayName("Save - Private key encrypted")
+  void private_key_encrypted() {
+    // given
+    JwtSigningKey activeKey = signingKeyStore.activeKey();
+
+    // when
+    SigningKey saved = signingKeyRepository.findAll().stream()
+        .filter(key -> key.getKid().equals(activeKey.getKid()))
+        .findFirst()
+        .orElseThrow();
+
+    // then
+    assertThat(saved.getPrivateKey()).startsWith("v1:");
+    assertThat(saved.getPrivateKey()).doesNotContain(activeKey.encodedPrivateKey());
+  }
+
+  /**
+   * Rotation saves outside a transaction, like the scheduler does, so this test cleans up instead
+   * of rolling back.
+   */
+  @Test
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  @DisplayName("Rotate - Next key published ahead, and saved once by racing nodes")
+  void rotate() {
+    JwtSigningKey activeKey = signingKeyStore.activeKey();
+    try {
+      // given
+      LocalDateTime due = activeKey.getActiveFrom().plusHours(168).minusMinutes(30);
+
+      // when
+      signingKeyStore.rotateIfDue(due);
+      signingKeyStore.rotateIfDue(due); // Another node, before it loaded the first one's key
+      signingKeyStore.load();
+
+      // then
+      List<SigningKey> saved = signingKeyRepository.findAll();
+      assertThat(saved).hasSize(2);
+      SigningKey next = saved.stream()
+          .filter(key -> !key.getKid().equals(activeKey.getKid()))
+          .findFirst()
+          .orElseThrow();
+      assertThat(next.getActiveFrom()).isEqualTo(activeKey.getActiveFrom().plusHours(168));
+      assertThat(signingKeyStore.activeKey().getKid()).isEqualTo(activeKey.getKid());
+      assertThat(signingKeyStore.findPublicKey(next.getKid())).isNotNull();
+      assertThat(signingKeyStore.jwks().getJson()).contains(next.getKid());
+    } finally {
+      signingKeyRepository.findAll().stream()
+          .filter(key -> !key.getKid().equals(activeKey.getKid()))
+          .forEach(signingKeyRepository::delete);
+      signingKeyStore.load();
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package com.marceldev.ourcompanylunchauth.component;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.marceldev.ourcompanylunchauth.basic.IntegrationTest;
+import com.marceldev.ourcompanylunchauth.repository.UserTokenRevocationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Revocations are committed or rolled back here, so the tests run outside the test transaction.
+ */
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TokenRevocationRegistryTest extends IntegrationTest {
+
+  @Autowired
+  private UserTokenRevocationRepository userTokenRevocationRepository;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  private final long issuedAt = System.currentTimeMillis() / 1000 - 10;
+
+  @AfterEach
+  void deleteRevocations() {
+    userTokenRevocationRepository.deleteAll();
+  }
+
+  @Test
+  @DisplayName("Revoke User - Success(Applied once committed)")
+  void revoke_user() {
+    // when
+    boolean revokedBeforeCommit = transactionTemplate.execute(status -> {
+      tokenRevocationRegistry.revokeUser("committed@example.com");
+      return tokenRevocationRegistry.isRevoked(null, "committed@example.com", issuedAt);
+    });
+
+    // then
+    assertThat(revokedBeforeCommit).isFalse();
+    assertThat(tokenRevocationRegistry.isRevoked(null, "committed@example.com", issuedAt))
+        .isTrue();
+  }
+
+  @Test
+  @DisplayName("Revoke User - Fail(Rolled back, not applied)")
+  void revoke_user_fail_rollback() {
+    // when
+    transactionTemplate.executeWithoutResult(status -> {
+      tokenRevocationRegistry.revokeUser("rolledback@example.com");
+      status.setRollbackOnly();
+    });
+
+    // then
+    assertThat(tokenRevocationRegistry.isRevoked(null, "rolledback@example.com", issuedAt))
+        .isFalse();
+  }
+}
@@ -0,0 +1,96 @@
+package com.marceldev.ourcompanylunchauth.component;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.marceldev.ourcompanylunchauth.model.Role;
+import com.marceldev.ourcompanylunchauth.model.UserCredential;
+import com.marceldev.ourcompanylunchauth.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Optional;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class UserCredentialCacheTest {
+
+  private final UserRepository userRepository = mock(UserRepository.class);
+
+  private final UserCredentialCache userCredentialCache =
+      new UserCredentialCache(userRepository, new SimpleMeterRegistry(), 100, 600, false);
+
+  @Test
+  @DisplayName("Get - Loaded once, then cached")
+  void get() {
+    // given
+    given(userRepository.findCredentialByEmail("hello@example.com"))
+        .willReturn(Optional.of(credential("old")));
+
+    // when
+    userCredentialCache.get("hello@example.com");
+    Optional<UserCredential> cached = userCredentialCache.get("Hello@example.com");
+
+    // then
+    assertThat(cached.map(UserCredential::getPassword)).contains("old");
+    verify(userRepository, times(1)).findCredentialByEmail("hello@example.com");
+  }
+
+  @Test
+  @DisplayName("Get - Not cached when invalidated during the load")
+  void get_invalidated_during_load() {
+    // given
+    given(userRepository.findCredentialByEmail("hello@example.com"))
+        .willAnswer(invocation -> {
+          // The password changes after this read, and the change invalidates before the put
+          userCredentialCache.invalidate("hello@example.com");
+          return Optional.of(credential("old"));
+        })
+        .willReturn(Optional.of(credential("new")));
+
+    // when
+    userCredentialCache.get("hello@example.com");
+    Optional<UserCredential> reloaded = userCredentialCache.get("hello@example.com");
+
+    // then
+    assertThat(reloaded.map(UserCredential::getPassword)).contains("new");
+  }
+
+  @Test
+  @DisplayName("Get - Read again on the primary when the replica doesn't have the user yet")
+  void get_replica_behind() {
+    // given
+    UserCredentialCache routedCache =
+        new UserCredentialCache(userRepository, new SimpleMeterRegistry(), 100, 600, true);
+    given(userRepository.findCredentialByEmail("hello@example.com"))
+        .willReturn(Optional.empty());
+    given(userRepository.findCredentialByEmailOnPrimary("hello@example.com"))
+        .willReturn(Optional.of(credential("new")));
+
+    // when
+    Optional<UserCredential> loaded = routedCache.get("hello@example.com");
+
+    // then
+    assertThat(loaded.map(UserCredential::getPassword)).contains("new");
+  }
+
+  @Test
+  @DisplayName("Get - Fail(Not on the primary either)")
+  void get_fail_unknown() {
+    // given
+    UserCredentialCache routedCache =
+        new UserCredentialCache(userRepository, new SimpleMeterRegistry(), 100, 600, true);
+    given(userRepository.findCredentialByEmail("unknown@example.com"))
+        .willReturn(Optional.empty());
+    given(userRepository.findCredentialByEmailOnPrimary("unknown@example.com"))
+        .willReturn(Optional.empty());
+
+    // when // then
+    assertThat(routedCache.get("unknown@example.com")).isEmpty();
+  }
+
+  private static UserCredential credential(String password) {
+    return new UserCredential("hello@example.com", password, Role.VIEWER);
+  }
+}
@@ -0,0 +1,75 @@
+package com.marceldev.ourcompanylunchauth.component;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.marceldev.ourcompanylunchauth.basic.IntegrationTest;
+import com.marceldev.ourcompanylunchauth.basic.SqlStatementCounter;
+import com.marceldev.ourcompanylunchauth.entity.Verification;
+import com.marceldev.ourcompanylunchauth.store.VerificationStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+
+class VerificationCodeCleanerTest extends IntegrationTest {
+
+  @Autowired
+  private VerificationStore verificationStore;
+
+  @Test
+  @DisplayName("Clean - Expired codes deleted in batches, valid codes kept")
+  void clean() {
+    // given
+    for (int i = 0; i < 120; i++) {
+      verificationRepository.save(
+          createVerification("expired" + i + "@example.com", LocalDateTime.now().minusMinutes(1)));
+    }
+    verificationRepository.save(
+        createVerification("valid@example.com", LocalDateTime.now().plusMinutes(3)));
+
+    // Not the scheduled bean, so a scheduled call can't run in between
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    VerificationCodeCleaner cleaner =
+        new VerificationCodeCleaner(verificationStore, meterRegistry, 0, 50, 2000, 1000);
+
+    // when
+    cleaner.clean();
+    long afterFirstBatch = verificationRepository.count();
+    for (int i = 0; i < 5; i++) {
+      cleaner.clean();
+    }
+
+    // then
+    assertThat(afterFirstBatch).isEqualTo(71);
+    assertThat(verificationRepository.findAll())
+        .extracting(Verification::getEmail)
+        .containsExactly("valid@example.com");
+    assertThat(meterRegistry.get("auth.verification.cleaner.deleted").counter().count())
+        .isEqualTo(120);
+    assertThat(meterRegistry.get("auth.verification.cleaner.lag").gauge().value()).isZero();
+  }
+
+  @Test
+  @DisplayName("Clean - Expired ids locked, so other nodes skip them")
+  void clean_ids_locked() {
+    // given
+    SqlStatementCounter.reset();
+
+    // when
+    verificationRepository.findExpiredIds(LocalDateTime.now(), PageRequest.of(0, 50));
+
+    // then
+    assertThat(SqlStatementCounter.lastStatement()).containsIgnoringCase("for update");
+  }
+
+  private static Verification createVerification(String email, LocalDateTime expirationAt) {
+    return Verification.builder()
+        .email(email)
+        .expirationAt(expirationAt)
+        .code("123456")
+        .build();
+  }
+}
@@ -0,0 +1,97 @@
+package com.marceldev.ourcompanylunchauth.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Against two H2 databases, each with a row naming itself, so a query shows where it went.
+ */
+class ReadWriteRoutingDataSourceTest {
+
+  private final AtomicBoolean replicaUsable = new AtomicBoolean(true);
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private JdbcTemplate jdbcTemplate;
+
+  private TransactionTemplate readOnlyTransaction;
+
+  private TransactionTemplate transaction;
+
+  @BeforeEach
+  void setUp() {
+    DataSource primary = database("primary");
+    DataSource replica = database("replica");
+    DataSource dataSource = new LazyConnectionDataSourceProxy(
+        new ReadWriteRoutingDataSource(primary, replica, replicaUsable::get, meterRegistry));
+
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+    transaction = new TransactionTemplate(transactionManager);
+    readOnlyTransaction = new TransactionTemplate(transactionManager);
+    readOnlyTransaction.setReadOnly(true);
+  }
+
+  @Test
+  @DisplayName("Route - Read-only transaction to the replica")
+  void route_read_only() {
+    // when
+    String node = readOnlyTransaction.execute(status -> currentNode());
+
+    // then
+    assertThat(node).isEqualTo("replica");
+    assertThat(meterRegistry.get("auth.datasource.route").tag("route", "replica")
+        .counter().count()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Route - Other transactions to the primary")
+  void route_write() {
+    // when
+    String node = transaction.execute(status -> currentNode());
+
+    // then
+    assertThat(node).isEqualTo("primary");
+  }
+
+  @Test
+  @DisplayName("Route - Read-only transaction to the primary while the replica is behind")
+  void route_read_only_fallback() {
+    // given
+    replicaUsable.set(false);
+
+    // when
+    String node = readOnlyTransaction.execute(status -> currentNode());
+
+    // then
+    assertThat(node).isEqualTo("primary");
+    assertThat(meterRegistry.get("auth.datasource.route").tag("route", "fallback")
+        .counter().count()).isEqualTo(1);
+  }
+
+  private String currentNode() {
+    return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+  }
+
+  private static DataSource database(String name) {
+    DriverManagerDataSource dataSource = new DriverManagerDataSource(
+        "jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1");
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS node (name VARCHAR(20))");
+    jdbcTemplate.update("DELETE FROM node");
+    jdbcTemplate.update("INSERT INTO node (name) VALUES (?)", name);
+    return dataSource;
+  }
+}
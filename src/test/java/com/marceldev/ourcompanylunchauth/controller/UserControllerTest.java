@@ -1,22 +1,31 @@
 package com.marceldev.ourcompanylunchauth.controller;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doThrow;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.marceldev.ourcompanylunchauth.basic.BlockingPasswordEncoder;
 import com.marceldev.ourcompanylunchauth.basic.ControllerTest;
+import com.marceldev.ourcompanylunchauth.component.PasswordHasher;
+import com.marceldev.ourcompanylunchauth.dto.RefreshTokenRequest;
 import com.marceldev.ourcompanylunchauth.dto.SendVerificationCodeRequest;
 import com.marceldev.ourcompanylunchauth.dto.SignInRequest;
 import com.marceldev.ourcompanylunchauth.dto.SignUpRequest;
 import com.marceldev.ourcompanylunchauth.dto.TokenResponse;
 import com.marceldev.ourcompanylunchauth.exception.AlreadyExistUserException;
 import com.marceldev.ourcompanylunchauth.exception.IncorrectPasswordException;
+import com.marceldev.ourcompanylunchauth.exception.RateLimitExceededException;
+import com.marceldev.ourcompanylunchauth.exception.RefreshTokenReuseException;
 import com.marceldev.ourcompanylunchauth.exception.SignInFailException;
 import com.marceldev.ourcompanylunchauth.exception.VerificationCodeNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.nio.charset.StandardCharsets;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -222,7 +231,7 @@ class UserControllerTest extends ControllerTest {
         .build();
 
     given(userService.signIn(any(SignInRequest.class)))
-        .willReturn(new TokenResponse("token"));
+        .willReturn(new TokenResponse("token", "refresh-token"));
 
     // when // then
     mockMvc.perform(
@@ -233,7 +242,8 @@ class UserControllerTest extends ControllerTest {
         )
         .andDo(print())
         .andExpect(status().isOk())
-        .andExpect(jsonPath("$.token").value("token"));
+        .andExpect(jsonPath("$.token").value("token"))
+        .andExpect(jsonPath("$.refreshToken").value("refresh-token"));
   }
 
   @Test
@@ -326,6 +336,95 @@ class UserControllerTest extends ControllerTest {
         .andExpect(jsonPath("$.errorCode").value("1004"));
   }
 
+  @Test
+  @DisplayName("Sign in - Fail(Password hash pool full)")
+  void signin_fail_password_hash_busy() throws Exception {
+    // given
+    SignInRequest request = SignInRequest.builder()
+        .email("hello@example.com")
+        .password("abc123123")
+        .build();
+
+    // One thread and a queue of one, both taken
+    BlockingPasswordEncoder passwordEncoder = new BlockingPasswordEncoder();
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    PasswordHasher passwordHasher = new PasswordHasher(passwordEncoder, meterRegistry, 1, 1, 1);
+    given(userService.signIn(any(SignInRequest.class))).willAnswer(invocation -> {
+      passwordHasher.matches("abc123123", "{noop}abc123123");
+      return new TokenResponse("token", "refresh-token");
+    });
+
+    try {
+      passwordEncoder.fillPool(passwordHasher, meterRegistry);
+
+      // when // then
+      mockMvc.perform(
+              post("/users/signin")
+                  .content(objectMapper.writeValueAsString(request))
+                  .contentType(MediaType.APPLICATION_JSON)
+                  .characterEncoding(StandardCharsets.UTF_8)
+          )
+          .andDo(print())
+          .andExpect(status().isServiceUnavailable())
+          .andExpect(header().string("Retry-After", "1"))
+          .andExpect(jsonPath("$.errorCode").value("9001"));
+      assertThat(meterRegistry.get("auth.password.hash.rejected").counter().count())
+          .isEqualTo(1);
+    } finally {
+      passwordEncoder.release();
+      passwordHasher.shutdown();
+    }
+  }
+
+  // --- Refresh token ---
+
+  @Test
+  @DisplayName("Refresh token - Success")
+  void refresh_token() throws Exception {
+    // given
+    RefreshTokenRequest request = RefreshTokenRequest.builder()
+        .refreshToken("refresh-token")
+        .build();
+
+    given(userService.refreshToken(any(RefreshTokenRequest.class)))
+        .willReturn(new TokenResponse("token", "new-refresh-token"));
+
+    // when // then
+    mockMvc.perform(
+            post("/users/token/refresh")
+                .content(objectMapper.writeValueAsString(request))
+                .contentType(MediaType.APPLICATION_JSON)
+                .characterEncoding(StandardCharsets.UTF_8)
+        )
+        .andDo(print())
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.token").value("token"))
+        .andExpect(jsonPath("$.refreshToken").value("new-refresh-token"));
+  }
+
+  @Test
+  @DisplayName("Refresh token - Fail(Already used)")
+  void refresh_token_fail_reuse() throws Exception {
+    // given
+    RefreshTokenRequest request = RefreshTokenRequest.builder()
+        .refreshToken("refresh-token")
+        .build();
+
+    given(userService.refreshToken(any(RefreshTokenRequest.class)))
+        .willThrow(RefreshTokenReuseException.class);
+
+    // when // then
+    mockMvc.perform(
+            post("/users/token/refresh")
+                .content(objectMapper.writeValueAsString(request))
+                .contentType(MediaType.APPLICATION_JSON)
+                .characterEncoding(StandardCharsets.UTF_8)
+        )
+        .andDo(print())
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.errorCode").value("1006"));
+  }
+
   @Test
   @DisplayName("Send Verification Code - Success")
   void send_verification_code() throws Exception {
@@ -364,4 +463,28 @@ class UserControllerTest extends ControllerTest {
         .andExpect(status().isBadRequest())
         .andExpect(jsonPath("$.errorCode").value("8000"));
   }
-}
\ No newline at end of file
+
+  @Test
+  @DisplayName("Send Verification Code - Fail(Too many requests)")
+  void send_verification_code_fail_rate_limit() throws Exception {
+    // given
+    SendVerificationCodeRequest request = SendVerificationCodeRequest.builder()
+        .email("hello@example.com")
+        .build();
+
+    doThrow(new RateLimitExceededException(30))
+        .when(authRateLimiter).checkSendVerificationCode(any(), any());
+
+    // when // then
+    mockMvc.perform(
+            post("/users/send-verification-code")
+                .content(objectMapper.writeValueAsString(request))
+                .contentType(MediaType.APPLICATION_JSON)
+                .characterEncoding(StandardCharsets.UTF_8)
+        )
+        .andDo(print())
+        .andExpect(status().isTooManyRequests())
+        .andExpect(header().string("Retry-After", "30"))
+        .andExpect(jsonPath("$.errorCode").value("9002"));
+  }
+}
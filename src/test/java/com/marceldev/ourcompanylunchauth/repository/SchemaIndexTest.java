@@ -0,0 +1,122 @@
+package com.marceldev.ourcompanylunchauth.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.marceldev.ourcompanylunchauth.basic.IntegrationTest;
+import com.marceldev.ourcompanylunchauth.basic.SqlStatementCounter;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * The schema comes from db/migration, so these also check the migrations ran. Each test runs a
+ * repository method, and EXPLAINs the SQL Hibernate generated for it, as SqlStatementCounter saw it.
+ * H2 names the index it picked in the plan.
+ */
+class SchemaIndexTest extends IntegrationTest {
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private RefreshTokenRepository refreshTokenRepository;
+
+  @BeforeEach
+  void resetStatements() {
+    SqlStatementCounter.reset();
+  }
+
+  @Test
+  @DisplayName("UserRepository.findByEmail - Uses an index")
+  void user_find_by_email() {
+    // when
+    userRepository.findByEmail("a@example.com");
+
+    // then
+    assertThat(explainLastStatement()).containsIgnoringCase("uk_users_email");
+  }
+
+  @Test
+  @DisplayName("UserRepository.existsByEmail - Uses an index")
+  void user_exists_by_email() {
+    // when
+    userRepository.existsByEmail("a@example.com");
+
+    // then
+    assertThat(explainLastStatement()).containsIgnoringCase("uk_users_email");
+  }
+
+  @Test
+  @DisplayName("VerificationRepository.findByEmail - Uses an index")
+  void verification_find_by_email() {
+    // when
+    verificationRepository.findByEmail("a@example.com");
+
+    // then
+    assertThat(explainLastStatement()).containsIgnoringCase("uk_verification_email");
+  }
+
+  @Test
+  @DisplayName("VerificationRepository.findExpiredIds - Uses an index")
+  void verification_find_expired_ids() {
+    // when
+    verificationRepository.findExpiredIds(LocalDateTime.now(), PageRequest.of(0, 100));
+
+    // then
+    assertThat(explainLastStatement()).containsIgnoringCase("idx_verification_expiration_at");
+  }
+
+  @Test
+  @DisplayName("EmailOutboxRepository.deleteSuperseded - Uses an index")
+  void email_outbox_delete_superseded() {
+    // when
+    emailOutboxRepository.deleteSuperseded("a@example.com", "subject", LocalDateTime.now());
+
+    // then
+    assertThat(explainLastStatement()).containsIgnoringCase("idx_email_outbox_recipient");
+  }
+
+  @Test
+  @DisplayName("RefreshTokenRepository.revokeAllByEmail - Uses an index")
+  void refresh_token_revoke_all_by_email() {
+    // when
+    refreshTokenRepository.revokeAllByEmail("a@example.com", LocalDateTime.now());
+
+    // then
+    assertThat(explainLastStatement()).containsIgnoringCase("idx_refresh_token_email");
+  }
+
+  @Test
+  @DisplayName("RefreshTokenRepository.findByTokenHash - Uses an index")
+  void refresh_token_find_by_token_hash() {
+    // when
+    refreshTokenRepository.findByTokenHash("abc");
+
+    // then
+    assertThat(explainLastStatement()).containsIgnoringCase("uk_refresh_token_token_hash");
+  }
+
+  @Test
+  @DisplayName("RefreshTokenRepository.revokeFamily - Uses an index")
+  void refresh_token_revoke_family() {
+    // when
+    refreshTokenRepository.revokeFamily("abc", LocalDateTime.now());
+
+    // then
+    assertThat(explainLastStatement()).containsIgnoringCase("idx_refresh_token_family_id");
+  }
+
+  /**
+   * Parameters are bound as NULL. The plan is made before values are known, so it doesn't change.
+   */
+  private String explainLastStatement() {
+    String sql = SqlStatementCounter.lastStatement();
+    assertThat(sql).isNotNull();
+    Object[] parameters = new Object[(int) sql.chars().filter(c -> c == '?').count()];
+    return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, parameters);
+  }
+}
@@ -0,0 +1,72 @@
+package com.marceldev.ourcompanylunchauth.security;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.marceldev.ourcompanylunchauth.basic.IntegrationTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * The actuator user is set in application-test.yml.
+ */
+@AutoConfigureMockMvc
+class ActuatorSecurityTest extends IntegrationTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Test
+  @DisplayName("Health - Success(No credentials needed)")
+  void health() throws Exception {
+    mockMvc.perform(get("/actuator/health"))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  @DisplayName("Email Filter Rebuild - Success")
+  void email_filter_rebuild() throws Exception {
+    mockMvc.perform(post("/actuator/emailfilter")
+            .with(httpBasic("actuator", "actuator1234")))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.ready").value(true));
+  }
+
+  @Test
+  @DisplayName("Email Filter Rebuild - Fail(No credentials)")
+  void email_filter_rebuild_fail_anonymous() throws Exception {
+    mockMvc.perform(post("/actuator/emailfilter"))
+        .andExpect(status().isUnauthorized());
+  }
+
+  @Test
+  @DisplayName("Email Filter Rebuild - Fail(Wrong password)")
+  void email_filter_rebuild_fail_wrong_password() throws Exception {
+    mockMvc.perform(post("/actuator/emailfilter")
+            .with(httpBasic("actuator", "abc123123")))
+        .andExpect(status().isUnauthorized());
+  }
+
+  @Test
+  @DisplayName("Token Revocation - Fail(No credentials)")
+  void token_revocation_fail_anonymous() throws Exception {
+    mockMvc.perform(post("/actuator/tokenrevocation")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"email\":\"hello@example.com\"}"))
+        .andExpect(status().isUnauthorized());
+  }
+
+  @Test
+  @DisplayName("Email Filter Status - Fail(No credentials, internals not readable either)")
+  void email_filter_status_fail_anonymous() throws Exception {
+    mockMvc.perform(get("/actuator/emailfilter"))
+        .andExpect(status().isUnauthorized());
+  }
+}
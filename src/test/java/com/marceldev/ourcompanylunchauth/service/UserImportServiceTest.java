@@ -0,0 +1,97 @@
+package com.marceldev.ourcompanylunchauth.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.marceldev.ourcompanylunchauth.basic.IntegrationTest;
+import com.marceldev.ourcompanylunchauth.dto.UserImportResult;
+import com.marceldev.ourcompanylunchauth.entity.SignUpOutbox;
+import com.marceldev.ourcompanylunchauth.entity.User;
+import com.marceldev.ourcompanylunchauth.model.Role;
+import com.marceldev.ourcompanylunchauth.model.SignUpStatus;
+import com.marceldev.ourcompanylunchauth.model.UserImportFormat;
+import com.marceldev.ourcompanylunchauth.model.UserImportStatus;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+class UserImportServiceTest extends IntegrationTest {
+
+  @Autowired
+  private UserImportService userImportService;
+
+  @Test
+  @DisplayName("Import Users - Success(NDJSON)")
+  void import_users_ndjson() throws IOException {
+    // given
+    userRepository.save(User.builder()
+        .email("existing@example.com")
+        .password("encoded")
+        .role(Role.VIEWER)
+        .signUpStatus(SignUpStatus.COMPLETED)
+        .build());
+    String input = """
+        {"email": "a@example.com", "password": "abc123123", "name": "A"}
+        {"email": "existing@example.com", "password": "abc123123", "name": "Existing"}
+        {"email": "A@example.com", "password": "abc123123", "name": "A again"}
+        {"email": "not-an-email", "password": "abc123123", "name": "Invalid"}
+        not json
+
+        {"email": "b@example.com", "password": "abc123123", "name": "B"}
+        """;
+
+    // when
+    List<UserImportResult> results = importUsers(input, UserImportFormat.NDJSON);
+
+    // then
+    assertThat(results)
+        .extracting(UserImportResult::getLine, UserImportResult::getStatus)
+        .containsExactly(
+            tuple(2L, UserImportStatus.EXISTS),
+            tuple(3L, UserImportStatus.DUPLICATE),
+            tuple(4L, UserImportStatus.INVALID),
+            tuple(5L, UserImportStatus.INVALID),
+            tuple(1L, UserImportStatus.CREATED),
+            tuple(7L, UserImportStatus.CREATED));
+
+    User user = userRepository.findByEmail("a@example.com").orElseThrow();
+    assertThat(user.getSignUpStatus()).isEqualTo(SignUpStatus.PENDING);
+    assertThat(passwordEncoder.matches("abc123123", user.getPassword())).isTrue();
+    assertThat(signUpOutboxRepository.findAll())
+        .extracting(SignUpOutbox::getEmail, SignUpOutbox::getName)
+        .containsExactlyInAnyOrder(tuple("a@example.com", "A"), tuple("b@example.com", "B"));
+  }
+
+  @Test
+  @DisplayName("Import Users - Success(CSV, password with a comma)")
+  void import_users_csv() throws IOException {
+    // given
+    String input = """
+        email,name,password
+        csv@example.com,Csv,abc,123123
+        """;
+
+    // when
+    List<UserImportResult> results = importUsers(input, UserImportFormat.CSV);
+
+    // then
+    assertThat(results)
+        .extracting(UserImportResult::getLine, UserImportResult::getStatus)
+        .containsExactly(tuple(2L, UserImportStatus.CREATED));
+    User user = userRepository.findByEmail("csv@example.com").orElseThrow();
+    assertThat(passwordEncoder.matches("abc,123123", user.getPassword())).isTrue();
+  }
+
+  private List<UserImportResult> importUsers(String input, UserImportFormat format)
+      throws IOException {
+    List<UserImportResult> results = new ArrayList<>();
+    userImportService.importUsers(
+        new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), format, results::add);
+    return results;
+  }
+}
@@ -1,27 +1,53 @@
 package com.marceldev.ourcompanylunchauth.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.verify;
 
 import com.marceldev.ourcompanylunchauth.basic.IntegrationTest;
+import com.marceldev.ourcompanylunchauth.dto.RefreshTokenRequest;
 import com.marceldev.ourcompanylunchauth.dto.SendVerificationCodeRequest;
 import com.marceldev.ourcompanylunchauth.dto.SignInRequest;
 import com.marceldev.ourcompanylunchauth.dto.SignUpRequest;
+import com.marceldev.ourcompanylunchauth.dto.SignUpStatusResponse;
+import com.marceldev.ourcompanylunchauth.dto.TokenIntrospectRequest;
+import com.marceldev.ourcompanylunchauth.dto.TokenIntrospectResponse;
 import com.marceldev.ourcompanylunchauth.dto.TokenResponse;
+import com.marceldev.ourcompanylunchauth.entity.EmailOutbox;
+import com.marceldev.ourcompanylunchauth.entity.SignUpOutbox;
 import com.marceldev.ourcompanylunchauth.entity.User;
 import com.marceldev.ourcompanylunchauth.entity.Verification;
 import com.marceldev.ourcompanylunchauth.exception.AlreadyExistUserException;
 import com.marceldev.ourcompanylunchauth.exception.IncorrectPasswordException;
+import com.marceldev.ourcompanylunchauth.exception.InvalidRefreshTokenException;
+import com.marceldev.ourcompanylunchauth.exception.InvalidTokenException;
+import com.marceldev.ourcompanylunchauth.exception.RefreshTokenReuseException;
 import com.marceldev.ourcompanylunchauth.exception.UserNotExistException;
+import com.marceldev.ourcompanylunchauth.model.MailMessage;
 import com.marceldev.ourcompanylunchauth.model.Role;
+import com.marceldev.ourcompanylunchauth.model.SignUpStatus;
+import com.marceldev.ourcompanylunchauth.repository.RefreshTokenRepository;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 class UserServiceTest extends IntegrationTest {
 
+  @Autowired
+  private RefreshTokenRepository refreshTokenRepository;
+
   @Test
   @DisplayName("Sign Up - Success")
   void sign_up() {
@@ -36,8 +62,11 @@ class UserServiceTest extends IntegrationTest {
     // then
     User user = userRepository.findByEmail("hello@example.com")
         .orElseThrow();
-    assertThat(user).extracting(User::getEmail, User::getRole)
-        .contains("hello@example.com", Role.VIEWER);
+    assertThat(user).extracting(User::getEmail, User::getRole, User::getSignUpStatus)
+        .contains("hello@example.com", Role.VIEWER, SignUpStatus.PENDING);
+    assertThat(signUpOutboxRepository.findAll())
+        .extracting(SignUpOutbox::getEmail, SignUpOutbox::getName)
+        .containsExactly(tuple("hello@example.com", "John"));
   }
 
   @Test
@@ -64,6 +93,7 @@ class UserServiceTest extends IntegrationTest {
 
     // then
     assertThat(tokenProvider.validateToken(tokenResponse.getToken())).isTrue();
+    assertThat(tokenResponse.getRefreshToken()).isNotBlank();
   }
 
   @Test
@@ -89,6 +119,233 @@ class UserServiceTest extends IntegrationTest {
         () -> userService.signIn(request));
   }
 
+  @Test
+  @DisplayName("Sign In - Success(Second sign in from the credential cache)")
+  void sign_in_cached() {
+    // given
+    signUpUser("cached@example.com", "abc123123");
+    userService.signIn(createSignInRequest("cached@example.com", "abc123123"));
+    userRepository.deleteAll();
+
+    // when
+    TokenResponse tokenResponse = userService.signIn(
+        createSignInRequest("cached@example.com", "abc123123"));
+
+    // then
+    assertThat(tokenProvider.validateToken(tokenResponse.getToken())).isTrue();
+  }
+
+  @Test
+  @DisplayName("Sign In - Fail(Sign up again invalidates the cached password)")
+  void sign_in_fail_cache_invalidated() {
+    // given
+    signUpUser("cached@example.com", "abc123123");
+    userService.signIn(createSignInRequest("cached@example.com", "abc123123"));
+    userRepository.deleteAll();
+    signUpUser("cached@example.com", "abab1212");
+
+    // when // then
+    assertThrows(IncorrectPasswordException.class,
+        () -> userService.signIn(createSignInRequest("cached@example.com", "abc123123")));
+  }
+
+  /**
+   * The rehash is saved by a pool thread in its own transaction, so this test commits instead of
+   * rolling back, and cleans up after itself.
+   */
+  @Test
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  @DisplayName("Sign In - Success(Weaker hash upgraded in the background)")
+  void sign_in_upgrade_password() throws InterruptedException {
+    try {
+      // given
+      signUpUser("legacy@example.com", "abc123123");
+      String legacyPassword = new BCryptPasswordEncoder(4).encode("abc123123");
+      userRepository.updatePassword("legacy@example.com",
+          userRepository.findByEmail("legacy@example.com").orElseThrow().getPassword(),
+          legacyPassword);
+
+      // when
+      userService.signIn(createSignInRequest("legacy@example.com", "abc123123"));
+
+      // then
+      String password = legacyPassword;
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (password.equals(legacyPassword)) {
+        assertThat(System.nanoTime()).isLessThan(deadline);
+        Thread.sleep(10);
+        password = userRepository.findByEmail("legacy@example.com").orElseThrow().getPassword();
+      }
+      assertThat(password).startsWith("{bcrypt}");
+      assertThat(passwordEncoder.matches("abc123123", password)).isTrue();
+      assertThat(userService.signIn(createSignInRequest("legacy@example.com", "abc123123")))
+          .isNotNull();
+    } finally {
+      refreshTokenRepository.deleteAll();
+      signUpOutboxRepository.deleteAll();
+      verificationRepository.deleteAll();
+      userRepository.deleteAll();
+    }
+  }
+
+  @Test
+  @DisplayName("Update Password - Fail(Hash changed since it was read)")
+  void update_password_fail_changed() {
+    // given
+    signUpUser("hello@example.com", "abc123123");
+    String readPassword = userRepository.findByEmail("hello@example.com").orElseThrow()
+        .getPassword();
+    userRepository.updatePassword("hello@example.com", readPassword, passwordEncoder.encode("new"));
+
+    // when
+    int rows = userRepository.updatePassword("hello@example.com", readPassword,
+        passwordEncoder.encode("abc123123"));
+
+    // then
+    assertThat(rows).isZero();
+    assertThat(passwordEncoder.matches("new",
+        userRepository.findByEmail("hello@example.com").orElseThrow().getPassword())).isTrue();
+  }
+
+  @Test
+  @DisplayName("Refresh Token - Success")
+  void refresh_token() {
+    // given
+    signUpUser("hello@example.com", "abc123123");
+    TokenResponse signIn = userService.signIn(
+        createSignInRequest("hello@example.com", "abc123123"));
+
+    // when
+    TokenResponse tokenResponse = userService.refreshToken(
+        createRefreshTokenRequest(signIn.getRefreshToken()));
+
+    // then
+    assertThat(tokenProvider.validateToken(tokenResponse.getToken())).isTrue();
+    assertThat(tokenResponse.getRefreshToken()).isNotEqualTo(signIn.getRefreshToken());
+  }
+
+  @Test
+  @DisplayName("Refresh Token - Fail(Reused token revokes the rotated one too)")
+  void refresh_token_fail_reuse() {
+    // given
+    signUpUser("hello@example.com", "abc123123");
+    TokenResponse signIn = userService.signIn(
+        createSignInRequest("hello@example.com", "abc123123"));
+    TokenResponse rotated = userService.refreshToken(
+        createRefreshTokenRequest(signIn.getRefreshToken()));
+
+    // when // then
+    assertThrows(RefreshTokenReuseException.class,
+        () -> userService.refreshToken(createRefreshTokenRequest(signIn.getRefreshToken())));
+    assertThrows(InvalidRefreshTokenException.class,
+        () -> userService.refreshToken(createRefreshTokenRequest(rotated.getRefreshToken())));
+  }
+
+  @Test
+  @DisplayName("Refresh Token - Fail(Reused token revokes the user's other families)")
+  void refresh_token_fail_reuse_other_family() {
+    // given
+    signUpUser("hello@example.com", "abc123123");
+    TokenResponse signIn = userService.signIn(
+        createSignInRequest("hello@example.com", "abc123123"));
+    TokenResponse otherSignIn = userService.signIn(
+        createSignInRequest("hello@example.com", "abc123123"));
+    userService.refreshToken(createRefreshTokenRequest(signIn.getRefreshToken()));
+
+    // when // then
+    assertThrows(RefreshTokenReuseException.class,
+        () -> userService.refreshToken(createRefreshTokenRequest(signIn.getRefreshToken())));
+    assertThrows(InvalidRefreshTokenException.class,
+        () -> userService.refreshToken(createRefreshTokenRequest(otherSignIn.getRefreshToken())));
+  }
+
+  @Test
+  @DisplayName("Refresh Token - Fail(All tokens of the user revoked)")
+  void refresh_token_fail_user_revoked() {
+    // given
+    signUpUser("revoked@example.com", "abc123123");
+    TokenResponse signIn = userService.signIn(
+        createSignInRequest("revoked@example.com", "abc123123"));
+    tokenRevocationRegistry.revokeUser("revoked@example.com");
+
+    // when // then
+    assertThrows(InvalidRefreshTokenException.class,
+        () -> userService.refreshToken(createRefreshTokenRequest(signIn.getRefreshToken())));
+  }
+
+  @Test
+  @DisplayName("Introspect Token - Success")
+  void introspect_token() {
+    // given
+    signUpUser("introspect@example.com", "abc123123");
+    TokenResponse signIn = userService.signIn(
+        createSignInRequest("introspect@example.com", "abc123123"));
+
+    // when
+    TokenIntrospectResponse response = userService.introspectToken(
+        createTokenIntrospectRequest(signIn.getToken()));
+
+    // then
+    assertThat(response.isActive()).isTrue();
+    assertThat(response.getSub()).isEqualTo("introspect@example.com");
+    assertThat(response.getRole()).isEqualTo(Role.VIEWER.toString());
+  }
+
+  @Test
+  @DisplayName("Introspect Token - Inactive(All tokens of the user revoked)")
+  void introspect_token_revoked() {
+    // given
+    signUpUser("revoked@example.com", "abc123123");
+    TokenResponse signIn = userService.signIn(
+        createSignInRequest("revoked@example.com", "abc123123"));
+    tokenRevocationRegistry.revokeUser("revoked@example.com");
+    // Put in memory on commit, which this test doesn't. Picked up from the DB, as on another node.
+    tokenRevocationRegistry.sync();
+
+    // when
+    TokenIntrospectResponse response = userService.introspectToken(
+        createTokenIntrospectRequest(signIn.getToken()));
+
+    // then
+    assertThat(response.isActive()).isFalse();
+    assertThat(response.getSub()).isNull();
+  }
+
+  @Test
+  @DisplayName("Introspect Token - Inactive(Invalid token)")
+  void introspect_token_invalid() {
+    // when
+    TokenIntrospectResponse response = userService.introspectToken(
+        createTokenIntrospectRequest("not.a.token"));
+
+    // then
+    assertThat(response.isActive()).isFalse();
+  }
+
+  @Test
+  @DisplayName("Get Sign Up Status - Success")
+  void get_sign_up_status() {
+    // given
+    signUpUser("status@example.com", "abc123123");
+    TokenResponse signIn = userService.signIn(
+        createSignInRequest("status@example.com", "abc123123"));
+    signUpOutboxRelay.relay();
+
+    // when
+    SignUpStatusResponse response = userService.getSignUpStatus(signIn.getToken());
+
+    // then
+    assertThat(response.getStatus()).isEqualTo(SignUpStatus.COMPLETED);
+  }
+
+  @Test
+  @DisplayName("Get Sign Up Status - Fail(Invalid token)")
+  void get_sign_up_status_fail_invalid_token() {
+    // when // then
+    assertThrows(InvalidTokenException.class,
+        () -> userService.getSignUpStatus("not.a.token"));
+  }
+
   @Test
   @DisplayName("Send Verification Code - Success")
   void send_verification_code() {
@@ -96,20 +353,43 @@ class UserServiceTest extends IntegrationTest {
     SendVerificationCodeRequest request = SendVerificationCodeRequest.builder()
         .email("hello@example.com")
         .build();
+    given(emailSender.sendMails(anyList(), any()))
+        .willAnswer(invocation -> Arrays.asList(
+            new Exception[invocation.<List<?>>getArgument(0).size()]));
 
     // when
     userService.sendVerificationCode(request);
+    emailOutboxDispatcher.dispatch();
 
     // then
-    ArgumentCaptor<String> captorEmail = ArgumentCaptor.forClass(String.class);
-    ArgumentCaptor<String> captorSubject = ArgumentCaptor.forClass(String.class);
-    ArgumentCaptor<String> captorBody = ArgumentCaptor.forClass(String.class);
+    assertThat(emailOutboxRepository.count()).isZero();
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<MailMessage>> captor = ArgumentCaptor.forClass(List.class);
+
+    verify(emailSender).sendMails(captor.capture(), any());
+    MailMessage message = captor.getValue().get(0);
+    assertThat(message.getTo()).isEqualTo("hello@example.com");
+    assertThat(message.getSubject().contains("Our Company Lunch")).isTrue();
+    assertThat(message.getText().contains("Verification code")).isTrue();
+  }
+
+  @Test
+  @DisplayName("Send Verification Code - Success(Resend replaces the unsent email)")
+  void send_verification_code_resend() {
+    // given
+    SendVerificationCodeRequest request = SendVerificationCodeRequest.builder()
+        .email("hello@example.com")
+        .build();
+    userService.sendVerificationCode(request);
+    Long firstId = emailOutboxRepository.findAll().get(0).getId();
+
+    // when
+    userService.sendVerificationCode(request);
 
-    verify(emailSender).sendMail(captorEmail.capture(), captorSubject.capture(),
-        captorBody.capture());
-    assertThat(captorEmail.getValue()).isEqualTo("hello@example.com");
-    assertThat(captorSubject.getValue().contains("Our Company Lunch")).isTrue();
-    assertThat(captorBody.getValue().contains("Verification code")).isTrue();
+    // then
+    List<EmailOutbox> pending = emailOutboxRepository.findAll();
+    assertThat(pending).hasSize(1);
+    assertThat(pending.get(0).getId()).isNotEqualTo(firstId);
   }
 
   private void signUpUser(String email, String password) {
@@ -135,6 +415,18 @@ class UserServiceTest extends IntegrationTest {
         .build();
   }
 
+  private RefreshTokenRequest createRefreshTokenRequest(String refreshToken) {
+    return RefreshTokenRequest.builder()
+        .refreshToken(refreshToken)
+        .build();
+  }
+
+  private TokenIntrospectRequest createTokenIntrospectRequest(String token) {
+    return TokenIntrospectRequest.builder()
+        .token(token)
+        .build();
+  }
+
   private static Verification createVerification(String email, String code) {
     return Verification.builder()
         .email(email)
@@ -0,0 +1,43 @@
+package com.marceldev.ourcompanylunchauth.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.marceldev.ourcompanylunchauth.basic.IntegrationTest;
+import com.marceldev.ourcompanylunchauth.basic.SqlStatementCounter;
+import com.marceldev.ourcompanylunchauth.entity.Verification;
+import com.marceldev.ourcompanylunchauth.model.VerificationCode;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+class DbVerificationStoreTest extends IntegrationTest {
+
+  @Autowired
+  private DbVerificationStore dbVerificationStore;
+
+  @Test
+  @DisplayName("Save - One statement for a new code and for a resend")
+  void save_one_statement() {
+    // given
+    String email = "hello@example.com";
+    LocalDateTime expirationAt = LocalDateTime.now().plusMinutes(3);
+
+    // when
+    SqlStatementCounter.reset();
+    dbVerificationStore.save(new VerificationCode(email, "111111", expirationAt));
+    int firstSave = SqlStatementCounter.count();
+
+    SqlStatementCounter.reset();
+    dbVerificationStore.save(new VerificationCode(email, "222222", expirationAt.plusMinutes(1)));
+    int resend = SqlStatementCounter.count();
+
+    // then
+    assertThat(firstSave).isEqualTo(1);
+    assertThat(resend).isEqualTo(1);
+    assertThat(verificationRepository.findAll())
+        .singleElement()
+        .extracting(Verification::getCode)
+        .isEqualTo("222222");
+  }
+}
@@ -0,0 +1,81 @@
+package com.marceldev.ourcompanylunchauth.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntToLongFunction;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Timings are made up: 100 ms at strength 10, doubling with each strength.
+ */
+class BCryptStrengthCalibratorTest {
+
+  private static final Duration TARGET = Duration.ofMillis(250);
+
+  private final Map<Integer, Integer> calls = new HashMap<>();
+
+  @Test
+  @DisplayName("Calibrate - Highest strength within the target")
+  void calibrate() {
+    // when
+    int strength = BCryptStrengthCalibrator.calibrate(TARGET, 10, 14, measure(-1, 0));
+
+    // then
+    assertThat(strength).isEqualTo(11);
+  }
+
+  @Test
+  @DisplayName("Calibrate - One fast sample doesn't raise the strength")
+  void calibrate_fast_sample() {
+    // given
+    IntToLongFunction measure = measure(12, Duration.ofMillis(10).toNanos());
+
+    // when
+    int strength = BCryptStrengthCalibrator.calibrate(TARGET, 10, 14, measure);
+
+    // then
+    assertThat(strength).isEqualTo(11);
+  }
+
+  @Test
+  @DisplayName("Calibrate - One slow sample doesn't lower the strength")
+  void calibrate_slow_sample() {
+    // given
+    IntToLongFunction measure = measure(11, Duration.ofSeconds(1).toNanos());
+
+    // when
+    int strength = BCryptStrengthCalibrator.calibrate(TARGET, 10, 14, measure);
+
+    // then
+    assertThat(strength).isEqualTo(11);
+  }
+
+  @Test
+  @DisplayName("Calibrate - Kept within the min and max strength")
+  void calibrate_bounds() {
+    // when
+    int slowHost = BCryptStrengthCalibrator.calibrate(Duration.ofMillis(1), 10, 14, measure(-1, 0));
+    int fastHost = BCryptStrengthCalibrator.calibrate(Duration.ofHours(1), 10, 14, measure(-1, 0));
+
+    // then
+    assertThat(slowHost).isEqualTo(10);
+    assertThat(fastHost).isEqualTo(14);
+  }
+
+  /**
+   * The first sample at noisyStrength takes noisyNanos instead.
+   */
+  private IntToLongFunction measure(int noisyStrength, long noisyNanos) {
+    return strength -> {
+      int call = calls.merge(strength, 1, Integer::sum);
+      if (strength == noisyStrength && call == 1) {
+        return noisyNanos;
+      }
+      return Duration.ofMillis(100).toNanos() << (strength - 10);
+    };
+  }
+}
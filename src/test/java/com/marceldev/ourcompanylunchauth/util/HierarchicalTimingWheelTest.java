@@ -0,0 +1,79 @@
+package com.marceldev.ourcompanylunchauth.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class HierarchicalTimingWheelTest {
+
+  private final List<String> expired = new ArrayList<>();
+
+  @Test
+  @DisplayName("Expire - At the deadline, not before")
+  void expire_at_deadline() {
+    // given
+    HierarchicalTimingWheel<String> wheel =
+        new HierarchicalTimingWheel<>(1000, 64, 4, 0, expired::add);
+    wheel.add("a", 3_000);
+
+    // when
+    wheel.advanceTo(2_999);
+    List<String> beforeDeadline = new ArrayList<>(expired);
+    wheel.advanceTo(3_000);
+
+    // then
+    assertThat(beforeDeadline).isEmpty();
+    assertThat(expired).containsExactly("a");
+    assertThat(wheel.size()).isZero();
+  }
+
+  @Test
+  @DisplayName("Expire - Items in higher levels cascade down and expire on time")
+  void expire_cascade() {
+    // given
+    HierarchicalTimingWheel<String> wheel =
+        new HierarchicalTimingWheel<>(1000, 4, 3, 0, expired::add);
+    wheel.add("level1", 10_000);
+    wheel.add("level2", 37_000);
+    wheel.add("beyond", 100_000);
+
+    // when
+    wheel.advanceTo(9_000);
+    List<String> at9 = new ArrayList<>(expired);
+    wheel.advanceTo(10_000);
+    List<String> at10 = new ArrayList<>(expired);
+    wheel.advanceTo(36_000);
+    List<String> at36 = new ArrayList<>(expired);
+    wheel.advanceTo(37_000);
+    List<String> at37 = new ArrayList<>(expired);
+    wheel.advanceTo(99_000);
+    List<String> at99 = new ArrayList<>(expired);
+    wheel.advanceTo(100_000);
+
+    // then
+    assertThat(at9).isEmpty();
+    assertThat(at10).containsExactly("level1");
+    assertThat(at36).containsExactly("level1");
+    assertThat(at37).containsExactly("level1", "level2");
+    assertThat(at99).containsExactly("level1", "level2");
+    assertThat(expired).containsExactly("level1", "level2", "beyond");
+  }
+
+  @Test
+  @DisplayName("Expire - A deadline already passed expires on the next advance")
+  void expire_past_deadline() {
+    // given
+    HierarchicalTimingWheel<String> wheel =
+        new HierarchicalTimingWheel<>(1000, 64, 4, 10_000, expired::add);
+    wheel.add("past", 5_000);
+
+    // when
+    wheel.advanceTo(11_000);
+
+    // then
+    assertThat(expired).containsExactly("past");
+  }
+}